@@ -0,0 +1,172 @@
+package com.spud.barrage.common.core.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * WebSocket连接票据
+ * 由接入代理签发、推送服务离线校验的紧凑票据，校验只需一次HMAC计算，不访问Redis。
+ * <pre>
+ * 格式: t1.base64url(载荷).base64url(HMAC-SHA256(载荷)前16字节)
+ * 载荷: ticketId(8字节), expireAt(8字节，毫秒), roomId, userId, region, instanceId(均为UTF字符串)
+ * </pre>
+ *
+ * @param ticketId   票据ID，用于吊销
+ * @param roomId     房间ID
+ * @param userId     用户ID
+ * @param expireAt   过期时间戳(毫秒)
+ * @param region     签发时选择的区域
+ * @param instanceId 签发时选择的推送实例
+ * @author Spud
+ * @date 2026/10/16
+ */
+public record ConnectionTicket(long ticketId, String roomId, String userId, long expireAt,
+                               String region, String instanceId) {
+
+  /**
+   * 票据前缀，用于与其他令牌区分
+   */
+  public static final String PREFIX = "t1.";
+
+  private static final String ALGORITHM = "HmacSHA256";
+
+  private static final int SIGNATURE_LENGTH = 16;
+
+  private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+  private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+  /**
+   * Mac实例池，容量有界，虚拟线程下不会为每个线程各缓存一个实例
+   */
+  private static final BlockingQueue<Mac> MACS =
+      new ArrayBlockingQueue<>(Runtime.getRuntime().availableProcessors() * 2);
+
+  /**
+   * 签发新票据，票据ID随机生成
+   */
+  public static ConnectionTicket issue(String roomId, String userId, long expireAt,
+      String region, String instanceId) {
+    return new ConnectionTicket(ThreadLocalRandom.current().nextLong(), roomId, userId,
+        expireAt, region, instanceId);
+  }
+
+  /**
+   * 是否为票据格式，不校验签名
+   */
+  public static boolean isTicket(String token) {
+    return token != null && token.startsWith(PREFIX);
+  }
+
+  /**
+   * 编码并签名
+   */
+  public String sign(byte[] secret) {
+    byte[] payload = encodePayload();
+    return PREFIX + ENCODER.encodeToString(payload) + "."
+        + ENCODER.encodeToString(signature(secret, payload));
+  }
+
+  /**
+   * 校验签名并解码，签名不匹配或格式错误时返回null，不检查是否过期
+   */
+  public static ConnectionTicket verify(String token, byte[] secret) {
+    if (!isTicket(token)) {
+      return null;
+    }
+    int dot = token.indexOf('.', PREFIX.length());
+    if (dot < 0) {
+      return null;
+    }
+    try {
+      byte[] payload = DECODER.decode(token.substring(PREFIX.length(), dot));
+      byte[] signature = DECODER.decode(token.substring(dot + 1));
+      if (!MessageDigest.isEqual(signature, signature(secret, payload))) {
+        return null;
+      }
+      return decodePayload(payload);
+    } catch (IllegalArgumentException | IOException e) {
+      return null;
+    }
+  }
+
+  /**
+   * 是否已过期
+   */
+  public boolean isExpired(long now) {
+    return expireAt <= now;
+  }
+
+  private byte[] encodePayload() {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeLong(ticketId);
+      out.writeLong(expireAt);
+      out.writeUTF(nullToEmpty(roomId));
+      out.writeUTF(nullToEmpty(userId));
+      out.writeUTF(nullToEmpty(region));
+      out.writeUTF(nullToEmpty(instanceId));
+    } catch (IOException e) {
+      throw new IllegalStateException("encode ticket failed", e);
+    }
+    return bytes.toByteArray();
+  }
+
+  private static ConnectionTicket decodePayload(byte[] payload) throws IOException {
+    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+      long ticketId = in.readLong();
+      long expireAt = in.readLong();
+      return new ConnectionTicket(ticketId, emptyToNull(in.readUTF()),
+          emptyToNull(in.readUTF()), expireAt, emptyToNull(in.readUTF()),
+          emptyToNull(in.readUTF()));
+    }
+  }
+
+  private static byte[] signature(byte[] secret, byte[] payload) {
+    Mac mac = MACS.poll();
+    try {
+      if (mac == null) {
+        mac = Mac.getInstance(ALGORITHM);
+      }
+      mac.init(new SecretKeySpec(secret, ALGORITHM));
+      return Arrays.copyOf(mac.doFinal(payload), SIGNATURE_LENGTH);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("HmacSHA256 not available", e);
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("invalid ticket secret", e);
+    } finally {
+      if (mac != null) {
+        MACS.offer(mac);
+      }
+    }
+  }
+
+  private static String nullToEmpty(String value) {
+    return value != null ? value : "";
+  }
+
+  private static String emptyToNull(String value) {
+    return value.isEmpty() ? null : value;
+  }
+
+  /**
+   * 密钥字节，签发方与校验方使用相同的配置
+   */
+  public static byte[] secretBytes(String secret) {
+    return secret.getBytes(StandardCharsets.UTF_8);
+  }
+}
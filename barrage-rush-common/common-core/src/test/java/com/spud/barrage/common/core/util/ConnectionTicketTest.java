@@ -0,0 +1,51 @@
+package com.spud.barrage.common.core.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * ConnectionTicket单元测试
+ *
+ * @author Spud
+ * @date 2026/10/16
+ */
+class ConnectionTicketTest {
+
+  private static final byte[] SECRET = ConnectionTicket.secretBytes("test-secret");
+
+  @Test
+  void signedTicketRoundTrips() {
+    ConnectionTicket ticket = ConnectionTicket.issue("1001", "42", 1_760_000_000_000L,
+        "cn-east-1", "10.0.0.1:8083");
+
+    String token = ticket.sign(SECRET);
+    ConnectionTicket verified = ConnectionTicket.verify(token, SECRET);
+
+    assertTrue(ConnectionTicket.isTicket(token));
+    assertNotNull(verified);
+    assertEquals(ticket, verified);
+    assertTrue(verified.isExpired(1_760_000_000_001L));
+    assertFalse(verified.isExpired(1_759_999_999_999L));
+  }
+
+  @Test
+  void tamperedOrForeignTicketsAreRejected() {
+    String token = ConnectionTicket.issue("1001", "42", Long.MAX_VALUE, null, null).sign(SECRET);
+    String forged = ConnectionTicket.issue("1001", "43", Long.MAX_VALUE, null, null)
+        .sign(ConnectionTicket.secretBytes("other-secret"));
+
+    int dot = token.lastIndexOf('.');
+    String tampered = token.substring(0, dot - 1)
+        + (token.charAt(dot - 1) == 'A' ? 'B' : 'A') + token.substring(dot);
+
+    assertNull(ConnectionTicket.verify(forged, SECRET));
+    assertNull(ConnectionTicket.verify(tampered, SECRET));
+    assertNull(ConnectionTicket.verify("t1.not-a-ticket", SECRET));
+    assertNull(ConnectionTicket.verify("0123456789abcdef", SECRET));
+  }
+}
@@ -38,6 +38,11 @@ public class DanmakuMessage extends BaseEntity implements Serializable {
    */
   private Long roomId;
 
+  /**
+   * 房间内单调递增的序号，由发布方分配一次，客户端断线重连时据此续传
+   */
+  private Long seq;
+
   /**
    * 用户ID
    */
@@ -48,6 +48,22 @@ public class MqConstants {
     public static final String SYSTEM = "danmaku.routing.system";
   }
 
+  /**
+   * 消息头
+   * 发送时写入路由所需的元数据，消费方无需解析消息体即可路由
+   */
+  public static class Header {
+
+    /** 房间ID */
+    public static final String ROOM_ID = "x-room-id";
+
+    /** 消息类型 */
+    public static final String MESSAGE_TYPE = "x-message-type";
+
+    /** 弹幕消息类型 */
+    public static final String TYPE_DANMAKU = "DANMAKU";
+  }
+
   /**
    * Redis主题
    */
@@ -76,6 +92,9 @@ public class MqConstants {
     /** 房间资源信息键格式 - 需要格式化roomId */
     public static final String ROOM_RESOURCE = "room:resource:%d";
 
+    /** 房间弹幕序号键格式 - 需要格式化roomId */
+    public static final String ROOM_SEQ = "room:seq:%d";
+
     /** 房间观众数键格式 - 需要格式化roomId */
     public static final String ROOM_VIEWERS = "room:viewers:%d";
 
@@ -91,7 +110,7 @@ public class MqConstants {
     /** 绑定关系键格式 - 需要格式化交换机名称和队列名称 */
     public static final String BINDING = "danmaku:binding:%s:%s";
 
-    /** 房间弹幕速率键格式 - 需要格式化roomId */
+    /** 房间弹幕速率键格式 - 需要格式化roomId，哈希：时间桶起始秒 -> 各节点累加的弹幕数 */
     public static final String ROOM_DANMAKU_RATE = "room:%d:danmaku:rate";
 
     /** 空闲交换机列表键格式 - 需要格式化交换机类型 */
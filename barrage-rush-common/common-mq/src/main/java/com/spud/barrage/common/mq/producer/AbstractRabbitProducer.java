@@ -2,6 +2,7 @@ package com.spud.barrage.common.mq.producer;
 
 import com.spud.barrage.common.data.dto.DanmakuMessage;
 import com.spud.barrage.common.mq.config.CoreMQConfig;
+import com.spud.barrage.common.mq.constant.MqConstants;
 import java.util.UUID;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
@@ -64,8 +65,13 @@ public abstract class AbstractRabbitProducer {
       // 创建关联数据用于跟踪消息发送状态
       CorrelationData correlationData = new CorrelationData(UUID.randomUUID().toString());
 
-      // 发送消息
-      rabbitTemplate.convertAndSend(exchange, routingKey, message, correlationData);
+      // 发送消息，房间ID和消息类型写入消息头，消费方按消息头路由
+      rabbitTemplate.convertAndSend(exchange, routingKey, message, amqpMessage -> {
+        amqpMessage.getMessageProperties().setHeader(MqConstants.Header.ROOM_ID, roomId);
+        amqpMessage.getMessageProperties()
+            .setHeader(MqConstants.Header.MESSAGE_TYPE, MqConstants.Header.TYPE_DANMAKU);
+        return amqpMessage;
+      }, correlationData);
 
       // 等待确认结果
       try {
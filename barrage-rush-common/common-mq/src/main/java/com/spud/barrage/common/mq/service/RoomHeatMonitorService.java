@@ -4,11 +4,15 @@ import com.spud.barrage.common.data.mq.enums.RoomType;
 import com.spud.barrage.common.mq.config.RoomManager;
 import com.spud.barrage.common.mq.constant.MqConstants;
 import com.spud.barrage.common.mq.util.MqUtils;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
@@ -25,6 +29,11 @@ import org.springframework.stereotype.Service;
 @RequiredArgsConstructor
 public class RoomHeatMonitorService {
 
+  /**
+   * 弹幕速率的统计窗口(秒)
+   */
+  private static final long DANMAKU_RATE_WINDOW_SECONDS = 60;
+
   private final RedisTemplate<String, Object> redisTemplate;
   private final RoomManager roomManager;
 
@@ -66,17 +75,8 @@ public class RoomHeatMonitorService {
             }
           }
 
-          // 获取弹幕速率
-          String danmakuRateKey = String.format(MqConstants.RedisKey.ROOM_DANMAKU_RATE, roomId);
-          Object rateObj = redisTemplate.opsForValue().get(danmakuRateKey);
-          int danmakuRate = 0;
-          if (rateObj != null) {
-            try {
-              danmakuRate = Integer.parseInt(rateObj.toString());
-            } catch (NumberFormatException e) {
-              log.error("Invalid danmaku rate for room {}: {}", roomId, rateObj);
-            }
-          }
+          // 获取弹幕速率（最近一分钟的弹幕数）
+          int danmakuRate = getDanmakuRate(roomId);
 
           // 获取当前房间类型
           RoomType currentType = getRoomType(roomId);
@@ -101,6 +101,41 @@ public class RoomHeatMonitorService {
     }
   }
 
+  /**
+   * 汇总最近一分钟内各节点上报的弹幕时间桶，过期的时间桶顺便删除
+   */
+  private int getDanmakuRate(Long roomId) {
+    byte[] key = String.format(MqConstants.RedisKey.ROOM_DANMAKU_RATE, roomId)
+        .getBytes(StandardCharsets.UTF_8);
+    Map<byte[], byte[]> buckets = redisTemplate.execute(
+        (RedisCallback<Map<byte[], byte[]>>) connection -> connection.hashCommands()
+            .hGetAll(key));
+    if (buckets == null || buckets.isEmpty()) {
+      return 0;
+    }
+
+    long windowStart = System.currentTimeMillis() / 1000 - DANMAKU_RATE_WINDOW_SECONDS;
+    long rate = 0;
+    List<byte[]> expired = new ArrayList<>();
+    for (Map.Entry<byte[], byte[]> bucket : buckets.entrySet()) {
+      try {
+        long second = Long.parseLong(new String(bucket.getKey(), StandardCharsets.UTF_8));
+        if (second < windowStart) {
+          expired.add(bucket.getKey());
+        } else {
+          rate += Long.parseLong(new String(bucket.getValue(), StandardCharsets.UTF_8));
+        }
+      } catch (NumberFormatException e) {
+        log.error("Invalid danmaku rate bucket for room {}", roomId);
+      }
+    }
+    if (!expired.isEmpty()) {
+      redisTemplate.execute((RedisCallback<Long>) connection -> connection.hashCommands()
+          .hDel(key, expired.toArray(new byte[0][])));
+    }
+    return (int) Math.min(Integer.MAX_VALUE, rate);
+  }
+
   /**
    * 获取房间当前类型
    */
@@ -134,12 +169,12 @@ public class RoomHeatMonitorService {
     RoomType typeByViewers = MqUtils.determineRoomType(viewers);
 
     // 超热门房间 - 弹幕速率大于500/分钟
-    if (danmakuRate > 3000000) {
+    if (danmakuRate > 500) {
       return RoomType.SUPER_HOT;
     }
 
     // 热门房间 - 弹幕速率大于200/分钟
-    if (danmakuRate > 600000 && typeByViewers != RoomType.COLD) {
+    if (danmakuRate > 200 && typeByViewers != RoomType.COLD) {
       return RoomType.HOT;
     }
 
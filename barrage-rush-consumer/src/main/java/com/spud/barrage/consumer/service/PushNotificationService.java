@@ -1,12 +1,18 @@
 package com.spud.barrage.consumer.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.spud.barrage.common.data.dto.DanmakuMessage;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
 import java.util.Set;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisStreamCommands.XAddOptions;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
@@ -29,6 +35,12 @@ public class PushNotificationService {
   @Value("${push.notification.enabled:true}")
   private boolean pushEnabled;
 
+  @Value("${push.notification.stream-key-prefix:danmaku:stream:}")
+  private String streamKeyPrefix;
+
+  @Value("${push.notification.stream-payload-field:payload}")
+  private String streamPayloadField;
+
   /**
    * 推送弹幕消息
    */
@@ -70,17 +82,21 @@ public class PushNotificationService {
   }
 
   /**
-   * 存储弹幕消息供Push Server轮询
+   * 存储弹幕消息供Push Server按游标读取
+   * 写入房间的弹幕Stream，按近似长度裁剪，Push Server按消息ID续读
    */
-  private void storeDanmakuForPushServer(DanmakuMessage message) {
-    String key = String.format("push:queue:%s", message.getRoomId());
-    redisTemplate.opsForList().leftPush(key, message);
-
-    // 限制队列大小
-    Long size = redisTemplate.opsForList().size(key);
-    if (size != null && size > batchSize * 10) {
-      redisTemplate.opsForList().trim(key, 0, batchSize * 10 - 1);
-    }
+  private void storeDanmakuForPushServer(DanmakuMessage message) throws JsonProcessingException {
+    byte[] key = (streamKeyPrefix + message.getRoomId()).getBytes(StandardCharsets.UTF_8);
+    byte[] payload = objectMapper.writeValueAsBytes(Map.of(
+        "type", "DANMAKU",
+        "roomId", message.getRoomId(),
+        "data", message));
+    MapRecord<byte[], byte[], byte[]> record = StreamRecords.newRecord()
+        .in(key)
+        .ofMap(Map.of(streamPayloadField.getBytes(StandardCharsets.UTF_8), payload));
+
+    redisTemplate.execute((RedisCallback<Object>) connection -> connection.streamCommands()
+        .xAdd(record, XAddOptions.maxlen(batchSize * 10L).approximateTrimming(true)));
   }
 
   /**
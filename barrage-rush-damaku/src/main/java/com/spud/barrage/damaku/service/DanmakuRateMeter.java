@@ -0,0 +1,186 @@
+package com.spud.barrage.damaku.service;
+
+import com.spud.barrage.common.mq.constant.MqConstants.RedisKey;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * 弹幕速率计量
+ * 每个房间在内存中维护按秒分桶的滑动窗口，记录弹幕时只对所在桶做一次CAS，不访问Redis；
+ * 定期把已结束的秒桶合并为Redis时间桶，用一次pipeline HINCRBY到房间的速率哈希，
+ * 多个节点的计数在同一时间桶内累加，热度监控按最近一分钟的时间桶求和得到弹幕速率。
+ *
+ * @author Spud
+ * @date 2026/10/16
+ */
+@Slf4j
+@Component
+public class DanmakuRateMeter {
+
+  /**
+   * 本地窗口的秒桶数量，需大于上报周期，取2的幂
+   */
+  private static final int LOCAL_BUCKETS = 64;
+
+  /**
+   * 桶值高32位为秒，低32位为计数
+   */
+  private static final int COUNT_BITS = 32;
+
+  private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+  @Autowired
+  private RedisTemplate<String, Object> redisTemplate;
+
+  @Value("${danmaku.rate.flush-interval-millis:1000}")
+  private long flushIntervalMillis;
+
+  @Value("${danmaku.rate.bucket-seconds:10}")
+  private int bucketSeconds;
+
+  @Value("${danmaku.rate.window-seconds:60}")
+  private int windowSeconds;
+
+  private final Map<Long, RoomWindow> rooms = new ConcurrentHashMap<>();
+
+  private ScheduledExecutorService flushScheduler;
+
+  @PostConstruct
+  public void init() {
+    flushScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread t = new Thread(r, "danmaku-rate-flush");
+      t.setDaemon(true);
+      return t;
+    });
+    flushScheduler.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis,
+        TimeUnit.MILLISECONDS);
+    log.info("弹幕速率计量初始化完成: bucketSeconds={}, windowSeconds={}", bucketSeconds,
+        windowSeconds);
+  }
+
+  @PreDestroy
+  public void destroy() {
+    if (flushScheduler != null) {
+      flushScheduler.shutdown();
+    }
+  }
+
+  /**
+   * 记录一条弹幕
+   */
+  public void record(Long roomId) {
+    rooms.computeIfAbsent(roomId, id -> new RoomWindow(currentSecond()))
+        .increment(currentSecond());
+  }
+
+  private void flush() {
+    try {
+      long now = currentSecond();
+      // Redis时间桶 -> 计数，按房间分组
+      Map<Long, Map<Long, Long>> batches = new HashMap<>();
+      rooms.forEach((roomId, window) -> {
+        Map<Long, Long> buckets = window.drain(now, bucketSeconds);
+        if (!buckets.isEmpty()) {
+          batches.put(roomId, buckets);
+        } else if (window.idleSince(now, windowSeconds)) {
+          // 窗口内没有弹幕的房间不再保留，回收瞬间的少量计数可能丢失，对速率统计无影响
+          rooms.remove(roomId, window);
+        }
+      });
+      if (batches.isEmpty()) {
+        return;
+      }
+
+      long ttl = windowSeconds * 2L;
+      redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+        batches.forEach((roomId, buckets) -> {
+          byte[] key = bytes(String.format(RedisKey.ROOM_DANMAKU_RATE, roomId));
+          buckets.forEach((bucket, count) -> connection.hashCommands()
+              .hIncrBy(key, bytes(String.valueOf(bucket)), count));
+          connection.keyCommands().expire(key, ttl);
+        });
+        return null;
+      });
+      log.debug("上报弹幕速率: rooms={}", batches.size());
+    } catch (Exception e) {
+      log.warn("上报弹幕速率失败: {}", e.getMessage());
+    }
+  }
+
+  private static long currentSecond() {
+    return System.currentTimeMillis() / 1000;
+  }
+
+  private static byte[] bytes(String value) {
+    return value.getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * 单个房间的秒桶环
+   */
+  private static final class RoomWindow {
+
+    private final AtomicLongArray buckets = new AtomicLongArray(LOCAL_BUCKETS);
+
+    /**
+     * 已上报到的秒，只由上报线程访问
+     */
+    private long flushedSecond;
+
+    private volatile long lastRecordSecond;
+
+    RoomWindow(long createdSecond) {
+      this.flushedSecond = createdSecond - 1;
+    }
+
+    void increment(long second) {
+      int index = (int) (second & (LOCAL_BUCKETS - 1));
+      long tag = second & COUNT_MASK;
+      while (true) {
+        long value = buckets.get(index);
+        long next = value >>> COUNT_BITS == tag ? value + 1 : tag << COUNT_BITS | 1;
+        if (buckets.compareAndSet(index, value, next)) {
+          break;
+        }
+      }
+      lastRecordSecond = second;
+    }
+
+    /**
+     * 取出已结束且未上报的秒桶，按Redis时间桶合并，当前秒仍在写入，留到下次上报
+     */
+    Map<Long, Long> drain(long now, int bucketSeconds) {
+      Map<Long, Long> result = new HashMap<>(4);
+      long from = Math.max(flushedSecond + 1, now - LOCAL_BUCKETS + 1);
+      for (long second = from; second < now; second++) {
+        long value = buckets.get((int) (second & (LOCAL_BUCKETS - 1)));
+        if (value >>> COUNT_BITS == (second & COUNT_MASK)) {
+          long count = value & COUNT_MASK;
+          if (count > 0) {
+            result.merge(second / bucketSeconds * bucketSeconds, count, Long::sum);
+          }
+        }
+      }
+      flushedSecond = now - 1;
+      return result;
+    }
+
+    boolean idleSince(long now, int windowSeconds) {
+      return now - lastRecordSecond > windowSeconds;
+    }
+  }
+}
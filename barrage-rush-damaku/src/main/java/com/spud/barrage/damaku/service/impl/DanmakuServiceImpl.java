@@ -9,7 +9,9 @@ import com.spud.barrage.common.data.dto.DanmakuRequest;
 import com.spud.barrage.common.data.entity.AnchorRoomConfig;
 import com.spud.barrage.common.data.repository.AnchorRoomConfigRepository;
 import com.spud.barrage.common.data.repository.AnchorRoomSilenceRepository;
+import com.spud.barrage.common.mq.constant.MqConstants.RedisKey;
 import com.spud.barrage.damaku.mq.DanmakuProducer;
+import com.spud.barrage.damaku.service.DanmakuRateMeter;
 import com.spud.barrage.damaku.service.DanmakuService;
 import java.util.Collection;
 import java.util.Map;
@@ -58,6 +60,9 @@ public class DanmakuServiceImpl implements DanmakuService {
   @Autowired
   private SnowflakeIdWorker snowflakeIdWorker;
 
+  @Autowired
+  private DanmakuRateMeter danmakuRateMeter;
+
   @Autowired
   private AnchorRoomSilenceRepository roomSilenceRepository;
 
@@ -72,11 +77,16 @@ public class DanmakuServiceImpl implements DanmakuService {
 
     // 2. 消息验证
     if (validateMessage(message)) {
-      // 3. 发送到消息队列
+      // 3. 分配房间内序号，下游推送服务据此支持断线续传
+      message.setSeq(nextSeq(message.getRoomId()));
+
+      // 4. 发送到消息队列
       boolean sent = danmakuProducer.sendDanmaku(message);
       if (sent) {
-        // 4. 更新本地缓存
+        // 5. 更新本地缓存
         messageCache.get(message.getRoomId()).put(message.getId(), message);
+        // 6. 记录弹幕速率，定期批量上报
+        danmakuRateMeter.record(message.getRoomId());
         log.info("弹幕处理成功: roomId={}, messageId={}", message.getRoomId(), message.getId());
         return message;
       }
@@ -84,6 +94,18 @@ public class DanmakuServiceImpl implements DanmakuService {
     return null;
   }
 
+  /**
+   * 分配房间内单调递增的序号，Redis不可用时不分配，客户端只能整体重新加载历史
+   */
+  private Long nextSeq(Long roomId) {
+    try {
+      return redisTemplate.opsForValue().increment(String.format(RedisKey.ROOM_SEQ, roomId));
+    } catch (Exception e) {
+      log.warn("分配弹幕序号失败: roomId={}, error={}", roomId, e.getMessage());
+      return null;
+    }
+  }
+
   /**
    * 从认证上下文中获取用户ID
    */
@@ -6,7 +6,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 /**
- * WebSocket连接信息，包含三个连接的URL
+ * WebSocket连接信息，包含三个单通道连接的URL和承载全部通道的多路复用URL
  *
  * @author Spud
  * @date 2025/3/30
@@ -67,5 +67,10 @@ public class ConnectionInfo {
      * CDN信息WebSocket URL
      */
     private String cdnUrl;
+
+    /**
+     * 多路复用WebSocket URL，一条连接承载心跳、弹幕和CDN三个通道
+     */
+    private String muxUrl;
   }
 }
\ No newline at end of file
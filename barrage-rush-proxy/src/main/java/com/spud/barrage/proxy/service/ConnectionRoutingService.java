@@ -36,6 +36,9 @@ public class ConnectionRoutingService {
   @Value("${push-server.cdn-url-pattern:ws://{host}:{port}/ws/cdn/{roomId}?token={token}}")
   private String cdnUrlPattern;
 
+  @Value("${push-server.mux-url-pattern:ws://{host}:{port}/ws/mux/{roomId}?token={token}}")
+  private String muxUrlPattern;
+
   /**
    * 创建连接信息
    *
@@ -57,9 +60,10 @@ public class ConnectionRoutingService {
       throw new RuntimeException("无法找到可用的WebSocket服务器");
     }
 
-    // 3. 生成令牌
-    String token = tokenService.generateToken(roomId, userId);
+    // 3. 签发连接票据，推送服务离线校验
     long expireAt = System.currentTimeMillis() + tokenService.getTokenTtl() * 1000;
+    String token = tokenService.generateTicket(roomId, userId, expireAt, region,
+        selectedInstance.getId());
 
     // 4. 构建服务器URL
     String serverHost = selectedInstance.getHost();
@@ -84,11 +88,18 @@ public class ConnectionRoutingService {
         .replace("{roomId}", roomId)
         .replace("{token}", token);
 
+    String muxUrl = muxUrlPattern
+        .replace("{host}", serverHost)
+        .replace("{port}", String.valueOf(serverPort))
+        .replace("{roomId}", roomId)
+        .replace("{token}", token);
+
     // 5. 构建并返回连接信息
     ConnectionInfo.ServerInfo serverInfo = ConnectionInfo.ServerInfo.builder()
         .heartbeatUrl(heartbeatUrl)
         .danmakuUrl(danmakuUrl)
         .cdnUrl(cdnUrl)
+        .muxUrl(muxUrl)
         .build();
 
     return ConnectionInfo.builder()
@@ -1,5 +1,6 @@
 package com.spud.barrage.proxy.service;
 
+import com.spud.barrage.common.core.util.ConnectionTicket;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
@@ -69,6 +70,23 @@ public class TokenService {
         .compact();
   }
 
+  /**
+   * 签发连接票据
+   * 推送服务使用相同密钥离线校验，握手时不需要访问Redis
+   *
+   * @param roomId     房间ID
+   * @param userId     用户ID
+   * @param expireAt   过期时间戳(毫秒)
+   * @param region     区域代码
+   * @param instanceId 选定的推送服务实例ID
+   * @return 票据
+   */
+  public String generateTicket(String roomId, String userId, long expireAt, String region,
+      String instanceId) {
+    return ConnectionTicket.issue(roomId, userId, expireAt, region, instanceId)
+        .sign(ConnectionTicket.secretBytes(secret));
+  }
+
   /**
    * 验证令牌
    *
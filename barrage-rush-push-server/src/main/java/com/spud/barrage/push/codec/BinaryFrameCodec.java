@@ -0,0 +1,341 @@
+package com.spud.barrage.push.codec;
+
+import com.spud.barrage.common.data.dto.DanmakuMessage;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 二进制帧编解码（barrage.bin.v1）
+ * <pre>
+ * 帧格式: [操作码 1字节][帧体]
+ * 整数字段使用无符号varint，null按0编码；
+ * 颜色使用调色板下标，不在调色板中的颜色以0xFF开头后跟3字节RGB，null为0xFE；
+ * 字符串为varint长度前缀的UTF-8字节。
+ *
+ * DANMAKU        id, seq, roomId, userId, timestamp, position(1字节), size, color, content
+ * BATCH/HISTORY  count, count个DANMAKU帧体
+ * COALESCED      DANMAKU帧体, 合并条数, 用户数n, n个用户ID
+ * PONG           timestamp
+ * ACK            messageId, timestamp
+ * 客户端DANMAKU   position(1字节), size, color, content
+ * 客户端ACK       messageId
+ * </pre>
+ *
+ * @author Spud
+ * @date 2026/10/16
+ */
+public final class BinaryFrameCodec {
+
+  public static final byte OP_DANMAKU = 0x01;
+  public static final byte OP_BATCH = 0x02;
+  public static final byte OP_HISTORY = 0x03;
+  public static final byte OP_COALESCED = 0x04;
+  public static final byte OP_PING = 0x10;
+  public static final byte OP_PONG = 0x11;
+  public static final byte OP_ACK = 0x12;
+  public static final byte OP_CLIENT_DANMAKU = 0x20;
+  public static final byte OP_CLIENT_ACK = 0x21;
+
+  private static final int COLOR_NULL = 0xFE;
+  private static final int COLOR_RGB = 0xFF;
+
+  /**
+   * 常用弹幕颜色调色板，客户端需使用相同顺序
+   */
+  private static final String[] PALETTE = {
+      "#FFFFFF", "#FE0302", "#FF7204", "#FFAA02", "#FFD302", "#FFFF00", "#A0EE00", "#00CD00",
+      "#019899", "#4266BE", "#89D5FF", "#CC0273", "#222222", "#9B9B9B", "#000000"
+  };
+
+  private BinaryFrameCodec() {
+  }
+
+  public static byte[] encodeDanmaku(DanmakuMessage message) {
+    FrameWriter writer = new FrameWriter(32 + lengthHint(message));
+    writer.writeByte(OP_DANMAKU);
+    writeDanmakuBody(writer, message);
+    return writer.toByteArray();
+  }
+
+  /**
+   * 编码合并的重复弹幕
+   */
+  public static byte[] encodeCoalesced(DanmakuMessage message, int count,
+      long[] sampleUserIds) {
+    FrameWriter writer = new FrameWriter(40 + lengthHint(message) + sampleUserIds.length * 10);
+    writer.writeByte(OP_COALESCED);
+    writeDanmakuBody(writer, message);
+    writer.writeVarLong(count);
+    writer.writeVarLong(sampleUserIds.length);
+    for (long userId : sampleUserIds) {
+      writer.writeVarLong(userId);
+    }
+    return writer.toByteArray();
+  }
+
+  public static byte[] encodeBatch(List<DanmakuMessage> messages) {
+    return encodeList(OP_BATCH, messages);
+  }
+
+  public static byte[] encodeHistory(List<DanmakuMessage> messages) {
+    return encodeList(OP_HISTORY, messages);
+  }
+
+  public static byte[] encodePong(long timestamp) {
+    FrameWriter writer = new FrameWriter(11);
+    writer.writeByte(OP_PONG);
+    writer.writeVarLong(timestamp);
+    return writer.toByteArray();
+  }
+
+  public static byte[] encodeAck(Long messageId, long timestamp) {
+    FrameWriter writer = new FrameWriter(21);
+    writer.writeByte(OP_ACK);
+    writer.writeVarLong(messageId != null ? messageId : 0L);
+    writer.writeVarLong(timestamp);
+    return writer.toByteArray();
+  }
+
+  /**
+   * 读取帧操作码
+   */
+  public static byte opcode(ByteBuffer frame) {
+    return frame.get(frame.position());
+  }
+
+  /**
+   * 解码客户端发送的弹幕帧，只包含样式和内容，ID和时间戳由服务端生成
+   */
+  public static DanmakuMessage decodeClientDanmaku(ByteBuffer frame) {
+    FrameReader reader = new FrameReader(frame.duplicate());
+    if (reader.readByte() != OP_CLIENT_DANMAKU) {
+      throw new IllegalArgumentException("not a client danmaku frame");
+    }
+    DanmakuMessage message = new DanmakuMessage();
+    message.setPosition(reader.readByte() & 0xFF);
+    message.setSize((int) reader.readVarLong());
+    message.setColor(reader.readColor());
+    message.setContent(reader.readString());
+    return message;
+  }
+
+  /**
+   * 解码客户端发送的确认帧
+   *
+   * @return 确认的消息ID
+   */
+  public static long decodeClientAck(ByteBuffer frame) {
+    FrameReader reader = new FrameReader(frame.duplicate());
+    if (reader.readByte() != OP_CLIENT_ACK) {
+      throw new IllegalArgumentException("not a client ack frame");
+    }
+    return reader.readVarLong();
+  }
+
+  /**
+   * 解码服务端弹幕帧，供测试和Java客户端使用
+   */
+  public static DanmakuMessage decodeDanmaku(ByteBuffer frame) {
+    FrameReader reader = new FrameReader(frame.duplicate());
+    if (reader.readByte() != OP_DANMAKU) {
+      throw new IllegalArgumentException("not a danmaku frame");
+    }
+    return reader.readDanmakuBody();
+  }
+
+  private static byte[] encodeList(byte opcode, List<DanmakuMessage> messages) {
+    int hint = 8;
+    for (DanmakuMessage message : messages) {
+      hint += 32 + lengthHint(message);
+    }
+    FrameWriter writer = new FrameWriter(hint);
+    writer.writeByte(opcode);
+    writer.writeVarLong(messages.size());
+    for (DanmakuMessage message : messages) {
+      writeDanmakuBody(writer, message);
+    }
+    return writer.toByteArray();
+  }
+
+  private static void writeDanmakuBody(FrameWriter writer, DanmakuMessage message) {
+    writer.writeVarLong(orZero(message.getId()));
+    writer.writeVarLong(orZero(message.getSeq()));
+    writer.writeVarLong(orZero(message.getRoomId()));
+    writer.writeVarLong(orZero(message.getUserId()));
+    writer.writeVarLong(orZero(message.getTimestamp()));
+    writer.writeByte(message.getPosition() != null ? message.getPosition() : 0);
+    writer.writeVarLong(message.getSize() != null ? message.getSize() : 0);
+    writer.writeColor(message.getColor());
+    writer.writeString(message.getContent());
+  }
+
+  private static int lengthHint(DanmakuMessage message) {
+    return message.getContent() != null ? message.getContent().length() * 3 : 0;
+  }
+
+  private static long orZero(Long value) {
+    return value != null ? value : 0L;
+  }
+
+  /**
+   * 帧写入器
+   */
+  private static final class FrameWriter {
+
+    private byte[] buffer;
+
+    private int position;
+
+    FrameWriter(int initialCapacity) {
+      this.buffer = new byte[Math.max(16, initialCapacity)];
+    }
+
+    void writeByte(int value) {
+      ensure(1);
+      buffer[position++] = (byte) value;
+    }
+
+    void writeVarLong(long value) {
+      ensure(10);
+      while ((value & ~0x7FL) != 0) {
+        buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+        value >>>= 7;
+      }
+      buffer[position++] = (byte) value;
+    }
+
+    void writeString(String value) {
+      if (value == null || value.isEmpty()) {
+        writeVarLong(0);
+        return;
+      }
+      byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+      writeVarLong(bytes.length);
+      ensure(bytes.length);
+      System.arraycopy(bytes, 0, buffer, position, bytes.length);
+      position += bytes.length;
+    }
+
+    void writeColor(String color) {
+      if (color == null) {
+        writeByte(COLOR_NULL);
+        return;
+      }
+      int index = paletteIndex(color);
+      if (index >= 0) {
+        writeByte(index);
+        return;
+      }
+      int rgb = parseRgb(color);
+      if (rgb < 0) {
+        writeByte(COLOR_NULL);
+        return;
+      }
+      writeByte(COLOR_RGB);
+      writeByte(rgb >>> 16);
+      writeByte(rgb >>> 8);
+      writeByte(rgb);
+    }
+
+    byte[] toByteArray() {
+      return Arrays.copyOf(buffer, position);
+    }
+
+    private void ensure(int length) {
+      if (position + length > buffer.length) {
+        buffer = Arrays.copyOf(buffer, Math.max(buffer.length << 1, position + length));
+      }
+    }
+  }
+
+  /**
+   * 帧读取器
+   */
+  private static final class FrameReader {
+
+    private final ByteBuffer buffer;
+
+    FrameReader(ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    byte readByte() {
+      return buffer.get();
+    }
+
+    long readVarLong() {
+      long value = 0;
+      for (int shift = 0; shift < 64; shift += 7) {
+        byte b = buffer.get();
+        value |= (long) (b & 0x7F) << shift;
+        if ((b & 0x80) == 0) {
+          return value;
+        }
+      }
+      throw new IllegalArgumentException("malformed varint");
+    }
+
+    String readString() {
+      int length = (int) readVarLong();
+      if (length < 0 || length > buffer.remaining()) {
+        throw new IllegalArgumentException("invalid string length: " + length);
+      }
+      byte[] bytes = new byte[length];
+      buffer.get(bytes);
+      return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    String readColor() {
+      int index = buffer.get() & 0xFF;
+      if (index == COLOR_NULL) {
+        return null;
+      }
+      if (index == COLOR_RGB) {
+        int rgb = (buffer.get() & 0xFF) << 16 | (buffer.get() & 0xFF) << 8 | buffer.get() & 0xFF;
+        return String.format("#%06X", rgb);
+      }
+      if (index >= PALETTE.length) {
+        throw new IllegalArgumentException("invalid palette index: " + index);
+      }
+      return PALETTE[index];
+    }
+
+    DanmakuMessage readDanmakuBody() {
+      DanmakuMessage message = new DanmakuMessage();
+      message.setId(readVarLong());
+      message.setSeq(readVarLong());
+      message.setRoomId(readVarLong());
+      message.setUserId(readVarLong());
+      message.setTimestamp(readVarLong());
+      message.setPosition(readByte() & 0xFF);
+      message.setSize((int) readVarLong());
+      message.setColor(readColor());
+      message.setContent(readString());
+      return message;
+    }
+  }
+
+  private static int paletteIndex(String color) {
+    for (int i = 0; i < PALETTE.length; i++) {
+      if (PALETTE[i].equalsIgnoreCase(color)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static int parseRgb(String color) {
+    String hex = color.startsWith("#") ? color.substring(1) : color;
+    if (hex.length() != 6) {
+      return -1;
+    }
+    try {
+      return Integer.parseInt(hex.toUpperCase(Locale.ROOT), 16);
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+}
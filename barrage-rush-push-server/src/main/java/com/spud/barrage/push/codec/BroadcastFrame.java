@@ -0,0 +1,249 @@
+package com.spud.barrage.push.codec;
+
+import com.spud.barrage.push.constant.WireProtocol;
+import com.spud.barrage.push.util.DirectBufferPool;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.zip.Deflater;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+
+/**
+ * 广播帧
+ * 每种协议最多序列化一次、压缩一次，结果保存在池化的直接缓冲区中，所有接收会话通过duplicate共享同一块内存。
+ * 帧使用引用计数管理缓冲区：创建者持有一个引用，每个入队的会话各持有一个引用，全部释放后缓冲区归还缓冲池。
+ *
+ * @author Spud
+ * @date 2026/10/16
+ */
+@Slf4j
+public final class BroadcastFrame {
+
+  /**
+   * 压缩器池，容量有界：虚拟线程模式下每个编码线程都是新线程，按线程缓存会不断创建本地内存压缩器
+   */
+  private static final BlockingQueue<Deflater> DEFLATERS =
+      new ArrayBlockingQueue<>(Runtime.getRuntime().availableProcessors() * 2);
+
+  /**
+   * 帧载荷来源，只在对应协议首次需要时调用
+   */
+  public interface Payload {
+
+    /**
+     * JSON文本
+     */
+    String json() throws Exception;
+
+    /**
+     * 二进制编码，没有二进制形式时返回null，二进制协议会回退为JSON
+     */
+    byte[] binary() throws Exception;
+  }
+
+  private final Payload payload;
+
+  private final WebSocketMessage<?> prebuilt;
+
+  private final DirectBufferPool bufferPool;
+
+  private final int deflateLevel;
+
+  /**
+   * 按协议缓存的编码结果：TextMessage或ByteBuffer
+   */
+  private final AtomicReferenceArray<Object> encoded =
+      new AtomicReferenceArray<>(WireProtocol.values().length);
+
+  private final AtomicInteger refCount = new AtomicInteger(1);
+
+  private volatile byte[] jsonBytes;
+
+  private BroadcastFrame(Payload payload, WebSocketMessage<?> prebuilt,
+      DirectBufferPool bufferPool, int deflateLevel) {
+    this.payload = payload;
+    this.prebuilt = prebuilt;
+    this.bufferPool = bufferPool;
+    this.deflateLevel = deflateLevel;
+  }
+
+  /**
+   * 创建按协议延迟编码的帧
+   *
+   * @param bufferPool 缓冲池，为null时使用堆内存
+   */
+  public static BroadcastFrame of(Payload payload, DirectBufferPool bufferPool,
+      int deflateLevel) {
+    return new BroadcastFrame(payload, null, bufferPool, deflateLevel);
+  }
+
+  /**
+   * 包装已编码好的消息，所有协议都原样发送
+   */
+  public static BroadcastFrame of(WebSocketMessage<?> message) {
+    return new BroadcastFrame(null, message, null, Deflater.DEFAULT_COMPRESSION);
+  }
+
+  /**
+   * 获取指定协议的消息，编码失败时返回null
+   */
+  public WebSocketMessage<?> messageFor(WireProtocol protocol) {
+    if (prebuilt != null) {
+      return prebuilt;
+    }
+    if (refCount.get() <= 0) {
+      log.warn("[广播] 帧已释放，无法再发送: protocol={}", protocol);
+      return null;
+    }
+
+    Object value = encoded.get(protocol.ordinal());
+    if (value == null) {
+      synchronized (this) {
+        value = encoded.get(protocol.ordinal());
+        if (value == null) {
+          try {
+            value = encode(protocol);
+          } catch (Exception e) {
+            log.error("[广播] 编码广播帧失败: protocol={}", protocol, e);
+            return null;
+          }
+          encoded.set(protocol.ordinal(), value);
+        }
+      }
+    }
+
+    if (value instanceof ByteBuffer buffer) {
+      return new BinaryMessage(buffer.duplicate());
+    }
+    return (WebSocketMessage<?>) value;
+  }
+
+  public BroadcastFrame retain() {
+    refCount.incrementAndGet();
+    return this;
+  }
+
+  /**
+   * 释放一个引用，引用全部释放后缓冲区归还缓冲池
+   * 回退协议与其他协议共享同一缓冲区，按对象身份去重后每块缓冲区只归还一次
+   */
+  public void release() {
+    if (refCount.decrementAndGet() != 0 || bufferPool == null) {
+      return;
+    }
+    synchronized (this) {
+      Set<ByteBuffer> buffers = Collections.newSetFromMap(new IdentityHashMap<>());
+      for (int i = 0; i < encoded.length(); i++) {
+        if (encoded.getAndSet(i, null) instanceof ByteBuffer buffer) {
+          buffers.add(buffer);
+        }
+      }
+      buffers.forEach(bufferPool::release);
+    }
+  }
+
+  /**
+   * 调用方需持有锁
+   */
+  private Object encode(WireProtocol protocol) throws Exception {
+    switch (protocol) {
+      case JSON:
+        return new TextMessage(payload.json());
+      case BINARY: {
+        byte[] binary = payload.binary();
+        return binary != null ? copyToBuffer(binary) : encodedFor(WireProtocol.JSON);
+      }
+      case JSON_DEFLATE:
+        return deflate(jsonBytes());
+      case BINARY_DEFLATE: {
+        byte[] binary = payload.binary();
+        return binary != null ? deflate(binary) : encodedFor(WireProtocol.JSON_DEFLATE);
+      }
+      default:
+        throw new IllegalArgumentException("unsupported protocol: " + protocol);
+    }
+  }
+
+  private Object encodedFor(WireProtocol protocol) throws Exception {
+    Object value = encoded.get(protocol.ordinal());
+    if (value == null) {
+      value = encode(protocol);
+      encoded.set(protocol.ordinal(), value);
+    }
+    return value;
+  }
+
+  private byte[] jsonBytes() throws Exception {
+    byte[] bytes = jsonBytes;
+    if (bytes == null) {
+      Object text = encodedFor(WireProtocol.JSON);
+      bytes = ((TextMessage) text).asBytes();
+      jsonBytes = bytes;
+    }
+    return bytes;
+  }
+
+  private ByteBuffer copyToBuffer(byte[] bytes) {
+    ByteBuffer buffer = allocate(bytes.length);
+    buffer.put(bytes).flip();
+    return buffer;
+  }
+
+  private ByteBuffer deflate(byte[] bytes) {
+    Deflater deflater = DEFLATERS.poll();
+    if (deflater == null) {
+      deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    }
+    try {
+      deflater.setLevel(deflateLevel);
+      deflater.setInput(bytes);
+      deflater.finish();
+
+      // raw deflate的最坏膨胀很小，按输入长度加少量余量分配，一般一次即可完成
+      ByteBuffer buffer = allocate(bytes.length + (bytes.length >> 10) + 64);
+      while (true) {
+        deflater.deflate(buffer);
+        if (deflater.finished()) {
+          break;
+        }
+        ByteBuffer larger = allocate(buffer.capacity() << 1);
+        buffer.flip();
+        larger.put(buffer);
+        releaseBuffer(buffer);
+        buffer = larger;
+      }
+      buffer.flip();
+      return buffer;
+    } finally {
+      recycle(deflater);
+    }
+  }
+
+  /**
+   * 归还压缩器，池已满时立即释放本地内存
+   */
+  private static void recycle(Deflater deflater) {
+    deflater.reset();
+    if (!DEFLATERS.offer(deflater)) {
+      deflater.end();
+    }
+  }
+
+  private ByteBuffer allocate(int size) {
+    return bufferPool != null ? bufferPool.acquire(size) : ByteBuffer.allocate(size);
+  }
+
+  private void releaseBuffer(ByteBuffer buffer) {
+    if (bufferPool != null) {
+      bufferPool.release(buffer);
+    }
+  }
+}
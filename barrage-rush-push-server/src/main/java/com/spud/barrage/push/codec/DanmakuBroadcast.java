@@ -0,0 +1,203 @@
+package com.spud.barrage.push.codec;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.spud.barrage.common.data.dto.DanmakuMessage;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import lombok.Getter;
+
+/**
+ * 待广播的弹幕
+ * 可以由消息队列中已序列化的JSON或弹幕对象构建，另一种形式在首次需要时才生成，
+ * 没有二进制协议客户端时不会解析JSON，没有JSON客户端时也不会序列化对象。
+ * 合并、抽样只需要少数字段，由{@link #routing(ObjectMapper)}流式读取，不构建完整的弹幕对象。
+ * 合并后的重复弹幕以首条弹幕为代表，附带合并条数和部分发送用户ID。
+ *
+ * @author Spud
+ * @date 2026/10/16
+ */
+public class DanmakuBroadcast {
+
+  @Getter
+  private final Long roomId;
+
+  private volatile String json;
+
+  private volatile DanmakuMessage message;
+
+  private volatile Routing routing;
+
+  /**
+   * 代表的弹幕条数，未合并时为1
+   */
+  @Getter
+  private final int count;
+
+  /**
+   * 合并弹幕的部分发送用户ID，未合并时为null
+   */
+  @Getter
+  private final long[] sampleUserIds;
+
+  private DanmakuBroadcast(Long roomId, String json, DanmakuMessage message, int count,
+      long[] sampleUserIds) {
+    this.roomId = roomId;
+    this.json = json;
+    this.message = message;
+    this.count = count;
+    this.sampleUserIds = sampleUserIds;
+  }
+
+  /**
+   * 由已序列化的JSON帧构建
+   */
+  public static DanmakuBroadcast ofJson(Long roomId, String json) {
+    return new DanmakuBroadcast(roomId, json, null, 1, null);
+  }
+
+  /**
+   * 由弹幕对象构建
+   */
+  public static DanmakuBroadcast of(DanmakuMessage message) {
+    return new DanmakuBroadcast(message.getRoomId(), null, message, 1, null);
+  }
+
+  /**
+   * 由合并的重复弹幕构建
+   *
+   * @param message       代表弹幕
+   * @param count         合并的弹幕条数
+   * @param sampleUserIds 部分发送用户ID
+   */
+  public static DanmakuBroadcast coalesced(DanmakuMessage message, int count,
+      long[] sampleUserIds) {
+    return new DanmakuBroadcast(message.getRoomId(), null, message, count, sampleUserIds);
+  }
+
+  /**
+   * 合并、抽样判断需要的弹幕字段
+   */
+  public record Routing(Long seq, Long userId, Integer position, String content) {
+
+  }
+
+  /**
+   * 是否为合并的重复弹幕
+   */
+  public boolean isCoalesced() {
+    return sampleUserIds != null;
+  }
+
+  /**
+   * 获取JSON帧
+   */
+  public String toJson(ObjectMapper objectMapper) throws JsonProcessingException {
+    String value = json;
+    if (value == null) {
+      Map<String, Object> frame = new LinkedHashMap<>(6);
+      frame.put("type", "DANMAKU");
+      frame.put("data", message);
+      if (isCoalesced()) {
+        frame.put("count", count);
+        frame.put("sampleUserIds", sampleUserIds);
+      }
+      frame.put("timestamp", System.currentTimeMillis());
+      value = objectMapper.writeValueAsString(frame);
+      json = value;
+    }
+    return value;
+  }
+
+  /**
+   * 获取弹幕对象，JSON帧可能是{type, data}包装或弹幕对象本身
+   */
+  public DanmakuMessage toMessage(ObjectMapper objectMapper) throws JsonProcessingException {
+    DanmakuMessage value = message;
+    if (value == null) {
+      JsonNode root = objectMapper.readTree(json);
+      JsonNode data = root.has("data") ? root.get("data") : root;
+      value = objectMapper.treeToValue(data, DanmakuMessage.class);
+      if (value.getRoomId() == null) {
+        value.setRoomId(roomId);
+      }
+      message = value;
+    }
+    return value;
+  }
+
+  /**
+   * 获取合并、抽样判断需要的字段
+   * 已有弹幕对象时直接读取，否则流式读取JSON中的这几个字段，其余字段和嵌套对象直接跳过
+   */
+  public Routing routing(ObjectMapper objectMapper) throws IOException {
+    Routing value = routing;
+    if (value == null) {
+      DanmakuMessage current = message;
+      if (current != null) {
+        value = new Routing(current.getSeq(), current.getUserId(), current.getPosition(),
+            current.getContent());
+      } else {
+        try (JsonParser parser = objectMapper.getFactory().createParser(json)) {
+          if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IOException("弹幕消息不是JSON对象");
+          }
+          value = readRouting(parser, true);
+        }
+      }
+      routing = value;
+    }
+    return value;
+  }
+
+  /**
+   * 读取当前对象中的字段，顶层遇到data对象时改为读取data中的字段，与{@link #toMessage}一致
+   */
+  private static Routing readRouting(JsonParser parser, boolean topLevel) throws IOException {
+    Long seq = null;
+    Long userId = null;
+    Integer position = null;
+    String content = null;
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String field = parser.currentName();
+      JsonToken token = parser.nextToken();
+      if (topLevel && "data".equals(field) && token == JsonToken.START_OBJECT) {
+        return readRouting(parser, false);
+      }
+      switch (field) {
+        case "seq" -> seq = readLong(parser, token);
+        case "userId" -> userId = readLong(parser, token);
+        case "position" -> {
+          Long value = readLong(parser, token);
+          position = value != null ? value.intValue() : null;
+        }
+        case "content" -> {
+          content = token.isScalarValue() && token != JsonToken.VALUE_NULL
+              ? parser.getText() : null;
+          parser.skipChildren();
+        }
+        default -> parser.skipChildren();
+      }
+    }
+    return new Routing(seq, userId, position, content);
+  }
+
+  private static Long readLong(JsonParser parser, JsonToken token) throws IOException {
+    if (token.isNumeric()) {
+      return parser.getLongValue();
+    }
+    if (token == JsonToken.VALUE_STRING) {
+      try {
+        return Long.parseLong(parser.getText().trim());
+      } catch (NumberFormatException e) {
+        return null;
+      }
+    }
+    parser.skipChildren();
+    return null;
+  }
+}
@@ -0,0 +1,157 @@
+package com.spud.barrage.push.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.spud.barrage.common.data.dto.DanmakuMessage;
+import com.spud.barrage.push.properties.PushProperties;
+import com.spud.barrage.push.util.DirectBufferPool;
+import jakarta.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.TextMessage;
+
+/**
+ * 推送帧编码
+ * 构建按会话协商协议延迟编码的广播帧，JSON为默认协议。
+ * 房间广播帧使用直接缓冲池，单会话的控制帧使用堆内存。
+ *
+ * @author Spud
+ * @date 2026/10/16
+ */
+@Component
+public class FrameEncoder {
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Autowired
+  private PushProperties pushProperties;
+
+  private DirectBufferPool bufferPool;
+
+  @PostConstruct
+  public void init() {
+    PushProperties.Broadcast broadcast = pushProperties.getBroadcast();
+    bufferPool = new DirectBufferPool(broadcast.getPoolMaxBufferSize(),
+        broadcast.getPoolMaxPerClass());
+  }
+
+  /**
+   * 编码一条或一批弹幕，合并的重复弹幕需单独成帧
+   */
+  public BroadcastFrame danmaku(List<DanmakuBroadcast> broadcasts) {
+    return BroadcastFrame.of(new BroadcastFrame.Payload() {
+      @Override
+      public String json() throws Exception {
+        if (broadcasts.size() == 1) {
+          return broadcasts.get(0).toJson(objectMapper);
+        }
+        // 多条弹幕拼接为JSON数组，复用各自已序列化的JSON
+        StringBuilder builder = new StringBuilder(broadcasts.size() * 128);
+        builder.append('[');
+        for (int i = 0; i < broadcasts.size(); i++) {
+          if (i > 0) {
+            builder.append(',');
+          }
+          builder.append(broadcasts.get(i).toJson(objectMapper));
+        }
+        return builder.append(']').toString();
+      }
+
+      @Override
+      public byte[] binary() throws Exception {
+        if (broadcasts.size() == 1) {
+          DanmakuBroadcast broadcast = broadcasts.get(0);
+          if (broadcast.isCoalesced()) {
+            return BinaryFrameCodec.encodeCoalesced(broadcast.toMessage(objectMapper),
+                broadcast.getCount(), broadcast.getSampleUserIds());
+          }
+          return BinaryFrameCodec.encodeDanmaku(broadcast.toMessage(objectMapper));
+        }
+        List<DanmakuMessage> messages = new ArrayList<>(broadcasts.size());
+        for (DanmakuBroadcast broadcast : broadcasts) {
+          messages.add(broadcast.toMessage(objectMapper));
+        }
+        return BinaryFrameCodec.encodeBatch(messages);
+      }
+    }, bufferPool, deflateLevel());
+  }
+
+  /**
+   * 编码历史弹幕
+   */
+  public BroadcastFrame history(List<DanmakuMessage> messages) {
+    return BroadcastFrame.of(new BroadcastFrame.Payload() {
+      @Override
+      public String json() throws Exception {
+        Map<String, Object> history = new LinkedHashMap<>(4);
+        history.put("type", "HISTORY");
+        history.put("messages", messages);
+        history.put("timestamp", System.currentTimeMillis());
+        return objectMapper.writeValueAsString(history);
+      }
+
+      @Override
+      public byte[] binary() {
+        return BinaryFrameCodec.encodeHistory(messages);
+      }
+    }, null, deflateLevel());
+  }
+
+  /**
+   * 编码PONG响应
+   */
+  public BroadcastFrame pong() {
+    long now = System.currentTimeMillis();
+    return BroadcastFrame.of(new BroadcastFrame.Payload() {
+      @Override
+      public String json() throws Exception {
+        Map<String, Object> pong = new LinkedHashMap<>(2);
+        pong.put("type", "PONG");
+        pong.put("timestamp", now);
+        return objectMapper.writeValueAsString(pong);
+      }
+
+      @Override
+      public byte[] binary() {
+        return BinaryFrameCodec.encodePong(now);
+      }
+    }, null, deflateLevel());
+  }
+
+  /**
+   * 编码确认消息
+   */
+  public BroadcastFrame ack(Long messageId) {
+    long now = System.currentTimeMillis();
+    return BroadcastFrame.of(new BroadcastFrame.Payload() {
+      @Override
+      public String json() throws Exception {
+        Map<String, Object> ack = new LinkedHashMap<>(3);
+        ack.put("type", "ACK");
+        ack.put("messageId", messageId);
+        ack.put("timestamp", now);
+        return objectMapper.writeValueAsString(ack);
+      }
+
+      @Override
+      public byte[] binary() {
+        return BinaryFrameCodec.encodeAck(messageId, now);
+      }
+    }, null, deflateLevel());
+  }
+
+  /**
+   * 编码纯文本帧，所有协议都以未压缩的文本帧发送
+   */
+  public BroadcastFrame text(String payload) {
+    return BroadcastFrame.of(new TextMessage(payload));
+  }
+
+  private int deflateLevel() {
+    return pushProperties.getBroadcast().getDeflateLevel();
+  }
+}
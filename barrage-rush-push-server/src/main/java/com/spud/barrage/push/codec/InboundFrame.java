@@ -0,0 +1,56 @@
+package com.spud.barrage.push.codec;
+
+import com.fasterxml.jackson.annotation.JsonSubTypes;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+
+/**
+ * 客户端上行帧
+ * 按type字段多态解码为具体的帧类型，未知或缺失的type解码为{@link UnknownFrame}。
+ *
+ * @author Spud
+ * @date 2026/10/16
+ */
+@JsonTypeInfo(use = JsonTypeInfo.Id.NAME, include = JsonTypeInfo.As.PROPERTY,
+    property = "type", visible = true, defaultImpl = InboundFrame.UnknownFrame.class)
+@JsonSubTypes({
+    @JsonSubTypes.Type(value = InboundFrame.PingFrame.class, name = "PING"),
+    @JsonSubTypes.Type(value = InboundFrame.DanmakuFrame.class, name = "DANMAKU"),
+    @JsonSubTypes.Type(value = InboundFrame.AckFrame.class, name = "ACK")
+})
+public sealed interface InboundFrame {
+
+  /**
+   * 心跳帧
+   */
+  record PingFrame() implements InboundFrame {
+
+    public static final PingFrame INSTANCE = new PingFrame();
+  }
+
+  /**
+   * 弹幕帧，客户端紧急情况下通过WebSocket发送弹幕
+   */
+  record DanmakuFrame(Payload data) implements InboundFrame {
+
+    /**
+     * 弹幕内容，未填写的样式字段由服务端补默认值
+     */
+    public record Payload(String content, String color, Integer size, Integer position) {
+
+    }
+  }
+
+  /**
+   * 确认帧，客户端确认已收到某条弹幕
+   */
+  record AckFrame(Long messageId) implements InboundFrame {
+
+  }
+
+  /**
+   * 未知类型的帧
+   */
+  record UnknownFrame(String type) implements InboundFrame {
+
+  }
+}
@@ -0,0 +1,77 @@
+package com.spud.barrage.push.codec;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.spud.barrage.common.data.dto.DanmakuMessage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * 客户端上行帧解码
+ * 文本帧使用预构建的ObjectReader直接绑定到帧类型，不经过Map；
+ * 上行流量以心跳为主，PING帧按前缀识别，不做JSON解析。
+ *
+ * @author Spud
+ * @date 2026/10/16
+ */
+public final class InboundFrameCodec {
+
+  private static final String PING = "PING";
+
+  private static final String PING_PREFIX = "{\"type\":\"PING\"";
+
+  private static final ObjectReader READER = new ObjectMapper()
+      .readerFor(InboundFrame.class)
+      .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+  private InboundFrameCodec() {
+  }
+
+  /**
+   * 解码文本帧
+   */
+  public static InboundFrame decode(String payload) throws IOException {
+    if (isPing(payload)) {
+      return InboundFrame.PingFrame.INSTANCE;
+    }
+    return READER.readValue(payload);
+  }
+
+  /**
+   * 解码二进制帧，未知操作码返回null
+   */
+  public static InboundFrame decode(ByteBuffer payload) {
+    switch (BinaryFrameCodec.opcode(payload)) {
+      case BinaryFrameCodec.OP_PING:
+        return InboundFrame.PingFrame.INSTANCE;
+      case BinaryFrameCodec.OP_CLIENT_DANMAKU: {
+        DanmakuMessage message = BinaryFrameCodec.decodeClientDanmaku(payload);
+        return new InboundFrame.DanmakuFrame(new InboundFrame.DanmakuFrame.Payload(
+            message.getContent(), message.getColor(), message.getSize(),
+            message.getPosition()));
+      }
+      case BinaryFrameCodec.OP_CLIENT_ACK:
+        return new InboundFrame.AckFrame(BinaryFrameCodec.decodeClientAck(payload));
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * 识别纯文本PING和紧凑JSON的PING帧，其余格式交给JSON解码
+   */
+  static boolean isPing(String payload) {
+    if (PING.equals(payload)) {
+      return true;
+    }
+    if (!payload.startsWith(PING_PREFIX)) {
+      return false;
+    }
+    if (payload.length() == PING_PREFIX.length()) {
+      return false;
+    }
+    char next = payload.charAt(PING_PREFIX.length());
+    return next == '}' || next == ',';
+  }
+}
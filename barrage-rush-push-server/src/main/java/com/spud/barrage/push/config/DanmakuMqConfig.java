@@ -0,0 +1,37 @@
+package com.spud.barrage.push.config;
+
+import org.springframework.amqp.core.AnonymousQueue;
+import org.springframework.amqp.core.Base64UrlNamingStrategy;
+import org.springframework.amqp.core.DirectExchange;
+import org.springframework.amqp.core.Queue;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 弹幕消息队列配置
+ * 每个推送节点使用一个独占的临时队列，按本节点正在服务的房间动态绑定房间路由键，
+ * 只接收本节点房间的弹幕；队列随连接断开自动删除，重连后由RabbitAdmin重新声明。
+ *
+ * @author Spud
+ * @date 2026/10/16
+ */
+@Configuration
+public class DanmakuMqConfig {
+
+  @Value("${barrage.mq.danmaku-exchange:danmaku.exchange}")
+  private String danmakuExchange;
+
+  @Bean
+  public DirectExchange danmakuExchange() {
+    return new DirectExchange(danmakuExchange, true, false);
+  }
+
+  /**
+   * 本节点的弹幕订阅队列
+   */
+  @Bean
+  public Queue danmakuSubscriptionQueue() {
+    return new AnonymousQueue(new Base64UrlNamingStrategy("push.danmaku."));
+  }
+}
@@ -0,0 +1,44 @@
+package com.spud.barrage.push.config;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
+
+/**
+ * 推送服务握手处理器
+ * 容器的permessage-deflate会对每个会话单独压缩同一条广播，关闭容器压缩时从协商中移除该扩展，
+ * 需要压缩的客户端改用deflate子协议，由广播帧统一压缩一次。
+ *
+ * @author Spud
+ * @date 2026/10/16
+ */
+public class PushHandshakeHandler extends DefaultHandshakeHandler {
+
+  private static final String PERMESSAGE_DEFLATE = "permessage-deflate";
+
+  private final boolean containerDeflate;
+
+  public PushHandshakeHandler(boolean containerDeflate) {
+    this.containerDeflate = containerDeflate;
+  }
+
+  @Override
+  protected List<WebSocketExtension> filterRequestedExtensions(ServerHttpRequest request,
+      List<WebSocketExtension> requestedExtensions,
+      List<WebSocketExtension> supportedExtensions) {
+    List<WebSocketExtension> extensions = super.filterRequestedExtensions(request,
+        requestedExtensions, supportedExtensions);
+    if (containerDeflate || extensions.isEmpty()) {
+      return extensions;
+    }
+    List<WebSocketExtension> result = new ArrayList<>(extensions.size());
+    for (WebSocketExtension extension : extensions) {
+      if (!PERMESSAGE_DEFLATE.equalsIgnoreCase(extension.getName())) {
+        result.add(extension);
+      }
+    }
+    return result;
+  }
+}
@@ -7,11 +7,17 @@ package com.spud.barrage.push.config;
 
 import com.spud.barrage.push.handler.CdnWebSocketHandler;
 import com.spud.barrage.push.handler.DanmakuWebSocketHandler;
+import com.spud.barrage.push.handler.ExecutorWebSocketHandlerDecorator;
 import com.spud.barrage.push.handler.HeartbeatWebSocketHandler;
+import com.spud.barrage.push.handler.MuxWebSocketHandler;
 import com.spud.barrage.push.interceptor.WebSocketInterceptor;
+import com.spud.barrage.push.manager.PushExecutors;
+import com.spud.barrage.push.properties.PushProperties;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.WebSocketHandler;
 import org.springframework.web.socket.config.annotation.EnableWebSocket;
 import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
 import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
@@ -19,8 +25,11 @@ import org.springframework.web.socket.server.standard.ServletServerContainerFact
 
 /**
  * WebSocket配置类
+ * 使用Servlet容器传输时生效，push.transport.type=netty时由NettyPushServer提供相同端点
  */
 @Configuration
+@ConditionalOnProperty(prefix = "push.transport", name = "type", havingValue = "servlet",
+    matchIfMissing = true)
 @EnableWebSocket
 public class WebSocketConfig implements WebSocketConfigurer {
 
@@ -36,22 +45,49 @@ public class WebSocketConfig implements WebSocketConfigurer {
   @Autowired
   private CdnWebSocketHandler cdnWebSocketHandler;
 
+  @Autowired
+  private MuxWebSocketHandler muxWebSocketHandler;
+
+  @Autowired
+  private PushProperties pushProperties;
+
+  @Autowired
+  private PushExecutors pushExecutors;
+
   @Override
   public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+    PushHandshakeHandler handshakeHandler = new PushHandshakeHandler(
+        pushProperties.getBroadcast().isContainerDeflate());
+
     // 注册弹幕处理器
-    registry.addHandler(danmakuWebSocketHandler, "/ws/danmaku/{roomId}")
+    registry.addHandler(decorate(danmakuWebSocketHandler), "/ws/danmaku/{roomId}")
+        .setHandshakeHandler(handshakeHandler)
         .addInterceptors(webSocketInterceptor)
         .setAllowedOriginPatterns("*");
     // 注册心跳处理器
-    registry.addHandler(heartbeatWebSocketHandler, "/ws/heartbeat")
+    registry.addHandler(decorate(heartbeatWebSocketHandler), "/ws/heartbeat/{roomId}")
+        .setHandshakeHandler(handshakeHandler)
         .addInterceptors(webSocketInterceptor)
         .setAllowedOriginPatterns("*");
 
     // 注册CDN处理器
-    registry.addHandler(cdnWebSocketHandler, "/ws/cdn")
+    registry.addHandler(decorate(cdnWebSocketHandler), "/ws/cdn/{roomId}")
+        .setHandshakeHandler(handshakeHandler)
         .addInterceptors(webSocketInterceptor)
         .setAllowedOriginPatterns("*");
 
+    // 注册多路复用处理器，一条连接承载以上三个通道
+    registry.addHandler(decorate(muxWebSocketHandler), "/ws/mux/{roomId}")
+        .setHandshakeHandler(handshakeHandler)
+        .addInterceptors(webSocketInterceptor)
+        .setAllowedOriginPatterns("*");
+  }
+
+  /**
+   * 虚拟线程模式下处理器回调转交给会话串行执行器
+   */
+  private WebSocketHandler decorate(WebSocketHandler handler) {
+    return ExecutorWebSocketHandlerDecorator.decorate(handler, pushExecutors);
   }
 
   /**
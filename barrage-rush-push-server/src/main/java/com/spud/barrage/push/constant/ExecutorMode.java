@@ -0,0 +1,20 @@
+package com.spud.barrage.push.constant;
+
+/**
+ * 推送服务执行模式
+ *
+ * @author Spud
+ * @date 2026/10/16
+ */
+public enum ExecutorMode {
+
+  /**
+   * 平台线程：处理器回调在容器线程上执行，发送使用固定大小的写线程池（默认）
+   */
+  PLATFORM,
+
+  /**
+   * 虚拟线程：处理器回调、广播扇出和发送都在虚拟线程上执行，按房间限制并发
+   */
+  VIRTUAL
+}
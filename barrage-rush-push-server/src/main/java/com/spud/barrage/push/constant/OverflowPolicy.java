@@ -0,0 +1,25 @@
+package com.spud.barrage.push.constant;
+
+/**
+ * 会话发送队列溢出策略
+ *
+ * @author Spud
+ * @date 2026/10/16
+ */
+public enum OverflowPolicy {
+
+  /**
+   * 丢弃队列中最旧的消息，保留最新消息
+   */
+  DROP_OLDEST,
+
+  /**
+   * 丢弃新到达的消息
+   */
+  DROP_NEWEST,
+
+  /**
+   * 断开慢客户端连接
+   */
+  DISCONNECT
+}
@@ -0,0 +1,20 @@
+package com.spud.barrage.push.constant;
+
+/**
+ * 推送传输层类型
+ *
+ * @author Spud
+ * @date 2026/10/16
+ */
+public enum TransportType {
+
+  /**
+   * Servlet容器的WebSocket实现（默认）
+   */
+  SERVLET,
+
+  /**
+   * 独立端口上的Netty WebSocket服务
+   */
+  NETTY
+}
@@ -0,0 +1,77 @@
+package com.spud.barrage.push.constant;
+
+/**
+ * 推送帧编码协议
+ * 客户端通过Sec-WebSocket-Protocol协商，未协商时使用JSON。
+ * 压缩协议下所有二进制帧都是raw deflate压缩后的载荷，文本帧始终为未压缩的JSON。
+ *
+ * @author Spud
+ * @date 2026/10/16
+ */
+public enum WireProtocol {
+
+  /**
+   * JSON文本帧（默认）
+   */
+  JSON("barrage.json", false),
+
+  /**
+   * 紧凑二进制帧
+   */
+  BINARY("barrage.bin.v1", false),
+
+  /**
+   * deflate压缩的JSON，以二进制帧发送
+   */
+  JSON_DEFLATE("barrage.json.deflate", true),
+
+  /**
+   * deflate压缩的紧凑二进制帧
+   */
+  BINARY_DEFLATE("barrage.bin.v1.deflate", true);
+
+  private final String subprotocol;
+
+  private final boolean compressed;
+
+  WireProtocol(String subprotocol, boolean compressed) {
+    this.subprotocol = subprotocol;
+    this.compressed = compressed;
+  }
+
+  public String getSubprotocol() {
+    return subprotocol;
+  }
+
+  public boolean isCompressed() {
+    return compressed;
+  }
+
+  /**
+   * 压缩前的编码格式
+   */
+  public WireProtocol base() {
+    switch (this) {
+      case JSON_DEFLATE:
+        return JSON;
+      case BINARY_DEFLATE:
+        return BINARY;
+      default:
+        return this;
+    }
+  }
+
+  /**
+   * 根据握手协商出的子协议获取编码协议
+   */
+  public static WireProtocol fromSubprotocol(String subprotocol) {
+    if (subprotocol != null) {
+      for (WireProtocol protocol : values()) {
+        if (protocol.subprotocol.equalsIgnoreCase(subprotocol)) {
+          return protocol;
+        }
+      }
+    }
+    return JSON;
+  }
+}
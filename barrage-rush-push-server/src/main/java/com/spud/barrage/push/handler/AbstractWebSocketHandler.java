@@ -1,11 +1,15 @@
 package com.spud.barrage.push.handler;
 
+import com.spud.barrage.push.codec.BroadcastFrame;
+import com.spud.barrage.push.constant.WireProtocol;
+import com.spud.barrage.push.manager.SessionRecord;
 import com.spud.barrage.push.manager.WebSocketSessionManager;
-import java.io.IOException;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.math.NumberUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
 import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 
@@ -32,7 +36,7 @@ public abstract class AbstractWebSocketHandler extends TextWebSocketHandler {
         getHandlerName(), sessionId, roomId, userId);
 
     // 注册会话
-    sessionManager.registerSession(getHandlerType(), roomId, userId, session);
+    sessionManager.registerSession(getHandlerType(), roomId, userId, session, isMultiplexed());
 
     // 处理连接建立
     handleConnectionEstablished(session);
@@ -54,6 +58,17 @@ public abstract class AbstractWebSocketHandler extends TextWebSocketHandler {
     handleConnectionClosed(session, status);
   }
 
+  @Override
+  public void handleMessage(WebSocketSession session, WebSocketMessage<?> message)
+      throws Exception {
+    // 任何客户端消息都视为活跃，只更新内存中的最后活动时间
+    SessionRecord record = SessionRecord.of(session);
+    if (record != null) {
+      record.touch();
+    }
+    super.handleMessage(session, message);
+  }
+
   @Override
   public void handleTransportError(WebSocketSession session, Throwable exception) throws Exception {
     Long roomId = getRoomId(session);
@@ -69,29 +84,56 @@ public abstract class AbstractWebSocketHandler extends TextWebSocketHandler {
 
   /**
    * 向会话发送消息
+   * 经由会话发送队列异步发送，避免与广播并发写同一连接
    */
   protected void sendMessage(WebSocketSession session, String message) {
-    try {
-      if (session.isOpen()) {
-        session.sendMessage(new TextMessage(message));
-      }
-    } catch (IOException e) {
-      log.error("[{}] 发送消息失败: sessionId={}", getHandlerName(), session.getId(), e);
+    if (!sessionManager.sendToSession(session, new TextMessage(message))) {
+      log.debug("[{}] 消息未入队: sessionId={}", getHandlerName(), session.getId());
+    }
+  }
+
+  /**
+   * 向会话发送帧，按会话协商的协议编码
+   */
+  protected void sendMessage(WebSocketSession session, BroadcastFrame frame) {
+    if (!sessionManager.sendToSession(session, frame)) {
+      log.debug("[{}] 消息未入队: sessionId={}", getHandlerName(), session.getId());
     }
   }
 
+  /**
+   * 获取会话协商的帧编码协议
+   */
+  protected WireProtocol getProtocol(WebSocketSession session) {
+    return sessionManager.getProtocol(session);
+  }
+
   /**
    * 获取房间ID
    */
   protected Long getRoomId(WebSocketSession session) {
-    return (Long) session.getAttributes().get("roomId");
+    return toLong(session.getAttributes().get("roomId"));
   }
 
   /**
    * 获取用户ID
    */
   protected Long getUserId(WebSocketSession session) {
-    return (Long) session.getAttributes().get("userId");
+    return toLong(session.getAttributes().get("userId"));
+  }
+
+  /**
+   * 握手拦截器以字符串形式保存ID，这里统一转换为Long，非数字ID返回null
+   */
+  private Long toLong(Object value) {
+    if (value instanceof Number number) {
+      return number.longValue();
+    }
+    if (value instanceof String text) {
+      long id = NumberUtils.toLong(text, -1L);
+      return id >= 0 ? id : null;
+    }
+    return null;
   }
 
   /**
@@ -104,6 +146,13 @@ public abstract class AbstractWebSocketHandler extends TextWebSocketHandler {
    */
   protected abstract String getHandlerType();
 
+  /**
+   * 是否为多路复用连接
+   */
+  protected boolean isMultiplexed() {
+    return false;
+  }
+
   /**
    * 处理连接建立
    */
@@ -28,7 +28,7 @@ public class CdnWebSocketHandler extends AbstractWebSocketHandler {
   private static final String HANDLER_TYPE = WebSocketType.CDN;
 
   // 消息类型
-  private static final String TYPE_CDN_INFO = "CDN_INFO";
+  static final String TYPE_CDN_INFO = "CDN_INFO";
   private static final String TYPE_ERROR = "ERROR";
   private static final String TYPE_SUCCESS = "SUCCESS";
 
@@ -91,6 +91,7 @@ public class CdnWebSocketHandler extends AbstractWebSocketHandler {
 
     // 广播CDN信息更新给房间内所有用户
     sessionManager.broadcastToRoom(HANDLER_TYPE, roomId, cdnInfo);
+    sessionManager.broadcastToMultiplexed(roomId, cdnInfo);
 
     // 发送成功响应
     sendSuccessResponse(session, "CDN信息已更新");
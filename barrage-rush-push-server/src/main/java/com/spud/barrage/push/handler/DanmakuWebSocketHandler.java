@@ -2,16 +2,27 @@ package com.spud.barrage.push.handler;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.spud.barrage.common.data.dto.DanmakuMessage;
+import com.spud.barrage.push.codec.BinaryFrameCodec;
+import com.spud.barrage.push.codec.BroadcastFrame;
+import com.spud.barrage.push.codec.FrameEncoder;
+import com.spud.barrage.push.codec.InboundFrame;
+import com.spud.barrage.push.codec.InboundFrameCodec;
 import com.spud.barrage.push.constant.WebSocketType;
+import com.spud.barrage.push.constant.WireProtocol;
+import com.spud.barrage.push.manager.RoomHistoryCache;
+import com.spud.barrage.push.properties.PushProperties;
 import com.spud.barrage.push.service.MessageService;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
 import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.SubProtocolCapable;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 
@@ -24,14 +35,31 @@ import org.springframework.web.socket.WebSocketSession;
  */
 @Slf4j
 @Component
-public class DanmakuWebSocketHandler extends AbstractWebSocketHandler {
+public class DanmakuWebSocketHandler extends AbstractWebSocketHandler implements
+    SubProtocolCapable {
+
+  /**
+   * 支持的子协议，客户端按偏好顺序声明，未声明时使用JSON
+   */
+  private static final List<String> SUB_PROTOCOLS = List.of(
+      WireProtocol.BINARY_DEFLATE.getSubprotocol(), WireProtocol.BINARY.getSubprotocol(),
+      WireProtocol.JSON_DEFLATE.getSubprotocol(), WireProtocol.JSON.getSubprotocol());
 
   @Autowired
   private ObjectMapper objectMapper;
 
+  @Autowired
+  private FrameEncoder frameEncoder;
+
   @Autowired
   private MessageService messageService;
 
+  @Autowired
+  private RoomHistoryCache historyCache;
+
+  @Autowired
+  private PushProperties pushProperties;
+
   @Override
   protected String getHandlerName() {
     return "弹幕处理器";
@@ -42,6 +70,34 @@ public class DanmakuWebSocketHandler extends AbstractWebSocketHandler {
     return WebSocketType.DANMAKU;
   }
 
+  @Override
+  public List<String> getSubProtocols() {
+    return SUB_PROTOCOLS;
+  }
+
+  @Override
+  protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) {
+    Long roomId = getRoomId(session);
+    Long userId = getUserId(session);
+    ByteBuffer payload = message.getPayload();
+
+    try {
+      if (!payload.hasRemaining()) {
+        return;
+      }
+      InboundFrame frame = InboundFrameCodec.decode(payload);
+      if (frame == null) {
+        log.warn("[弹幕] 未知二进制帧: opcode={}, roomId={}, userId={}",
+            BinaryFrameCodec.opcode(payload), roomId, userId);
+        return;
+      }
+      handleFrame(session, frame);
+    } catch (Exception e) {
+      log.error("[弹幕] 处理二进制消息异常: roomId={}, userId={}", roomId, userId, e);
+      sendError(session, "消息格式错误: " + e.getMessage());
+    }
+  }
+
   @Override
   public void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
     Long roomId = getRoomId(session);
@@ -51,48 +107,48 @@ public class DanmakuWebSocketHandler extends AbstractWebSocketHandler {
     log.debug("[弹幕] 收到消息: roomId={}, userId={}, payload={}", roomId, userId, payload);
 
     try {
-      // 解析消息
-      Map<String, Object> msgData = objectMapper.readValue(payload, Map.class);
-      String type = (String) msgData.getOrDefault("type", "");
-
-      // 处理消息
-      switch (type) {
-        case "PING":
-          // 响应心跳检测
-          sendPong(session);
-          break;
-        case "DANMAKU":
-          // 处理弹幕消息，这里实际上通常通过HTTP接口发送弹幕
-          // 这里主要用于客户端紧急情况下通过WebSocket发送弹幕
-          handleDanmakuMessage(session, msgData);
-          break;
-        default:
-          log.warn("[弹幕] 未知消息类型: type={}, roomId={}, userId={}", type, roomId, userId);
-          break;
-      }
+      handleFrame(session, InboundFrameCodec.decode(payload));
     } catch (Exception e) {
       log.error("[弹幕] 处理消息异常: roomId={}, userId={}", roomId, userId, e);
       sendError(session, "消息格式错误: " + e.getMessage());
     }
   }
 
+  /**
+   * 按帧类型分发
+   */
+  void handleFrame(WebSocketSession session, InboundFrame frame) {
+    switch (frame) {
+      // 响应心跳检测
+      case InboundFrame.PingFrame ping -> sendPong(session);
+      // 处理弹幕消息，这里实际上通常通过HTTP接口发送弹幕
+      // 这里主要用于客户端紧急情况下通过WebSocket发送弹幕
+      case InboundFrame.DanmakuFrame danmaku -> handleDanmakuMessage(session, danmaku);
+      // 客户端确认已收到弹幕，在本地聚合后定期写入Redis
+      case InboundFrame.AckFrame ack -> messageService.markMessageAcknowledged(
+          getRoomId(session), ack.messageId(), getUserId(session));
+      case InboundFrame.UnknownFrame unknown ->
+          log.warn("[弹幕] 未知消息类型: type={}, roomId={}, userId={}", unknown.type(),
+              getRoomId(session), getUserId(session));
+    }
+  }
+
   /**
    * 处理弹幕消息
    */
-  private void handleDanmakuMessage(WebSocketSession session, Map<String, Object> msgData) {
+  private void handleDanmakuMessage(WebSocketSession session, InboundFrame.DanmakuFrame frame) {
     Long roomId = getRoomId(session);
     Long userId = getUserId(session);
 
     try {
-      // 提取弹幕数据
-      Map<String, Object> data = (Map<String, Object>) msgData.get("data");
-      if (data == null) {
+      if (frame.data() == null) {
         sendError(session, "消息缺少data字段");
         return;
       }
 
       // 构建弹幕消息
-      DanmakuMessage danmakuMessage = messageService.createDanmakuMessage(roomId, userId, data);
+      DanmakuMessage danmakuMessage = messageService.createDanmakuMessage(roomId, userId,
+          frame.data());
 
       // 发布消息
       messageService.publishDanmakuMessage(danmakuMessage);
@@ -108,32 +164,21 @@ public class DanmakuWebSocketHandler extends AbstractWebSocketHandler {
   /**
    * 发送PONG响应
    */
-  private void sendPong(WebSocketSession session) throws IOException {
-    Map<String, Object> pong = new HashMap<>();
-    pong.put("type", "PONG");
-    pong.put("timestamp", System.currentTimeMillis());
-
-    String pongMessage = objectMapper.writeValueAsString(pong);
-    sendMessage(session, pongMessage);
+  private void sendPong(WebSocketSession session) {
+    sendMessage(session, frameEncoder.pong());
   }
 
   /**
    * 发送确认消息
    */
-  private void sendAck(WebSocketSession session, Long messageId) throws IOException {
-    Map<String, Object> ack = new HashMap<>();
-    ack.put("type", "ACK");
-    ack.put("messageId", messageId);
-    ack.put("timestamp", System.currentTimeMillis());
-
-    String ackMessage = objectMapper.writeValueAsString(ack);
-    sendMessage(session, ackMessage);
+  private void sendAck(WebSocketSession session, Long messageId) {
+    sendMessage(session, frameEncoder.ack(messageId));
   }
 
   /**
    * 发送错误消息
    */
-  private void sendError(WebSocketSession session, String errorMessage) {
+  void sendError(WebSocketSession session, String errorMessage) {
     try {
       Map<String, Object> error = new HashMap<>();
       error.put("type", "ERROR");
@@ -152,27 +197,55 @@ public class DanmakuWebSocketHandler extends AbstractWebSocketHandler {
   protected void handleConnectionEstablished(WebSocketSession session) throws Exception {
     Long roomId = getRoomId(session);
 
+    // 断线重连只补发缺口，无法补齐时再下发完整历史
+    Object resumeFrom = session.getAttributes().get("resumeFrom");
+    if (resumeFrom instanceof Long seq && resumeMessages(session, roomId, seq)) {
+      return;
+    }
+
     // 发送最近的弹幕历史记录
     sendRecentMessages(session, roomId);
   }
 
+  /**
+   * 补发序号大于resumeFrom的弹幕
+   * 只使用本地历史环：Redis中的最近弹幕只包含经WebSocket发布的弹幕，缺少MQ广播的弹幕，无法证明缺口已补齐
+   *
+   * @return 是否已补齐缺口
+   */
+  private boolean resumeMessages(WebSocketSession session, Long roomId, long resumeFrom) {
+    try {
+      List<DanmakuMessage> gap = historyCache.replay(roomId, resumeFrom, () -> messageService
+          .getRecentMessages(roomId, pushProperties.getHistory().getCapacity()));
+      if (gap == null) {
+        log.debug("[弹幕] 缺口超出可补发范围，下发完整历史: roomId={}, resumeFrom={}", roomId,
+            resumeFrom);
+        return false;
+      }
+
+      if (!gap.isEmpty()) {
+        sendMessage(session, frameEncoder.history(gap));
+      }
+      log.debug("[弹幕] 断线续传: roomId={}, resumeFrom={}, count={}", roomId, resumeFrom,
+          gap.size());
+      return true;
+    } catch (Exception e) {
+      log.error("[弹幕] 断线续传失败: roomId={}, sessionId={}", roomId, session.getId(), e);
+      return false;
+    }
+  }
+
   /**
    * 发送最近的弹幕历史记录
    */
   private void sendRecentMessages(WebSocketSession session, Long roomId) {
     try {
-      // 获取最近的弹幕
-      List<DanmakuMessage> recentMessages = messageService.getRecentMessages(roomId, 50);
-
-      if (recentMessages != null && !recentMessages.isEmpty()) {
-        // 构建历史消息
-        Map<String, Object> history = new HashMap<>();
-        history.put("type", "HISTORY");
-        history.put("messages", recentMessages);
-        history.put("timestamp", System.currentTimeMillis());
-
-        String historyJson = objectMapper.writeValueAsString(history);
-        sendMessage(session, historyJson);
+      // 优先使用本地历史环，节点首次服务该房间时才读取Redis
+      BroadcastFrame history = historyCache.historyFrame(roomId,
+          () -> messageService.getRecentMessages(roomId,
+              pushProperties.getHistory().getCapacity()));
+      if (history != null) {
+        sendMessage(session, history);
       }
     } catch (Exception e) {
       log.error("[弹幕] 发送历史消息失败: roomId={}, sessionId={}", roomId, session.getId(), e);
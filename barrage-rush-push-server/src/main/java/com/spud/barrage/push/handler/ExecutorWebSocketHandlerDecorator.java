@@ -0,0 +1,116 @@
+package com.spud.barrage.push.handler;
+
+import com.spud.barrage.push.manager.PushExecutors;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+
+/**
+ * 处理器回调异步执行装饰器
+ * 虚拟线程模式下将连接建立、消息处理、传输错误和连接关闭回调转交给会话专属的串行执行器，
+ * 回调中阻塞的Redis调用不再占用容器或IO线程，同一会话的回调仍保持到达顺序。
+ *
+ * @author Spud
+ * @date 2026/10/16
+ */
+@Slf4j
+public class ExecutorWebSocketHandlerDecorator extends WebSocketHandlerDecorator {
+
+  /**
+   * 会话属性中保存串行执行器的键
+   */
+  private static final String EXECUTOR_ATTRIBUTE = "sessionExecutor";
+
+  private final PushExecutors pushExecutors;
+
+  public ExecutorWebSocketHandlerDecorator(WebSocketHandler delegate,
+      PushExecutors pushExecutors) {
+    super(delegate);
+    this.pushExecutors = pushExecutors;
+  }
+
+  /**
+   * 虚拟线程模式下装饰处理器，平台线程模式下原样返回
+   */
+  public static WebSocketHandler decorate(WebSocketHandler handler, PushExecutors pushExecutors) {
+    return pushExecutors.isVirtual() ? new ExecutorWebSocketHandlerDecorator(handler,
+        pushExecutors) : handler;
+  }
+
+  @Override
+  public void afterConnectionEstablished(WebSocketSession session) {
+    session.getAttributes().put(EXECUTOR_ATTRIBUTE, pushExecutors.newSessionExecutor());
+    dispatch(session, () -> getDelegate().afterConnectionEstablished(session), true);
+  }
+
+  @Override
+  public void handleMessage(WebSocketSession session, WebSocketMessage<?> message) {
+    // 容器会在回调返回后复用二进制消息的缓冲区，异步处理前先复制
+    WebSocketMessage<?> detached = message instanceof BinaryMessage binaryMessage
+        ? new BinaryMessage(copy(binaryMessage.getPayload()), binaryMessage.isLast())
+        : message;
+    dispatch(session, () -> getDelegate().handleMessage(session, detached), true);
+  }
+
+  @Override
+  public void handleTransportError(WebSocketSession session, Throwable exception) {
+    dispatch(session, () -> getDelegate().handleTransportError(session, exception), true);
+  }
+
+  @Override
+  public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) {
+    dispatch(session, () -> getDelegate().afterConnectionClosed(session, closeStatus), false);
+  }
+
+  private void dispatch(WebSocketSession session, Callback callback, boolean closeOnError) {
+    Executor executor = (Executor) session.getAttributes().get(EXECUTOR_ATTRIBUTE);
+    if (executor == null) {
+      invoke(session, callback, closeOnError);
+      return;
+    }
+    try {
+      executor.execute(() -> invoke(session, callback, closeOnError));
+    } catch (RejectedExecutionException e) {
+      // 执行器已关闭（服务停止中），直接在当前线程执行
+      invoke(session, callback, closeOnError);
+    }
+  }
+
+  private void invoke(WebSocketSession session, Callback callback, boolean closeOnError) {
+    try {
+      callback.run();
+    } catch (Throwable e) {
+      log.error("处理器回调异常: sessionId={}", session.getId(), e);
+      if (closeOnError && session.isOpen()) {
+        try {
+          session.close(CloseStatus.SERVER_ERROR);
+        } catch (Exception closeException) {
+          log.debug("关闭会话失败: sessionId={}", session.getId());
+        }
+      }
+    }
+  }
+
+  private static ByteBuffer copy(ByteBuffer payload) {
+    ByteBuffer source = payload.duplicate();
+    ByteBuffer copy = ByteBuffer.allocate(source.remaining());
+    copy.put(source).flip();
+    return copy;
+  }
+
+  /**
+   * 可抛出异常的处理器回调
+   */
+  @FunctionalInterface
+  private interface Callback {
+
+    void run() throws Exception;
+  }
+}
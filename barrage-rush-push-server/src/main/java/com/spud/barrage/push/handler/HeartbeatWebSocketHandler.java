@@ -3,14 +3,8 @@ package com.spud.barrage.push.handler;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.spud.barrage.push.constant.WebSocketType;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicLong;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.TextMessage;
@@ -18,6 +12,7 @@ import org.springframework.web.socket.WebSocketSession;
 
 /**
  * 心跳WebSocket处理器
+ * 最后活动时间在消息分发时统一更新，超时检测和在线状态上报由SessionIdleMonitor负责，心跳不再逐条写Redis。
  * @author Spud
  * @date 2025/3/30
  */
@@ -28,36 +23,20 @@ public class HeartbeatWebSocketHandler extends AbstractWebSocketHandler {
   private static final String HANDLER_NAME = "心跳处理器";
   private static final String HANDLER_TYPE = WebSocketType.HEARTBEAT;
 
-  // 保存每个会话的最后心跳时间
-  private final Map<String, AtomicLong> sessionLastHeartbeatMap = new ConcurrentHashMap<>();
-
-  @Autowired
-  private RedisTemplate<String, String> redisTemplate;
+  static final String TYPE_HEARTBEAT = "HEARTBEAT";
 
   @Autowired
   private ObjectMapper objectMapper;
 
-  @Value("${push.heartbeat.timeout:30000}")
-  private long heartbeatTimeout;
-
-  @Value("${push.heartbeat.redis-key-prefix:heartbeat:}")
-  private String heartbeatKeyPrefix;
-
-  @Value("${push.heartbeat.redis-ttl:60}")
-  private int heartbeatRedisTtl;
-
   @Override
   public void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
     String sessionId = session.getId();
     Long roomId = getRoomId(session);
     Long userId = getUserId(session);
 
-    // 更新心跳时间
-    updateHeartbeat(session);
-
     // 构建响应
     ObjectNode response = objectMapper.createObjectNode();
-    response.put("type", "HEARTBEAT");
+    response.put("type", TYPE_HEARTBEAT);
 
     ObjectNode data = response.putObject("data");
     data.put("timestamp", System.currentTimeMillis());
@@ -69,27 +48,6 @@ public class HeartbeatWebSocketHandler extends AbstractWebSocketHandler {
         HANDLER_NAME, sessionId, roomId, userId);
   }
 
-  /**
-   * 更新心跳时间
-   */
-  private void updateHeartbeat(WebSocketSession session) {
-    String sessionId = session.getId();
-    Long roomId = getRoomId(session);
-    Long userId = getUserId(session);
-    long timestamp = System.currentTimeMillis();
-
-    // 更新内存中的心跳时间
-    sessionLastHeartbeatMap.computeIfAbsent(sessionId, k -> new AtomicLong(0))
-        .set(timestamp);
-
-    // 更新Redis中的心跳记录
-    String heartbeatKey = heartbeatKeyPrefix + sessionId;
-    String heartbeatValue = String.format("%s:%s:%d", userId, roomId, timestamp);
-
-    redisTemplate.opsForValue()
-        .set(heartbeatKey, heartbeatValue, heartbeatRedisTtl, TimeUnit.SECONDS);
-  }
-
   @Override
   protected String getHandlerName() {
     return HANDLER_NAME;
@@ -102,9 +60,6 @@ public class HeartbeatWebSocketHandler extends AbstractWebSocketHandler {
 
   @Override
   protected void handleConnectionEstablished(WebSocketSession session) throws Exception {
-    // 初始心跳
-    updateHeartbeat(session);
-
     log.debug("[{}] 心跳连接已建立: sessionId={}, roomId={}, userId={}",
         HANDLER_NAME, session.getId(), getRoomId(session), getUserId(session));
   }
@@ -112,17 +67,8 @@ public class HeartbeatWebSocketHandler extends AbstractWebSocketHandler {
   @Override
   protected void handleConnectionClosed(WebSocketSession session, CloseStatus status)
       throws Exception {
-    String sessionId = session.getId();
-
-    // 清理心跳数据
-    sessionLastHeartbeatMap.remove(sessionId);
-
-    // 清理Redis中的心跳记录
-    String heartbeatKey = heartbeatKeyPrefix + sessionId;
-    redisTemplate.delete(heartbeatKey);
-
     log.debug("[{}] 心跳连接已关闭: sessionId={}, status={}",
-        HANDLER_NAME, sessionId, status);
+        HANDLER_NAME, session.getId(), status);
   }
 
   @Override
@@ -0,0 +1,112 @@
+package com.spud.barrage.push.handler;
+
+import com.spud.barrage.push.codec.InboundFrame;
+import com.spud.barrage.push.codec.InboundFrameCodec;
+import com.spud.barrage.push.constant.WebSocketType;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.SubProtocolCapable;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+/**
+ * 多路复用WebSocket处理器
+ * 一条连接同时承载弹幕、心跳和CDN三个通道，每个观众只占用一个TCP连接和一条会话记录。
+ * 帧的type字段即通道标签：HEARTBEAT属于心跳通道，CDN_INFO属于CDN通道，其余（含二进制帧）属于弹幕通道，
+ * 各通道的处理逻辑委托给对应的单通道处理器，下行帧格式与单通道端点完全一致。
+ * 会话注册在弹幕类型下，弹幕广播、在线人数和房间订阅与弹幕连接共用同一套索引。
+ *
+ * @author Spud
+ * @date 2026/10/16
+ */
+@Slf4j
+@Component
+public class MuxWebSocketHandler extends AbstractWebSocketHandler implements
+    SubProtocolCapable {
+
+  private static final String HANDLER_NAME = "多路复用处理器";
+
+  @Autowired
+  private DanmakuWebSocketHandler danmakuHandler;
+
+  @Autowired
+  private HeartbeatWebSocketHandler heartbeatHandler;
+
+  @Autowired
+  private CdnWebSocketHandler cdnHandler;
+
+  @Override
+  protected String getHandlerName() {
+    return HANDLER_NAME;
+  }
+
+  @Override
+  protected String getHandlerType() {
+    return WebSocketType.DANMAKU;
+  }
+
+  @Override
+  protected boolean isMultiplexed() {
+    return true;
+  }
+
+  @Override
+  public List<String> getSubProtocols() {
+    return danmakuHandler.getSubProtocols();
+  }
+
+  @Override
+  protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) {
+    // 二进制帧只用于弹幕通道
+    danmakuHandler.handleBinaryMessage(session, message);
+  }
+
+  @Override
+  public void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
+    InboundFrame frame;
+    try {
+      frame = InboundFrameCodec.decode(message.getPayload());
+    } catch (Exception e) {
+      log.error("[{}] 解析消息失败: roomId={}, userId={}", HANDLER_NAME, getRoomId(session),
+          getUserId(session), e);
+      danmakuHandler.sendError(session, "消息格式错误: " + e.getMessage());
+      return;
+    }
+
+    // 心跳和CDN帧不属于弹幕帧类型，按type字段分发到对应通道
+    if (frame instanceof InboundFrame.UnknownFrame unknown) {
+      if (HeartbeatWebSocketHandler.TYPE_HEARTBEAT.equals(unknown.type())) {
+        heartbeatHandler.handleTextMessage(session, message);
+        return;
+      }
+      if (CdnWebSocketHandler.TYPE_CDN_INFO.equals(unknown.type())) {
+        cdnHandler.handleTextMessage(session, message);
+        return;
+      }
+    }
+    danmakuHandler.handleFrame(session, frame);
+  }
+
+  @Override
+  protected void handleConnectionEstablished(WebSocketSession session) throws Exception {
+    // 依次完成弹幕通道的历史下发和CDN通道的当前信息下发
+    danmakuHandler.handleConnectionEstablished(session);
+    cdnHandler.handleConnectionEstablished(session);
+  }
+
+  @Override
+  protected void handleConnectionClosed(WebSocketSession session, CloseStatus status)
+      throws Exception {
+    log.debug("[{}] 多路复用连接已关闭: sessionId={}, status={}", HANDLER_NAME, session.getId(),
+        status);
+  }
+
+  @Override
+  protected void handleError(WebSocketSession session, Throwable exception) throws Exception {
+    log.error("[{}] 多路复用连接错误: sessionId={}", HANDLER_NAME, session.getId(), exception);
+  }
+}
@@ -1,9 +1,13 @@
 package com.spud.barrage.push.interceptor;
 
+import com.spud.barrage.push.manager.HandshakeAdmission;
 import com.spud.barrage.push.service.TokenService;
 import java.util.Map;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.math.NumberUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.server.ServerHttpRequest;
 import org.springframework.http.server.ServerHttpResponse;
@@ -15,7 +19,7 @@ import org.springframework.web.util.UriComponentsBuilder;
 
 /**
  * WebSocket拦截器
- * 负责身份验证和解析URI参数
+ * 负责身份验证和解析URI参数，令牌携带房间ID或节点ID时校验与本次握手一致
  *
  * @author Spud
  * @date 2025/3/30
@@ -27,6 +31,12 @@ public class WebSocketInterceptor implements HandshakeInterceptor {
   @Autowired
   private TokenService tokenService;
 
+  @Autowired
+  private HandshakeAdmission admission;
+
+  @Value("${push.server.host:localhost}:${push.server.port:8083}")
+  private String instanceId;
+
   @Override
   public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
       WebSocketHandler wsHandler, Map<String, Object> attributes) {
@@ -34,6 +44,15 @@ public class WebSocketInterceptor implements HandshakeInterceptor {
     String path = request.getURI().getPath();
     log.debug("[WebSocket] 收到连接请求: {}", path);
 
+    // 准入控制在访问Redis之前执行，超出处理能力的握手直接返回503
+    if (!admission.acquire()) {
+      long retryAfter = admission.retryAfterSeconds();
+      log.debug("[WebSocket] 握手被准入控制拒绝: path={}, retryAfter={}", path, retryAfter);
+      response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+      response.getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+      return false;
+    }
+
     try {
       // 解析房间ID
       String roomId = extractRoomId(request);
@@ -60,17 +79,40 @@ public class WebSocketInterceptor implements HandshakeInterceptor {
         return false;
       }
 
+      // 令牌绑定的房间和节点必须与本次握手一致，防止令牌跨房间、跨节点使用
+      Object boundRoomId = tokenInfo.get("roomId");
+      if (boundRoomId != null && !roomId.equals(String.valueOf(boundRoomId))) {
+        log.warn("[WebSocket] 令牌房间不匹配: path={}, tokenRoomId={}", path, boundRoomId);
+        response.setStatusCode(HttpStatus.UNAUTHORIZED);
+        return false;
+      }
+      Object boundInstanceId = tokenInfo.get("instanceId");
+      if (boundInstanceId != null && !instanceId.equals(String.valueOf(boundInstanceId))) {
+        log.warn("[WebSocket] 令牌节点不匹配: path={}, tokenInstanceId={}, instanceId={}", path,
+            boundInstanceId, instanceId);
+        response.setStatusCode(HttpStatus.UNAUTHORIZED);
+        return false;
+      }
+
       // 将用户ID添加到attributes中
       String userId = (String) tokenInfo.get("userId");
       attributes.put("userId", userId);
       attributes.put("token", token);
 
+      // 断线重连时客户端携带已收到的最大序号，只补发缺失的弹幕
+      String resumeFrom = queryParams(request).get("resumeFrom");
+      if (NumberUtils.isDigits(resumeFrom)) {
+        attributes.put("resumeFrom", NumberUtils.toLong(resumeFrom));
+      }
+
       log.info("[WebSocket] 验证通过: roomId={}, userId={}", roomId, userId);
       return true;
     } catch (Exception e) {
       log.error("[WebSocket] 握手验证异常: {}", path, e);
       response.setStatusCode(HttpStatus.INTERNAL_SERVER_ERROR);
       return false;
+    } finally {
+      admission.release();
     }
   }
 
@@ -97,17 +139,9 @@ public class WebSocketInterceptor implements HandshakeInterceptor {
    */
   private String extractToken(ServerHttpRequest request) {
     // 从查询参数中获取token
-    String query = request.getURI().getQuery();
-    if (query != null) {
-      Map<String, String> queryParams = UriComponentsBuilder.newInstance()
-          .query(query)
-          .build()
-          .getQueryParams()
-          .toSingleValueMap();
-      String token = queryParams.get("token");
-      if (StringUtils.hasText(token)) {
-        return token;
-      }
+    String token = queryParams(request).get("token");
+    if (StringUtils.hasText(token)) {
+      return token;
     }
 
     // 从header中获取token
@@ -120,4 +154,19 @@ public class WebSocketInterceptor implements HandshakeInterceptor {
 
     return null;
   }
-}
\ No newline at end of file
+
+  /**
+   * 解析查询参数
+   */
+  private Map<String, String> queryParams(ServerHttpRequest request) {
+    String query = request.getURI().getQuery();
+    if (query == null) {
+      return Map.of();
+    }
+    return UriComponentsBuilder.newInstance()
+        .query(query)
+        .build()
+        .getQueryParams()
+        .toSingleValueMap();
+  }
+}
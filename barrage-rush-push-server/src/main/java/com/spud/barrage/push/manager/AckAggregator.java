@@ -0,0 +1,167 @@
+package com.spud.barrage.push.manager;
+
+import com.spud.barrage.push.properties.PushProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import com.spud.barrage.push.util.RedisBatchUtil;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * 消息确认聚合
+ * 确认不再逐条写入按消息划分的用户集合，而是先在本地按房间聚合：去重后的确认用户和每条消息的确认用户。
+ * 定期用一次pipeline按房间和时间窗口写入Redis：确认用户写入HyperLogLog（单键最大12KB，统计去重确认人数），
+ * 每条消息的确认人数累加到窗口的哈希中。Redis内存和写入次数只随房间数和消息数增长，与观众数无关。
+ * 同一用户对同一消息的重复确认（重试、多个连接）只在一个刷新周期内去重，跨周期的重复确认会再次计数；
+ * 匿名用户无法去重，每次确认都计数。
+ *
+ * @author Spud
+ * @date 2026/10/16
+ */
+@Slf4j
+@Component
+public class AckAggregator {
+
+  @Autowired
+  private PushProperties pushProperties;
+
+  @Autowired
+  private RedisTemplate<String, String> redisTemplate;
+
+  /**
+   * 房间ID -> 待写入的确认，只在compute中修改，刷新时整体移除
+   */
+  private final ConcurrentHashMap<Long, RoomAcks> pending = new ConcurrentHashMap<>();
+
+  private ScheduledExecutorService scheduler;
+
+  /**
+   * 单个房间一个刷新周期内的确认
+   */
+  private static class RoomAcks {
+
+    private final Set<Long> userIds = new HashSet<>();
+
+    /**
+     * 消息ID -> 本周期内确认的登录用户
+     */
+    private final Map<Long, Set<Long>> ackers = new HashMap<>();
+
+    /**
+     * 消息ID -> 本周期内匿名用户的确认次数
+     */
+    private final Map<Long, Integer> anonymous = new HashMap<>();
+
+    int count(Long messageId) {
+      Set<Long> users = ackers.get(messageId);
+      return (users != null ? users.size() : 0) + anonymous.getOrDefault(messageId, 0);
+    }
+
+    Set<Long> messageIds() {
+      Set<Long> messageIds = new HashSet<>(ackers.keySet());
+      messageIds.addAll(anonymous.keySet());
+      return messageIds;
+    }
+  }
+
+  @PostConstruct
+  public void init() {
+    long interval = pushProperties.getAck().getFlushIntervalMillis();
+    scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread t = new Thread(r, "ack-aggregator");
+      t.setDaemon(true);
+      return t;
+    });
+    scheduler.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.MILLISECONDS);
+
+    log.info("[确认] 确认聚合初始化完成: flushInterval={}ms, window={}ms", interval,
+        pushProperties.getAck().getWindowMillis());
+  }
+
+  @PreDestroy
+  public void destroy() {
+    if (scheduler != null) {
+      scheduler.shutdown();
+    }
+    flush();
+  }
+
+  /**
+   * 记录一次确认，只修改本地聚合数据，同一周期内同一用户对同一消息的重复确认只计一次
+   */
+  public void acknowledge(long roomId, long messageId, long userId) {
+    pending.compute(roomId, (id, acks) -> {
+      if (acks == null) {
+        acks = new RoomAcks();
+      }
+      if (userId != SessionRecord.ANONYMOUS_USER) {
+        acks.userIds.add(userId);
+        acks.ackers.computeIfAbsent(messageId, k -> new HashSet<>()).add(userId);
+      } else {
+        acks.anonymous.merge(messageId, 1, Integer::sum);
+      }
+      return acks;
+    });
+  }
+
+  /**
+   * 把本地聚合的确认写入Redis
+   */
+  private void flush() {
+    if (pending.isEmpty()) {
+      return;
+    }
+    Map<Long, RoomAcks> batch = new HashMap<>();
+    for (Long roomId : pending.keySet()) {
+      RoomAcks acks = pending.remove(roomId);
+      if (acks != null) {
+        batch.put(roomId, acks);
+      }
+    }
+
+    PushProperties.Ack ack = pushProperties.getAck();
+    long window = System.currentTimeMillis() / ack.getWindowMillis() * ack.getWindowMillis();
+    long ttl = ack.getRetentionSeconds();
+    try {
+      redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+        batch.forEach((roomId, acks) -> {
+          String suffix = roomId + ":" + window;
+          if (!acks.userIds.isEmpty()) {
+            byte[] usersKey = bytes(ack.getRedisKeyPrefix() + "users:" + suffix);
+            for (byte[][] values : RedisBatchUtil.pfAddBatches(acks.userIds)) {
+              connection.hyperLogLogCommands().pfAdd(usersKey, values);
+            }
+            connection.keyCommands().expire(usersKey, ttl);
+          }
+          byte[] countsKey = bytes(ack.getRedisKeyPrefix() + "count:" + suffix);
+          for (Long messageId : acks.messageIds()) {
+            connection.hashCommands().hIncrBy(countsKey, bytes(String.valueOf(messageId)),
+                acks.count(messageId));
+          }
+          connection.keyCommands().expire(countsKey, ttl);
+        });
+        return null;
+      });
+
+      log.debug("[确认] 写入确认统计: rooms={}, window={}", batch.size(), window);
+    } catch (Exception e) {
+      log.warn("[确认] 写入确认统计失败: rooms={}, error={}", batch.size(), e.getMessage());
+    }
+  }
+
+  private static byte[] bytes(String value) {
+    return value.getBytes(StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,242 @@
+package com.spud.barrage.push.manager;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.spud.barrage.common.data.dto.DanmakuMessage;
+import com.spud.barrage.common.data.dto.DanmakuType;
+import com.spud.barrage.common.data.mq.enums.RoomType;
+import com.spud.barrage.push.codec.DanmakuBroadcast;
+import com.spud.barrage.push.properties.PushProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * 重复弹幕合并
+ * 热门房间大量刷屏弹幕（"666"、"哈哈哈"、表情）内容相同，逐条广播占用了大部分帧。
+ * 按房间类型配置合并窗口：窗口内归一化内容相同的弹幕，前threshold条原样进入节拍合并，不增加时延；
+ * 之后的弹幕只计数并保留少量发送用户ID，窗口结束时以首条被合并的弹幕为代表生成一帧，携带合并条数，
+ * 交回节拍合并按结束时的位置下发。代表弹幕不带ID和序号，客户端收到的序号不会倒退；
+ * 被合并的弹幕由调用方按到达顺序写入房间历史环，断线续传的序号保持连续。
+ * 只合并普通用户的短滚动弹幕，系统弹幕和固定位置弹幕不参与，判断只读取路由字段，不解析完整弹幕。
+ *
+ * @author Spud
+ * @date 2026/10/16
+ */
+@Slf4j
+@Component
+public class DanmakuCoalescer {
+
+  /**
+   * 归一化时同一字符连续出现的最大保留次数，"6666"与"666"视为相同内容
+   */
+  private static final int MAX_RUN = 3;
+
+  @Autowired
+  private PushProperties pushProperties;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  /**
+   * 房间ID -> 当前合并窗口，只在compute中修改，窗口结束时整体移除
+   */
+  private final Map<Long, Map<String, Group>> windows = new ConcurrentHashMap<>();
+
+  private ScheduledExecutorService scheduler;
+
+  /**
+   * 窗口结束时接收合并帧
+   */
+  private volatile Consumer<DanmakuBroadcast> flushTarget;
+
+  /**
+   * 一个窗口内归一化内容相同的弹幕
+   */
+  private static final class Group {
+
+    private int seen;
+
+    private int count;
+
+    private DanmakuBroadcast first;
+
+    private long[] sampleUserIds;
+  }
+
+  @PostConstruct
+  public void init() {
+    scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread t = new Thread(r, "danmaku-coalesce");
+      t.setDaemon(true);
+      return t;
+    });
+
+    log.info("[弹幕] 重复弹幕合并初始化完成: windowMillis={}, threshold={}",
+        pushProperties.getCoalesce().getWindowMillis(),
+        pushProperties.getCoalesce().getThreshold());
+  }
+
+  @PreDestroy
+  public void destroy() {
+    if (scheduler != null) {
+      scheduler.shutdown();
+    }
+  }
+
+  /**
+   * 设置合并帧的接收方
+   */
+  public void setFlushTarget(Consumer<DanmakuBroadcast> flushTarget) {
+    this.flushTarget = flushTarget;
+  }
+
+  /**
+   * 立即结束所有合并窗口，停机时由接收方在自身停止前调用
+   */
+  public void flushAll() {
+    windows.keySet().forEach(this::flush);
+  }
+
+  /**
+   * 尝试合并一条弹幕
+   *
+   * @return true表示弹幕已被合并，调用方不再单独广播
+   */
+  public boolean absorb(DanmakuBroadcast broadcast, RoomType roomType) {
+    PushProperties.Coalesce coalesce = pushProperties.getCoalesce();
+    Long windowMillis = coalesce.getWindowMillis().get(roomType);
+    if (windowMillis == null || windowMillis <= 0) {
+      return false;
+    }
+    Integer threshold = coalesce.getThreshold().get(roomType);
+    int passThrough = threshold != null ? Math.max(0, threshold) : 0;
+
+    DanmakuBroadcast.Routing routing;
+    try {
+      routing = broadcast.routing(objectMapper);
+    } catch (Exception e) {
+      return false;
+    }
+    if (!isCoalescible(routing)) {
+      return false;
+    }
+    String key = normalize(routing.content());
+    if (key.isEmpty() || key.length() > coalesce.getMaxContentLength()) {
+      return false;
+    }
+
+    Long roomId = broadcast.getRoomId();
+    boolean[] absorbed = new boolean[1];
+    windows.compute(roomId, (id, groups) -> {
+      if (groups == null) {
+        groups = new HashMap<>();
+        scheduler.schedule(() -> flush(id), windowMillis, TimeUnit.MILLISECONDS);
+      }
+      Group group = groups.computeIfAbsent(key, k -> new Group());
+      group.seen++;
+      if (group.seen > passThrough) {
+        add(group, broadcast, routing.userId(), coalesce.getSampleUsers());
+        absorbed[0] = true;
+      }
+      return groups;
+    });
+    return absorbed[0];
+  }
+
+  /**
+   * 关闭房间的合并窗口，把其中被合并的弹幕交给接收方
+   */
+  void flush(Long roomId) {
+    Map<String, Group> groups = windows.remove(roomId);
+    if (groups == null) {
+      return;
+    }
+    Consumer<DanmakuBroadcast> target = flushTarget;
+    for (Group group : groups.values()) {
+      if (group.count == 0 || target == null) {
+        continue;
+      }
+      try {
+        DanmakuMessage representative = representative(group.first.toMessage(objectMapper));
+        target.accept(DanmakuBroadcast.coalesced(representative, group.count,
+            group.sampleUserIds));
+        log.debug("[弹幕] 合并重复弹幕: roomId={}, content={}, count={}", roomId,
+            representative.getContent(), group.count);
+      } catch (Exception e) {
+        log.error("[弹幕] 下发合并弹幕失败: roomId={}", roomId, e);
+      }
+    }
+  }
+
+  /**
+   * 复制首条被合并的弹幕作为代表，去掉ID和序号，合并帧不占用房间的序号
+   */
+  private static DanmakuMessage representative(DanmakuMessage first) {
+    DanmakuMessage message = new DanmakuMessage();
+    message.setRoomId(first.getRoomId());
+    message.setUserId(first.getUserId());
+    message.setContent(first.getContent());
+    message.setPosition(first.getPosition());
+    message.setColor(first.getColor());
+    message.setSize(first.getSize());
+    message.setTimestamp(first.getTimestamp());
+    return message;
+  }
+
+  private static void add(Group group, DanmakuBroadcast broadcast, long userId,
+      int sampleUsers) {
+    if (group.first == null) {
+      group.first = broadcast;
+      group.sampleUserIds = new long[0];
+    }
+    group.count++;
+    if (group.sampleUserIds.length < sampleUsers
+        && Arrays.stream(group.sampleUserIds).noneMatch(id -> id == userId)) {
+      group.sampleUserIds = Arrays.copyOf(group.sampleUserIds, group.sampleUserIds.length + 1);
+      group.sampleUserIds[group.sampleUserIds.length - 1] = userId;
+    }
+  }
+
+  /**
+   * 只合并普通用户发送的滚动弹幕
+   */
+  private static boolean isCoalescible(DanmakuBroadcast.Routing routing) {
+    Long userId = routing.userId();
+    Integer position = routing.position();
+    return userId != null && userId > 0 && routing.content() != null
+        && (position == null || position == DanmakuType.NORMAL.getCode());
+  }
+
+  /**
+   * 归一化弹幕内容：去掉空白、转小写，同一字符连续出现超过MAX_RUN次的部分截断
+   */
+  static String normalize(String content) {
+    StringBuilder builder = new StringBuilder(content.length());
+    int previous = -1;
+    int run = 0;
+    for (int i = 0; i < content.length(); ) {
+      int original = content.codePointAt(i);
+      i += Character.charCount(original);
+      int codePoint = Character.toLowerCase(original);
+      if (Character.isWhitespace(codePoint)) {
+        continue;
+      }
+      run = codePoint == previous ? run + 1 : 1;
+      previous = codePoint;
+      if (run <= MAX_RUN) {
+        builder.appendCodePoint(codePoint);
+      }
+    }
+    return builder.toString();
+  }
+}
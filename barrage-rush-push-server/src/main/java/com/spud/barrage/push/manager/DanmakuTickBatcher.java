@@ -0,0 +1,343 @@
+package com.spud.barrage.push.manager;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.spud.barrage.common.data.dto.DanmakuType;
+import com.spud.barrage.common.data.mq.enums.RoomType;
+import com.spud.barrage.push.codec.DanmakuBroadcast;
+import com.spud.barrage.push.codec.FrameEncoder;
+import com.spud.barrage.push.constant.WebSocketType;
+import com.spud.barrage.push.properties.PushProperties;
+import com.spud.barrage.push.service.RoomTypeResolver;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * 弹幕帧节拍合并
+ * 按房间类型配置节拍周期，同一节拍内到达的弹幕合并为一帧广播（JSON协议为数组帧，二进制协议为BATCH帧）。
+ * 房间空闲时第一条弹幕立即发送，之后节拍内的弹幕才进入缓冲，节拍为0的房间始终直接广播。
+ * 配置了每秒上限的房间类型（默认只有SUPER_HOT）在每个节拍内按配额抽样：
+ * 系统弹幕和固定位置的弹幕优先全部保留，普通弹幕用蓄水池抽样均匀保留配额内的数量。
+ * 进入节拍前先经过重复弹幕合并，刷屏的相同内容不再占用节拍配额；被合并的弹幕不单独下发，
+ * 但和节拍内的其他弹幕一起按到达顺序写入房间历史环，合并帧在窗口结束时回到节拍中下发，不写入历史环。
+ *
+ * @author Spud
+ * @date 2026/10/16
+ */
+@Slf4j
+@Component
+public class DanmakuTickBatcher {
+
+  /**
+   * 房间缓冲空闲多久后回收(毫秒)
+   */
+  private static final long IDLE_EVICT_MILLIS = 60_000;
+
+  @Autowired
+  private WebSocketSessionManager sessionManager;
+
+  @Autowired
+  private RoomTypeResolver roomTypeResolver;
+
+  @Autowired
+  private PushProperties pushProperties;
+
+  @Autowired
+  private FrameEncoder frameEncoder;
+
+  @Autowired
+  private RoomHistoryCache historyCache;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Autowired
+  private DanmakuCoalescer coalescer;
+
+  private final Map<Long, RoomBuffer> roomBuffers = new ConcurrentHashMap<>();
+
+  private ScheduledExecutorService tickScheduler;
+
+  @PostConstruct
+  public void init() {
+    coalescer.setFlushTarget(this::submitCoalesced);
+    tickScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread t = new Thread(r, "danmaku-tick");
+      t.setDaemon(true);
+      return t;
+    });
+    tickScheduler.scheduleAtFixedRate(this::evictIdleRooms, IDLE_EVICT_MILLIS,
+        IDLE_EVICT_MILLIS, TimeUnit.MILLISECONDS);
+
+    log.info("[弹幕] 节拍合并初始化完成: tickMillis={}", pushProperties.getBatch().getTickMillis());
+  }
+
+  @PreDestroy
+  public void destroy() {
+    coalescer.flushAll();
+    if (tickScheduler != null) {
+      tickScheduler.shutdown();
+    }
+    // 发出所有尚未到期的缓冲
+    roomBuffers.values().forEach(RoomBuffer::flush);
+  }
+
+  /**
+   * 提交一条待广播的弹幕
+   */
+  public void submit(DanmakuBroadcast broadcast) {
+    Long roomId = broadcast.getRoomId();
+    RoomType roomType = roomTypeResolver.getRoomType(roomId);
+    long tickMillis = getTickMillis(roomType);
+    if (coalescer.absorb(broadcast, roomType)) {
+      // 不单独下发，只按到达顺序写入历史环
+      if (tickMillis <= 0 || !roomBuffers.computeIfAbsent(roomId, RoomBuffer::new)
+          .record(broadcast)) {
+        historyCache.append(roomId, Collections.singletonList(broadcast));
+      }
+      return;
+    }
+    if (tickMillis <= 0) {
+      broadcast(roomId, Collections.singletonList(broadcast));
+      return;
+    }
+
+    int quota = getTickQuota(roomType, tickMillis);
+    boolean priority = quota > 0 && isPriority(broadcast);
+    offer(roomId, broadcast, tickMillis, quota, priority);
+  }
+
+  /**
+   * 提交窗口结束时的合并帧，不再经过合并和抽样
+   */
+  private void submitCoalesced(DanmakuBroadcast coalesced) {
+    Long roomId = coalesced.getRoomId();
+    long tickMillis = getTickMillis(roomTypeResolver.getRoomType(roomId));
+    if (tickMillis <= 0) {
+      broadcast(roomId, Collections.singletonList(coalesced));
+      return;
+    }
+    offer(roomId, coalesced, tickMillis, 0, true);
+  }
+
+  private void offer(Long roomId, DanmakuBroadcast broadcast, long tickMillis, int quota,
+      boolean priority) {
+    while (true) {
+      RoomBuffer buffer = roomBuffers.computeIfAbsent(roomId, RoomBuffer::new);
+      if (buffer.offer(broadcast, tickMillis, quota, priority)) {
+        return;
+      }
+      // 缓冲已被回收，重新获取
+    }
+  }
+
+  /**
+   * 广播弹幕帧，每种协议只编码一次，所有会话共享编码结果，合并帧不写入历史环
+   */
+  private void broadcast(Long roomId, List<DanmakuBroadcast> broadcasts) {
+    List<DanmakuBroadcast> history = broadcasts.stream()
+        .filter(broadcast -> !broadcast.isCoalesced())
+        .toList();
+    broadcast(roomId, broadcasts, history);
+  }
+
+  private void broadcast(Long roomId, List<DanmakuBroadcast> broadcasts,
+      List<DanmakuBroadcast> history) {
+    if (!history.isEmpty()) {
+      historyCache.append(roomId, history);
+    }
+    if (!broadcasts.isEmpty()) {
+      sessionManager.broadcastToRoom(WebSocketType.DANMAKU, roomId,
+          frameEncoder.danmaku(broadcasts));
+    }
+  }
+
+  private long getTickMillis(RoomType roomType) {
+    Long tickMillis = pushProperties.getBatch().getTickMillis().get(roomType);
+    return tickMillis != null ? tickMillis : 0L;
+  }
+
+  /**
+   * 每个节拍可下发的普通弹幕数，0表示不抽样
+   */
+  private int getTickQuota(RoomType roomType, long tickMillis) {
+    Integer maxPerSecond = pushProperties.getBatch().getMaxPerSecond().get(roomType);
+    if (maxPerSecond == null || maxPerSecond <= 0) {
+      return 0;
+    }
+    return (int) Math.max(1, maxPerSecond * tickMillis / 1000);
+  }
+
+  /**
+   * 系统弹幕（无发送用户）和固定位置、特殊样式的弹幕不参与抽样，只读取路由字段，不解析完整弹幕
+   */
+  private boolean isPriority(DanmakuBroadcast broadcast) {
+    try {
+      DanmakuBroadcast.Routing routing = broadcast.routing(objectMapper);
+      Long userId = routing.userId();
+      Integer position = routing.position();
+      return userId == null || userId <= 0
+          || position != null && position != DanmakuType.NORMAL.getCode();
+    } catch (Exception e) {
+      // 无法解析的消息不做抽样，原样下发
+      return true;
+    }
+  }
+
+  private void evictIdleRooms() {
+    long now = System.currentTimeMillis();
+    roomBuffers.values().removeIf(buffer -> buffer.evictIfIdle(now));
+  }
+
+  /**
+   * 单个房间的节拍缓冲
+   */
+  private final class RoomBuffer {
+
+    private final Long roomId;
+
+    private List<DanmakuBroadcast> pending = new ArrayList<>();
+
+    /**
+     * 当前节拍内按到达顺序写入历史环的弹幕，包括被合并、不单独下发的弹幕
+     */
+    private List<DanmakuBroadcast> history = new ArrayList<>();
+
+    /**
+     * 当前节拍内保留的普通弹幕，作为蓄水池
+     */
+    private final List<DanmakuBroadcast> sampled = new ArrayList<>();
+
+    /**
+     * 当前节拍内到达的普通弹幕数
+     */
+    private int sampleSeen;
+
+    private long lastSendAt;
+
+    private boolean flushScheduled;
+
+    private boolean evicted;
+
+    RoomBuffer(Long roomId) {
+      this.roomId = roomId;
+    }
+
+    /**
+     * @return false表示缓冲已回收，调用方需重新获取
+     */
+    boolean offer(DanmakuBroadcast broadcast, long tickMillis, int quota, boolean priority) {
+      boolean sendNow = false;
+      synchronized (this) {
+        if (evicted) {
+          return false;
+        }
+        long now = System.currentTimeMillis();
+        if (!flushScheduled && now - lastSendAt >= tickMillis) {
+          // 房间处于空闲状态，直接发送
+          lastSendAt = now;
+          sendNow = true;
+        } else if (addPending(broadcast, quota, priority)) {
+          if (pending.size() >= pushProperties.getBatch().getMaxBatchSize()) {
+            tickScheduler.execute(this::flush);
+          } else if (!flushScheduled) {
+            flushScheduled = true;
+            long delay = Math.max(0, lastSendAt + tickMillis - now);
+            tickScheduler.schedule(this::flush, delay, TimeUnit.MILLISECONDS);
+          }
+        }
+      }
+
+      if (sendNow) {
+        broadcast(roomId, Collections.singletonList(broadcast));
+      }
+      return true;
+    }
+
+    /**
+     * 记录一条被合并的弹幕，节拍内有待发送的弹幕时排在其后写入历史环
+     *
+     * @return false表示没有待发送的弹幕或缓冲已回收，调用方直接写入历史环
+     */
+    synchronized boolean record(DanmakuBroadcast broadcast) {
+      if (evicted || pending.isEmpty() && history.isEmpty()) {
+        return false;
+      }
+      history.add(broadcast);
+      return true;
+    }
+
+    void flush() {
+      List<DanmakuBroadcast> broadcasts;
+      List<DanmakuBroadcast> recorded;
+      synchronized (this) {
+        flushScheduled = false;
+        if (pending.isEmpty() && history.isEmpty()) {
+          return;
+        }
+        broadcasts = pending;
+        recorded = history;
+        pending = new ArrayList<>(broadcasts.size());
+        history = new ArrayList<>(recorded.size());
+        sampled.clear();
+        sampleSeen = 0;
+        lastSendAt = System.currentTimeMillis();
+      }
+
+      broadcast(roomId, broadcasts, recorded);
+    }
+
+    /**
+     * 加入当前节拍的缓冲，配额已满时按蓄水池抽样替换已保留的普通弹幕
+     * 被替换的弹幕从缓冲中移除，新弹幕追加在末尾，缓冲始终保持到达顺序，下发和写入历史环时序号不会乱序
+     *
+     * @return 缓冲是否新增了一条弹幕
+     */
+    private boolean addPending(DanmakuBroadcast broadcast, int quota, boolean priority) {
+      if (quota <= 0 || priority) {
+        add(broadcast);
+        return true;
+      }
+      sampleSeen++;
+      if (sampled.size() < quota) {
+        sampled.add(broadcast);
+        add(broadcast);
+        return true;
+      }
+      int slot = ThreadLocalRandom.current().nextInt(sampleSeen);
+      if (slot < quota) {
+        DanmakuBroadcast replaced = sampled.set(slot, broadcast);
+        pending.remove(replaced);
+        history.remove(replaced);
+        add(broadcast);
+      }
+      return false;
+    }
+
+    private void add(DanmakuBroadcast broadcast) {
+      pending.add(broadcast);
+      if (!broadcast.isCoalesced()) {
+        history.add(broadcast);
+      }
+    }
+
+    synchronized boolean evictIfIdle(long now) {
+      if (!flushScheduled && pending.isEmpty() && history.isEmpty()
+          && now - lastSendAt >= IDLE_EVICT_MILLIS) {
+        evicted = true;
+      }
+      return evicted;
+    }
+  }
+}
@@ -0,0 +1,188 @@
+package com.spud.barrage.push.manager;
+
+import com.spud.barrage.push.properties.PushProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * 服务发现注册
+ * 按接入代理ServerDiscoveryService读取的格式登记本节点：活跃集合中的实例ID、节点信息哈希和指标哈希，
+ * 定期刷新心跳时间和连接数。停机排空时先注销，代理不再把新连接分配到本节点；
+ * 同时按相同的数据选出同区域负载最低的节点作为会话迁移目标。
+ *
+ * @author Spud
+ * @date 2026/10/16
+ */
+@Slf4j
+@Component
+public class DiscoveryRegistrar {
+
+  private static final String SERVER_TYPE = "push-server";
+
+  @Autowired
+  private PushProperties pushProperties;
+
+  @Autowired
+  private RedisTemplate<String, Object> redisTemplate;
+
+  @Autowired
+  private WebSocketSessionManager sessionManager;
+
+  @Value("${push.server.host:localhost}")
+  private String host;
+
+  @Value("${push.server.port:8083}")
+  private int port;
+
+  @Value("${push.server.region:CN}")
+  private String region;
+
+  private String instanceId;
+
+  private long startTime;
+
+  private volatile boolean registered;
+
+  private ScheduledExecutorService scheduler;
+
+  /**
+   * 迁移目标节点
+   */
+  public record Target(String id, String host, int port, int connections) {
+
+    public String address() {
+      return host + ":" + port;
+    }
+  }
+
+  @PostConstruct
+  public void init() {
+    instanceId = host + ":" + port;
+    startTime = System.currentTimeMillis();
+    registered = true;
+
+    scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread t = new Thread(r, "discovery-registrar");
+      t.setDaemon(true);
+      return t;
+    });
+    long interval = pushProperties.getDiscovery().getHeartbeatIntervalMillis();
+    scheduler.scheduleWithFixedDelay(this::heartbeat, 0, interval, TimeUnit.MILLISECONDS);
+
+    log.info("[发现] 服务注册初始化完成: instanceId={}, region={}", instanceId, region);
+  }
+
+  @PreDestroy
+  public void destroy() {
+    deregister();
+    if (scheduler != null) {
+      scheduler.shutdownNow();
+    }
+  }
+
+  /**
+   * 从服务发现中注销，之后不再刷新心跳
+   */
+  public void deregister() {
+    if (!registered) {
+      return;
+    }
+    registered = false;
+    try {
+      PushProperties.Discovery discovery = pushProperties.getDiscovery();
+      redisTemplate.opsForSet().remove(discovery.getActiveServersKey(), instanceId);
+      redisTemplate.delete(List.of(serverKey(), serverKey() + ":metrics"));
+      log.info("[发现] 已从服务发现中注销: instanceId={}", instanceId);
+    } catch (Exception e) {
+      log.warn("[发现] 注销失败: instanceId={}, error={}", instanceId, e.getMessage());
+    }
+  }
+
+  /**
+   * 选出同区域负载最低的健康节点，不包含本节点；同区域没有可用节点时从所有区域中选择
+   */
+  public List<Target> findTargets(int limit) {
+    PushProperties.Discovery discovery = pushProperties.getDiscovery();
+    Set<Object> ids = redisTemplate.opsForSet().members(discovery.getActiveServersKey());
+    if (ids == null || ids.isEmpty()) {
+      return List.of();
+    }
+
+    long now = System.currentTimeMillis();
+    List<Target> sameRegion = new ArrayList<>();
+    List<Target> others = new ArrayList<>();
+    for (Object value : ids) {
+      String id = value.toString();
+      if (id.equals(instanceId)) {
+        continue;
+      }
+      Map<Object, Object> info = redisTemplate.opsForHash()
+          .entries(discovery.getServerPrefix() + id);
+      if (info.isEmpty() || !SERVER_TYPE.equals(String.valueOf(info.get("type")))) {
+        continue;
+      }
+      long lastHeartbeat = NumberUtils.toLong(String.valueOf(info.get("lastHeartbeat")));
+      if (now - lastHeartbeat > discovery.getHealthyTimeoutMillis()) {
+        continue;
+      }
+      Object connections = redisTemplate.opsForHash()
+          .get(discovery.getServerPrefix() + id + ":metrics", "totalConnections");
+      Target target = new Target(id, String.valueOf(info.get("host")),
+          NumberUtils.toInt(String.valueOf(info.get("port"))),
+          NumberUtils.toInt(String.valueOf(connections)));
+      (region.equals(String.valueOf(info.get("region"))) ? sameRegion : others).add(target);
+    }
+
+    List<Target> candidates = sameRegion.isEmpty() ? others : sameRegion;
+    candidates.sort(Comparator.comparingInt(Target::connections));
+    return candidates.subList(0, Math.min(limit, candidates.size()));
+  }
+
+  private void heartbeat() {
+    if (!registered) {
+      return;
+    }
+    try {
+      PushProperties.Discovery discovery = pushProperties.getDiscovery();
+      long ttl = discovery.getHeartbeatIntervalMillis() * 3;
+
+      Map<String, Object> info = new HashMap<>(8);
+      info.put("host", host);
+      info.put("port", port);
+      info.put("type", SERVER_TYPE);
+      info.put("region", region);
+      info.put("startTime", startTime);
+      info.put("lastHeartbeat", System.currentTimeMillis());
+      redisTemplate.opsForHash().putAll(serverKey(), info);
+      redisTemplate.expire(serverKey(), ttl, TimeUnit.MILLISECONDS);
+
+      String metricsKey = serverKey() + ":metrics";
+      redisTemplate.opsForHash().put(metricsKey, "totalConnections",
+          sessionManager.getSessionCount());
+      redisTemplate.expire(metricsKey, ttl, TimeUnit.MILLISECONDS);
+
+      redisTemplate.opsForSet().add(discovery.getActiveServersKey(), instanceId);
+    } catch (Exception e) {
+      log.warn("[发现] 刷新节点信息失败: instanceId={}, error={}", instanceId, e.getMessage());
+    }
+  }
+
+  private String serverKey() {
+    return pushProperties.getDiscovery().getServerPrefix() + instanceId;
+  }
+}
@@ -0,0 +1,177 @@
+package com.spud.barrage.push.manager;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.spud.barrage.push.codec.FrameEncoder;
+import com.spud.barrage.push.properties.PushProperties;
+import com.spud.barrage.push.service.TokenService;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+
+/**
+ * 停机排空
+ * 滚动发布时所有客户端同时断开、同时经代理重连，会在代理和Redis上形成尖峰。
+ * 停机时最先执行排空：拒绝新握手，从服务发现中注销，再把会话打散后在时间窗口内分批断开，
+ * 关闭状态为1012(SERVICE_RESTARTED)，原因中携带迁移目标节点"target=host:port"。
+ * 票据绑定了签发节点，目标节点会拒绝原票据，因此断开前先发送一帧RECONNECT，
+ * 携带目标节点地址和为目标节点重新签发的票据，客户端用新票据和resumeFrom直接连接目标节点，
+ * 不必再经过代理；没有可用目标或重签失败时只断开，客户端经代理重连。
+ *
+ * @author Spud
+ * @date 2026/10/16
+ */
+@Slf4j
+@Component
+public class DrainCoordinator implements SmartLifecycle {
+
+  private static final String TARGET_REASON_PREFIX = "target=";
+
+  @Autowired
+  private PushProperties pushProperties;
+
+  @Autowired
+  private WebSocketSessionManager sessionManager;
+
+  @Autowired
+  private HandshakeAdmission admission;
+
+  @Autowired
+  private DiscoveryRegistrar registrar;
+
+  @Autowired
+  private TokenService tokenService;
+
+  @Autowired
+  private FrameEncoder frameEncoder;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  private volatile boolean running;
+
+  private volatile boolean draining;
+
+  @Override
+  public void start() {
+    running = true;
+  }
+
+  @Override
+  public void stop() {
+    try {
+      if (pushProperties.getDrain().isEnabled()) {
+        drain();
+      }
+    } finally {
+      running = false;
+    }
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  /**
+   * 在Web服务器和消息监听容器之前停止
+   */
+  @Override
+  public int getPhase() {
+    return Integer.MAX_VALUE;
+  }
+
+  /**
+   * 排空本节点，阻塞直到所有会话都已请求断开
+   */
+  public synchronized void drain() {
+    if (draining) {
+      return;
+    }
+    draining = true;
+    PushProperties.Drain drain = pushProperties.getDrain();
+
+    admission.startDraining();
+    registrar.deregister();
+
+    List<DiscoveryRegistrar.Target> targets = Collections.emptyList();
+    try {
+      targets = registrar.findTargets(drain.getTargetCount());
+    } catch (Exception e) {
+      log.warn("[排空] 获取迁移目标失败，客户端将经代理重连: error={}", e.getMessage());
+    }
+
+    List<SessionRecord> sessions = sessionManager.getSessions();
+    Collections.shuffle(sessions);
+    long tickMillis = Math.max(1, drain.getTickMillis());
+    long ticks = Math.max(1, drain.getWindowMillis() / tickMillis);
+    int perTick = (int) Math.max(1, (sessions.size() + ticks - 1) / ticks);
+
+    log.info("[排空] 开始排空: sessions={}, windowMillis={}, targets={}", sessions.size(),
+        drain.getWindowMillis(), targets.stream().map(DiscoveryRegistrar.Target::address).toList());
+
+    for (int i = 0; i < sessions.size(); i++) {
+      SessionRecord session = sessions.get(i);
+      if (targets.isEmpty()) {
+        session.getOutbound().requestDisconnect(CloseStatus.SERVICE_RESTARTED);
+      } else {
+        handoff(session, targets.get(i % targets.size()));
+      }
+
+      if ((i + 1) % perTick == 0 && i + 1 < sessions.size()) {
+        try {
+          TimeUnit.MILLISECONDS.sleep(tickMillis);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          log.warn("[排空] 排空被中断，剩余会话立即断开");
+          sessions.subList(i + 1, sessions.size())
+              .forEach(record -> record.getOutbound().requestDisconnect(
+                  CloseStatus.SERVICE_RESTARTED));
+          break;
+        }
+      }
+    }
+
+    log.info("[排空] 排空完成: sessions={}", sessions.size());
+  }
+
+  /**
+   * 发送RECONNECT帧后断开，票据重签失败时直接断开
+   */
+  private void handoff(SessionRecord record, DiscoveryRegistrar.Target target) {
+    CloseStatus status = CloseStatus.SERVICE_RESTARTED.withReason(
+        TARGET_REASON_PREFIX + target.address());
+    String ticket = null;
+    try {
+      Object token = record.getSession().getAttributes().get("token");
+      if (token != null) {
+        ticket = tokenService.reissueTicket(token.toString(), target.id());
+      }
+    } catch (Exception e) {
+      log.warn("[排空] 重签票据失败: sessionId={}, error={}", record.getSession().getId(),
+          e.getMessage());
+    }
+    if (ticket == null) {
+      record.getOutbound().requestDisconnect(status);
+      return;
+    }
+
+    Map<String, Object> reconnect = new LinkedHashMap<>(3);
+    reconnect.put("type", "RECONNECT");
+    reconnect.put("target", target.address());
+    reconnect.put("ticket", ticket);
+    try {
+      record.getOutbound().disconnectAfter(
+          frameEncoder.text(objectMapper.writeValueAsString(reconnect)), status);
+    } catch (JsonProcessingException e) {
+      record.getOutbound().requestDisconnect(status);
+    }
+  }
+}
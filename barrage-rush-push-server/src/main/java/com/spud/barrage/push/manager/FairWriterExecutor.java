@@ -0,0 +1,117 @@
+package com.spud.barrage.push.manager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.spud.barrage.push.util.DeficitRoundRobinQueue;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 按房间公平调度的写执行器
+ * 会话发送任务按所在房间进入差额轮询队列，写线程在有积压的房间之间轮流取任务，每个房间每轮最多执行quantum个任务。
+ * 超级热门房间一次广播会提交与观众数相同的发送任务，原先这些任务在共享的FIFO队列中排在小房间之前；
+ * 现在热门房间只占用一个房间的份额，小房间的排队时延不再随热门房间的负载增长。
+ * 每个房间的排队时延记录为push.broadcast.queue.delay{room}，房间空闲一段时间后移除。
+ *
+ * @author Spud
+ * @date 2026/10/16
+ */
+@Slf4j
+public class FairWriterExecutor {
+
+  private static final String DELAY_METRIC = "push.broadcast.queue.delay";
+
+  private final DeficitRoundRobinQueue<WriterTask> queue;
+
+  private final Thread[] workers;
+
+  private final MeterRegistry meterRegistry;
+
+  /**
+   * 房间排队时延，房间空闲后从注册表中移除，避免房间ID标签无限增长
+   */
+  private final Cache<Long, Timer> delayTimers;
+
+  private volatile boolean shutdown;
+
+  private record WriterTask(long roomId, Runnable task, long enqueuedAt) {
+
+  }
+
+  public FairWriterExecutor(int threads, int quantum, long metricIdleMillis,
+      MeterRegistry meterRegistry) {
+    this.queue = new DeficitRoundRobinQueue<>(quantum);
+    this.meterRegistry = meterRegistry;
+    this.delayTimers = Caffeine.newBuilder()
+        .expireAfterAccess(metricIdleMillis, TimeUnit.MILLISECONDS)
+        .removalListener((Long roomId, Timer timer, RemovalCause cause) -> {
+          if (timer != null) {
+            meterRegistry.remove(timer);
+          }
+        })
+        .build();
+
+    Gauge.builder("push.broadcast.queue.size", queue, DeficitRoundRobinQueue::size)
+        .register(meterRegistry);
+    Gauge.builder("push.broadcast.queue.rooms", queue, DeficitRoundRobinQueue::activeKeys)
+        .register(meterRegistry);
+
+    workers = new Thread[threads];
+    for (int i = 0; i < threads; i++) {
+      workers[i] = new Thread(this::work, "ws-writer-" + (i + 1));
+      workers[i].setDaemon(true);
+      workers[i].start();
+    }
+  }
+
+  /**
+   * 获取绑定到房间的执行器，提交的任务参与该房间的公平调度
+   */
+  public Executor forRoom(long roomId) {
+    return task -> execute(roomId, task);
+  }
+
+  public void execute(long roomId, Runnable task) {
+    if (shutdown) {
+      throw new RejectedExecutionException("writer executor has been shut down");
+    }
+    queue.offer(roomId, new WriterTask(roomId, task, System.nanoTime()));
+  }
+
+  public void shutdown() {
+    shutdown = true;
+    for (Thread worker : workers) {
+      worker.interrupt();
+    }
+  }
+
+  private void work() {
+    while (!shutdown) {
+      WriterTask task;
+      try {
+        task = queue.take();
+      } catch (InterruptedException e) {
+        return;
+      }
+      delayTimer(task.roomId())
+          .record(System.nanoTime() - task.enqueuedAt(), TimeUnit.NANOSECONDS);
+      try {
+        task.task().run();
+      } catch (Throwable e) {
+        log.error("[发送队列] 写任务执行异常: roomId={}", task.roomId(), e);
+      }
+    }
+  }
+
+  private Timer delayTimer(long roomId) {
+    return delayTimers.get(roomId, id -> Timer.builder(DELAY_METRIC)
+        .tag("room", String.valueOf(id))
+        .register(meterRegistry));
+  }
+}
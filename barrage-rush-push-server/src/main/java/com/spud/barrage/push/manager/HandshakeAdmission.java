@@ -0,0 +1,146 @@
+package com.spud.barrage.push.manager;
+
+import com.spud.barrage.push.properties.PushProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * 握手准入控制
+ * 开播、断线重连时握手集中到达，每个握手都要访问Redis校验令牌。准入按令牌桶限制每秒接受的握手数，
+ * 并限制同时校验中的握手数。握手运行在Servlet容器线程上，因此准入从不等待：
+ * 桶中没有令牌或校验中的握手已达上限时立即拒绝，由调用方返回503并带上随机抖动的Retry-After，
+ * 让客户端错开重试，容器线程不会被排队的握手占满，节点平滑降级而不是被打垮。
+ * 停机排空开始后拒绝所有新握手。
+ *
+ * @author Spud
+ * @date 2026/10/16
+ */
+@Slf4j
+@Component
+public class HandshakeAdmission {
+
+  @Autowired
+  private PushProperties pushProperties;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  /**
+   * 校验中的握手
+   */
+  private Semaphore pending;
+
+  /**
+   * 令牌桶按GCRA实现：下一个令牌的理论到达时间(纳秒)
+   */
+  private long theoreticalArrival;
+
+  private long intervalNanos;
+
+  private long burstNanos;
+
+  private volatile boolean draining;
+
+  private Counter admitted;
+
+  private Counter rejected;
+
+  @PostConstruct
+  public void init() {
+    PushProperties.Admission admission = pushProperties.getAdmission();
+    pending = new Semaphore(admission.getMaxPending());
+    intervalNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, admission.getPermitsPerSecond());
+    burstNanos = intervalNanos * Math.max(0, admission.getBurst() - 1);
+    theoreticalArrival = System.nanoTime();
+
+    admitted = Counter.builder("push.handshake.admission").tag("result", "admitted")
+        .register(meterRegistry);
+    rejected = Counter.builder("push.handshake.admission").tag("result", "rejected")
+        .register(meterRegistry);
+    Gauge.builder("push.handshake.pending", this,
+            a -> admission.getMaxPending() - a.pending.availablePermits())
+        .register(meterRegistry);
+
+    log.info("[握手] 准入控制初始化完成: enabled={}, permitsPerSecond={}, burst={}, maxPending={}",
+        admission.isEnabled(), admission.getPermitsPerSecond(), admission.getBurst(),
+        admission.getMaxPending());
+  }
+
+  /**
+   * 申请握手准入，不阻塞当前线程
+   * 返回true时调用方必须在握手校验结束后调用{@link #release()}
+   *
+   * @return 是否准入
+   */
+  public boolean acquire() {
+    if (draining) {
+      rejected.increment();
+      return false;
+    }
+    PushProperties.Admission admission = pushProperties.getAdmission();
+    if (!admission.isEnabled()) {
+      return true;
+    }
+    if (!pending.tryAcquire()) {
+      rejected.increment();
+      return false;
+    }
+
+    if (!tryReserve()) {
+      pending.release();
+      rejected.increment();
+      return false;
+    }
+    admitted.increment();
+    return true;
+  }
+
+  /**
+   * 握手校验结束，释放校验名额
+   */
+  public void release() {
+    if (pushProperties.getAdmission().isEnabled()) {
+      pending.release();
+    }
+  }
+
+  /**
+   * 开始排空，之后的握手全部拒绝
+   */
+  public void startDraining() {
+    draining = true;
+  }
+
+  /**
+   * 拒绝时建议客户端的重试间隔(秒)，在配置范围内随机抖动，避免被拒绝的客户端同时重试
+   */
+  public long retryAfterSeconds() {
+    PushProperties.Admission admission = pushProperties.getAdmission();
+    long min = admission.getRetryAfterMinSeconds();
+    long max = Math.max(min, admission.getRetryAfterMaxSeconds());
+    return ThreadLocalRandom.current().nextLong(min, max + 1);
+  }
+
+  /**
+   * 取一个令牌
+   *
+   * @return 桶中有令牌时取走并返回true，否则不预留并返回false
+   */
+  private synchronized boolean tryReserve() {
+    long now = System.nanoTime();
+    long arrival = Math.max(theoreticalArrival, now);
+    if (arrival - burstNanos > now) {
+      return false;
+    }
+    theoreticalArrival = arrival + intervalNanos;
+    return true;
+  }
+}
@@ -0,0 +1,179 @@
+package com.spud.barrage.push.manager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.spud.barrage.push.constant.ExecutorMode;
+import com.spud.barrage.push.properties.PushProperties;
+import com.spud.barrage.push.util.SerialExecutor;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * 推送服务执行器
+ * 按push.executor.mode创建写线程、处理器回调和广播扇出使用的执行器。
+ * 虚拟线程模式下阻塞的Redis调用和socket发送不再受平台线程池大小限制，
+ * 同一房间的并发发送数由房间信号量限制，热门房间不会占满所有执行资源；
+ * 平台线程模式下写任务按房间公平调度，效果相同。
+ *
+ * @author Spud
+ * @date 2026/10/16
+ */
+@Slf4j
+@Component
+public class PushExecutors {
+
+  @Autowired
+  private PushProperties pushProperties;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  /**
+   * 会话发送队列的写执行器
+   */
+  private ExecutorService writerExecutor;
+
+  /**
+   * 平台线程模式下按房间公平调度的写执行器，未启用时为null
+   */
+  private FairWriterExecutor fairWriterExecutor;
+
+  /**
+   * 处理器回调执行器，平台线程模式下为null，回调在容器线程上执行
+   */
+  private ExecutorService handlerExecutor;
+
+  /**
+   * 广播扇出执行器，按房间分段串行，保证同一房间的广播顺序
+   */
+  private ExecutorService fanoutExecutor;
+
+  private SerialExecutor[] fanoutStripes;
+
+  /**
+   * 房间发送并发信号量，弱引用值，房间内会话全部释放后自动回收
+   */
+  private final Cache<Long, Semaphore> roomPermits = Caffeine.newBuilder()
+      .weakValues()
+      .build();
+
+  @PostConstruct
+  public void init() {
+    PushProperties.Executor executor = pushProperties.getExecutor();
+    if (isVirtual()) {
+      writerExecutor = Executors.newThreadPerTaskExecutor(
+          Thread.ofVirtual().name("ws-writer-", 0).factory());
+      handlerExecutor = Executors.newThreadPerTaskExecutor(
+          Thread.ofVirtual().name("ws-handler-", 0).factory());
+      fanoutExecutor = Executors.newThreadPerTaskExecutor(
+          Thread.ofVirtual().name("ws-fanout-", 0).factory());
+      int stripes = Integer.highestOneBit(Math.max(1, executor.getFanoutStripes() - 1)) << 1;
+      fanoutStripes = new SerialExecutor[stripes];
+      for (int i = 0; i < stripes; i++) {
+        fanoutStripes[i] = new SerialExecutor(fanoutExecutor);
+      }
+
+      log.info("推送执行器初始化完成: mode={}, fanoutStripes={}, roomSendConcurrency={}",
+          executor.getMode(), stripes, executor.getRoomSendConcurrency());
+      return;
+    }
+
+    PushProperties.Outbound outbound = pushProperties.getOutbound();
+    int threads = outbound.getWriterThreads() > 0 ? outbound.getWriterThreads()
+        : Runtime.getRuntime().availableProcessors() * 2;
+    if (executor.isFairScheduling()) {
+      fairWriterExecutor = new FairWriterExecutor(threads, executor.getFairQuantum(),
+          executor.getDelayMetricIdleMillis(), meterRegistry);
+
+      log.info("推送执行器初始化完成: mode={}, writerThreads={}, fairQuantum={}", executor.getMode(),
+          threads, executor.getFairQuantum());
+      return;
+    }
+    AtomicInteger threadIndex = new AtomicInteger();
+    writerExecutor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+        new LinkedBlockingQueue<>(),
+        r -> {
+          Thread t = new Thread(r, "ws-writer-" + threadIndex.incrementAndGet());
+          t.setDaemon(true);
+          return t;
+        });
+
+    log.info("推送执行器初始化完成: mode={}, writerThreads={}", executor.getMode(), threads);
+  }
+
+  @PreDestroy
+  public void destroy() {
+    shutdown(fanoutExecutor);
+    shutdown(handlerExecutor);
+    shutdown(writerExecutor);
+    if (fairWriterExecutor != null) {
+      fairWriterExecutor.shutdown();
+    }
+  }
+
+  public boolean isVirtual() {
+    return pushProperties.getExecutor().getMode() == ExecutorMode.VIRTUAL;
+  }
+
+  /**
+   * 获取房间内会话使用的写执行器，启用公平调度时返回绑定到该房间的执行器
+   */
+  public Executor getWriterExecutor(long roomId) {
+    return fairWriterExecutor != null ? fairWriterExecutor.forRoom(roomId) : writerExecutor;
+  }
+
+  /**
+   * 获取处理器回调执行器，平台线程模式下返回null
+   */
+  public Executor getHandlerExecutor() {
+    return handlerExecutor;
+  }
+
+  /**
+   * 为会话创建串行的回调执行器，平台线程模式下返回null
+   */
+  public Executor newSessionExecutor() {
+    return handlerExecutor != null ? new SerialExecutor(handlerExecutor) : null;
+  }
+
+  /**
+   * 执行房间广播扇出，虚拟线程模式下按房间分段串行执行，平台线程模式下在调用线程执行
+   */
+  public void fanout(long roomId, Runnable task) {
+    if (fanoutStripes == null) {
+      task.run();
+      return;
+    }
+    long h = roomId * 0x9E3779B97F4A7C15L;
+    fanoutStripes[(int) (h >>> 40) & (fanoutStripes.length - 1)].execute(task);
+  }
+
+  /**
+   * 获取房间的发送并发信号量，平台线程模式下返回null（并发由写线程池大小限制）
+   */
+  public Semaphore getRoomPermits(long roomId) {
+    if (!isVirtual()) {
+      return null;
+    }
+    return roomPermits.get(roomId,
+        k -> new Semaphore(pushProperties.getExecutor().getRoomSendConcurrency()));
+  }
+
+  private void shutdown(ExecutorService executor) {
+    if (executor != null) {
+      executor.shutdown();
+    }
+  }
+}
@@ -0,0 +1,236 @@
+package com.spud.barrage.push.manager;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.spud.barrage.common.data.dto.DanmakuMessage;
+import com.spud.barrage.push.codec.BroadcastFrame;
+import com.spud.barrage.push.codec.DanmakuBroadcast;
+import com.spud.barrage.push.codec.FrameEncoder;
+import com.spud.barrage.push.properties.PushProperties;
+import jakarta.annotation.PostConstruct;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * 房间历史弹幕缓存
+ * 本节点正在服务的房间各保留一个有界的最近弹幕环，由广播路径写入；
+ * 进房时下发的HISTORY帧按环的内容编码一次后缓存，环变化后的下一次进房才重新编码。
+ * 只有节点首次服务某个房间时才从Redis加载一次历史。
+ *
+ * @author Spud
+ * @date 2026/10/16
+ */
+@Slf4j
+@Component
+public class RoomHistoryCache {
+
+  @Autowired
+  private PushProperties pushProperties;
+
+  @Autowired
+  private FrameEncoder frameEncoder;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  private Cache<Long, RoomHistory> rooms;
+
+  @PostConstruct
+  public void init() {
+    PushProperties.History history = pushProperties.getHistory();
+    rooms = Caffeine.newBuilder()
+        .maximumSize(history.getMaxRooms())
+        .expireAfterAccess(history.getIdleEvictMillis(), TimeUnit.MILLISECONDS)
+        .removalListener((Long roomId, RoomHistory room, RemovalCause cause) -> {
+          if (room != null) {
+            room.invalidate();
+          }
+        })
+        .build();
+
+    log.info("[弹幕] 房间历史缓存初始化完成: capacity={}, maxRooms={}", history.getCapacity(),
+        history.getMaxRooms());
+  }
+
+  /**
+   * 记录已广播的弹幕，只有本节点正在服务的房间才会保留
+   */
+  public void append(Long roomId, List<DanmakuBroadcast> broadcasts) {
+    RoomHistory room = rooms.getIfPresent(roomId);
+    if (room != null) {
+      room.append(broadcasts);
+    }
+  }
+
+  /**
+   * 获取房间的HISTORY帧，返回的帧引用由调用方持有
+   *
+   * @param loader 节点首次服务该房间时加载历史弹幕（新消息在前）
+   * @return 没有历史弹幕时返回null
+   */
+  public BroadcastFrame historyFrame(Long roomId, Supplier<List<DanmakuMessage>> loader) {
+    RoomHistory room = rooms.get(roomId, id -> new RoomHistory());
+    room.loadIfNeeded(roomId, loader);
+    return room.frame();
+  }
+
+  /**
+   * 获取序号大于resumeFrom的弹幕，用于断线重连续传
+   *
+   * @param loader 节点首次服务该房间时加载历史弹幕（新消息在前）
+   * @return 新消息在前，本地历史环不能完整覆盖缺口时返回null
+   */
+  public List<DanmakuMessage> replay(Long roomId, long resumeFrom,
+      Supplier<List<DanmakuMessage>> loader) {
+    RoomHistory room = rooms.get(roomId, id -> new RoomHistory());
+    room.loadIfNeeded(roomId, loader);
+    return gapAfter(room.messages(), resumeFrom);
+  }
+
+  /**
+   * 从按新消息在前排列的弹幕中截取序号大于resumeFrom的部分
+   * 来源中可能缺少部分弹幕（例如Redis列表只记录本节点WebSocket发布的弹幕，限流房间只保留抽样），
+   * 因此截取的弹幕序号必须逐条连续并与resumeFrom衔接，否则视为无法补齐
+   *
+   * @return 弹幕不能完整覆盖缺口（序号中间有空洞或与resumeFrom不衔接）时返回null
+   */
+  public static List<DanmakuMessage> gapAfter(List<DanmakuMessage> newestFirst,
+      long resumeFrom) {
+    List<DanmakuMessage> gap = new ArrayList<>();
+    long expected = -1;
+    for (DanmakuMessage message : newestFirst) {
+      Long seq = message.getSeq();
+      if (seq == null) {
+        // 没有序号的弹幕无法判断是否连续
+        return null;
+      }
+      if (seq <= resumeFrom) {
+        break;
+      }
+      if (expected >= 0 && seq != expected) {
+        return null;
+      }
+      gap.add(message);
+      expected = seq - 1;
+    }
+    if (gap.isEmpty() || expected == resumeFrom) {
+      return gap;
+    }
+    return null;
+  }
+
+  /**
+   * 单个房间的历史弹幕环，新消息在前
+   */
+  private final class RoomHistory {
+
+    private final Object loadLock = new Object();
+
+    private final ArrayDeque<DanmakuBroadcast> ring = new ArrayDeque<>();
+
+    private volatile boolean loaded;
+
+    private BroadcastFrame frame;
+
+    void append(List<DanmakuBroadcast> broadcasts) {
+      int capacity = pushProperties.getHistory().getCapacity();
+      synchronized (this) {
+        for (DanmakuBroadcast broadcast : broadcasts) {
+          ring.addFirst(broadcast);
+          if (ring.size() > capacity) {
+            ring.removeLast();
+          }
+        }
+        invalidate();
+      }
+    }
+
+    /**
+     * 同一房间并发进房时只有一个会话读取Redis，加载期间广播的弹幕比加载结果更新，保留在前
+     */
+    void loadIfNeeded(Long roomId, Supplier<List<DanmakuMessage>> loader) {
+      if (loaded) {
+        return;
+      }
+      synchronized (loadLock) {
+        if (loaded) {
+          return;
+        }
+        List<DanmakuMessage> messages = loader.get();
+        int capacity = pushProperties.getHistory().getCapacity();
+        synchronized (this) {
+          Set<Long> ids = new HashSet<>();
+          for (DanmakuBroadcast broadcast : ring) {
+            DanmakuMessage message = toMessage(broadcast);
+            if (message != null) {
+              ids.add(message.getId());
+            }
+          }
+          if (messages != null) {
+            for (DanmakuMessage message : messages) {
+              if (ring.size() >= capacity) {
+                break;
+              }
+              if (message.getId() == null || !ids.contains(message.getId())) {
+                ring.addLast(DanmakuBroadcast.of(message));
+              }
+            }
+          }
+          invalidate();
+          loaded = true;
+        }
+        log.debug("[弹幕] 加载房间历史: roomId={}, count={}", roomId, ring.size());
+      }
+    }
+
+    synchronized BroadcastFrame frame() {
+      if (ring.isEmpty()) {
+        return null;
+      }
+      if (frame == null) {
+        frame = frameEncoder.history(messages());
+      }
+      return frame.retain();
+    }
+
+    synchronized List<DanmakuMessage> messages() {
+      List<DanmakuMessage> messages = new ArrayList<>(ring.size());
+      for (DanmakuBroadcast broadcast : ring) {
+        DanmakuMessage message = toMessage(broadcast);
+        if (message != null) {
+          messages.add(message);
+        }
+      }
+      return messages;
+    }
+
+    /**
+     * 丢弃缓存的帧，已取得引用的会话不受影响
+     */
+    synchronized void invalidate() {
+      if (frame != null) {
+        frame.release();
+        frame = null;
+      }
+    }
+
+    private DanmakuMessage toMessage(DanmakuBroadcast broadcast) {
+      try {
+        return broadcast.toMessage(objectMapper);
+      } catch (Exception e) {
+        log.warn("[弹幕] 历史弹幕解析失败，已跳过: roomId={}", broadcast.getRoomId());
+        return null;
+      }
+    }
+  }
+}
@@ -0,0 +1,152 @@
+package com.spud.barrage.push.manager;
+
+import com.spud.barrage.push.constant.WebSocketType;
+import com.spud.barrage.push.properties.PushProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.Binding.DestinationType;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.rabbit.connection.Connection;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionListener;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 房间订阅管理
+ * 本节点某个房间的第一个弹幕会话加入时，把房间路由键绑定到本节点的订阅队列，
+ * 最后一个会话离开并经过一段宽限期后解除绑定，节点只接收自己正在服务的房间的弹幕。
+ * 绑定操作在单独的线程上按注册表的实际状态执行，会话的加入和离开乱序到达也不会留下错误的绑定。
+ *
+ * @author Spud
+ * @date 2026/10/16
+ */
+@Slf4j
+@Component
+public class RoomSubscriptionManager {
+
+  @Autowired
+  private AmqpAdmin amqpAdmin;
+
+  @Autowired
+  private ConnectionFactory connectionFactory;
+
+  @Autowired
+  @Qualifier("danmakuSubscriptionQueue")
+  private Queue subscriptionQueue;
+
+  @Autowired
+  private PushProperties pushProperties;
+
+  @Value("${barrage.mq.danmaku-exchange:danmaku.exchange}")
+  private String danmakuExchange;
+
+  @Value("${barrage.mq.danmaku-room-routing-key:danmaku.room.%d}")
+  private String roomRoutingKey;
+
+  /**
+   * 已绑定的房间，只由订阅线程修改
+   */
+  private final Set<Long> boundRooms = ConcurrentHashMap.newKeySet();
+
+  private SessionRegistry registry;
+
+  private ScheduledExecutorService executor;
+
+  @PostConstruct
+  public void init() {
+    executor = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread t = new Thread(r, "room-subscription");
+      t.setDaemon(true);
+      return t;
+    });
+
+    // 临时队列随连接断开被删除，重连后RabbitAdmin会重新声明队列，这里补回房间绑定
+    connectionFactory.addConnectionListener(new ConnectionListener() {
+      @Override
+      public void onCreate(Connection connection) {
+        executor.execute(RoomSubscriptionManager.this::rebindAll);
+      }
+    });
+
+    log.info("[订阅] 房间订阅初始化完成: queue={}, unbindDelay={}ms",
+        subscriptionQueue.getName(), pushProperties.getSubscription().getUnbindDelayMillis());
+  }
+
+  @PreDestroy
+  public void destroy() {
+    if (executor != null) {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * 关联会话注册表，以弹幕连接判断房间是否仍在服务
+   */
+  void attach(SessionRegistry registry) {
+    this.registry = registry;
+  }
+
+  /**
+   * 房间的第一个会话已加入
+   */
+  public void onFirstSession(String type, long roomId) {
+    if (WebSocketType.DANMAKU.equals(type)) {
+      executor.execute(() -> reconcile(roomId));
+    }
+  }
+
+  /**
+   * 房间的最后一个会话已离开，宽限期后仍无会话才解除绑定，避免频繁进出的房间反复绑定
+   */
+  public void onLastSession(String type, long roomId) {
+    if (WebSocketType.DANMAKU.equals(type)) {
+      executor.schedule(() -> reconcile(roomId),
+          pushProperties.getSubscription().getUnbindDelayMillis(), TimeUnit.MILLISECONDS);
+    }
+  }
+
+  private void reconcile(long roomId) {
+    boolean serving = registry.roomSize(WebSocketType.DANMAKU, roomId) > 0;
+    try {
+      if (serving && !boundRooms.contains(roomId)) {
+        amqpAdmin.declareBinding(binding(roomId));
+        boundRooms.add(roomId);
+        log.debug("[订阅] 绑定房间: roomId={}", roomId);
+      } else if (!serving && boundRooms.contains(roomId)) {
+        amqpAdmin.removeBinding(binding(roomId));
+        boundRooms.remove(roomId);
+        log.debug("[订阅] 解除房间绑定: roomId={}", roomId);
+      }
+    } catch (Exception e) {
+      // 连接恢复后会整体重新绑定
+      log.warn("[订阅] 更新房间绑定失败: roomId={}, error={}", roomId, e.getMessage());
+    }
+  }
+
+  private void rebindAll() {
+    if (registry == null) {
+      return;
+    }
+    boundRooms.clear();
+    for (Long roomId : registry.roomIds(WebSocketType.DANMAKU)) {
+      reconcile(roomId);
+    }
+    log.info("[订阅] 重新绑定房间: count={}", boundRooms.size());
+  }
+
+  private Binding binding(long roomId) {
+    return new Binding(subscriptionQueue.getName(), DestinationType.QUEUE, danmakuExchange,
+        String.format(roomRoutingKey, roomId), null);
+  }
+}
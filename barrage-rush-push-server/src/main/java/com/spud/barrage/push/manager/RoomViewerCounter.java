@@ -0,0 +1,222 @@
+package com.spud.barrage.push.manager;
+
+import com.spud.barrage.push.constant.WebSocketType;
+import com.spud.barrage.push.properties.PushProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+/**
+ * 房间观众数上报
+ * 注册、注销会话时只标记房间，房间内的会话数直接取自会话注册表；
+ * 每个上报周期把有变化的房间用一次pipeline写入Redis，每个节点的贡献是带过期时间的哈希字段，
+ * 节点宕机后其贡献自动过期，房间总数由脚本按存活节点的贡献汇总写入room:viewers。
+ *
+ * @author Spud
+ * @date 2026/10/16
+ */
+@Slf4j
+@Component
+public class RoomViewerCounter {
+
+  /**
+   * 房间观众数键，与MqConstants.RedisKey.ROOM_VIEWERS保持一致
+   */
+  private static final String ROOM_VIEWERS_KEY = "room:viewers:%d";
+
+  /**
+   * 各节点观众数贡献的哈希键
+   */
+  private static final String ROOM_VIEWERS_INSTANCES_KEY = "room:viewers:%d:instances";
+
+  // 使用HSET + HEXPIRE记录本节点贡献，再按存活字段汇总总数
+  private static final String REPORT_SCRIPT_STR = """
+      if tonumber(ARGV[2]) > 0 then
+        redis.call('HSET', KEYS[2], ARGV[1], ARGV[2])
+        redis.call('HEXPIRE', KEYS[2], ARGV[3], 'FIELDS', 1, ARGV[1])
+      else
+        redis.call('HDEL', KEYS[2], ARGV[1])
+      end
+      local total = 0
+      for _, value in ipairs(redis.call('HVALS', KEYS[2])) do
+        total = total + tonumber(value)
+      end
+      if total > 0 then
+        redis.call('SET', KEYS[1], total, 'EX', ARGV[3])
+      else
+        redis.call('DEL', KEYS[1])
+      end
+      return total""";
+
+  private static final DefaultRedisScript<Long> REPORT_SCRIPT = new DefaultRedisScript<>(
+      REPORT_SCRIPT_STR, Long.class);
+
+  @Autowired
+  private PushProperties pushProperties;
+
+  @Autowired
+  private RedisTemplate<String, String> redisTemplate;
+
+  @Value("${push.server.host:localhost}:${push.server.port:8083}")
+  private String instanceId;
+
+  /**
+   * 上次上报后会话数有变化的房间
+   */
+  private final Set<Long> dirtyRooms = ConcurrentHashMap.newKeySet();
+
+  /**
+   * 已上报的观众数，只由上报线程访问
+   */
+  private final Map<Long, Integer> reported = new HashMap<>();
+
+  private SessionRegistry registry;
+
+  private ScheduledExecutorService scheduler;
+
+  private long lastRefreshAt;
+
+  @PostConstruct
+  public void init() {
+    scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread t = new Thread(r, "room-viewer-report");
+      t.setDaemon(true);
+      return t;
+    });
+    long interval = pushProperties.getViewers().getFlushIntervalMillis();
+    scheduler.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.MILLISECONDS);
+
+    log.info("[房间] 观众数上报初始化完成: instance={}, interval={}ms, ttl={}s", instanceId,
+        interval, pushProperties.getViewers().getTtlSeconds());
+  }
+
+  @PreDestroy
+  public void destroy() {
+    if (scheduler == null) {
+      return;
+    }
+    scheduler.shutdown();
+    try {
+      scheduler.awaitTermination(1, TimeUnit.SECONDS);
+      // 主动撤回本节点的贡献，不必等待过期
+      report(new ArrayList<>(reported.keySet()), roomId -> 0);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (Exception e) {
+      log.warn("[房间] 撤回观众数失败: {}", e.getMessage());
+    }
+  }
+
+  /**
+   * 关联会话注册表，观众数按弹幕连接统计
+   */
+  void attach(SessionRegistry registry) {
+    this.registry = registry;
+  }
+
+  /**
+   * 标记房间会话数已变化
+   */
+  public void markDirty(String type, long roomId) {
+    if (WebSocketType.DANMAKU.equals(type)) {
+      dirtyRooms.add(roomId);
+    }
+  }
+
+  private void flush() {
+    try {
+      if (registry == null) {
+        return;
+      }
+      Set<Long> rooms = new HashSet<>();
+      for (Long roomId : dirtyRooms) {
+        dirtyRooms.remove(roomId);
+        rooms.add(roomId);
+      }
+
+      // 定期刷新所有房间的贡献，避免未变化的房间过期
+      long now = System.currentTimeMillis();
+      if (now - lastRefreshAt >= pushProperties.getViewers().getTtlSeconds() * 1000L / 3) {
+        lastRefreshAt = now;
+        rooms.addAll(reported.keySet());
+      }
+      if (rooms.isEmpty()) {
+        return;
+      }
+
+      report(rooms, roomId -> registry.roomSize(WebSocketType.DANMAKU, roomId));
+    } catch (Exception e) {
+      log.warn("[房间] 上报观众数失败: {}", e.getMessage());
+    }
+  }
+
+  /**
+   * 用一次pipeline上报多个房间，脚本未加载时加载后重试一次
+   */
+  private void report(Collection<Long> rooms, ToIntFunction<Long> viewersOf) {
+    if (rooms.isEmpty()) {
+      return;
+    }
+    Map<Long, Integer> counts = new HashMap<>(rooms.size() * 2);
+    for (Long roomId : rooms) {
+      counts.put(roomId, viewersOf.applyAsInt(roomId));
+    }
+
+    try {
+      executeReport(counts);
+    } catch (Exception e) {
+      if (!String.valueOf(e.getMessage()).contains("NOSCRIPT")) {
+        throw e;
+      }
+      redisTemplate.execute((RedisCallback<String>) connection -> connection.scriptingCommands()
+          .scriptLoad(bytes(REPORT_SCRIPT.getScriptAsString())));
+      executeReport(counts);
+    }
+
+    counts.forEach((roomId, viewers) -> {
+      if (viewers > 0) {
+        reported.put(roomId, viewers);
+      } else {
+        reported.remove(roomId);
+      }
+    });
+    log.debug("[房间] 上报观众数: rooms={}", counts.size());
+  }
+
+  private void executeReport(Map<Long, Integer> counts) {
+    byte[] instance = bytes(instanceId);
+    byte[] ttl = bytes(String.valueOf(pushProperties.getViewers().getTtlSeconds()));
+    String sha = REPORT_SCRIPT.getSha1();
+    redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+      counts.forEach((roomId, viewers) -> connection.scriptingCommands().evalSha(sha,
+          ReturnType.INTEGER, 2,
+          bytes(String.format(ROOM_VIEWERS_KEY, roomId)),
+          bytes(String.format(ROOM_VIEWERS_INSTANCES_KEY, roomId)),
+          instance, bytes(String.valueOf(viewers)), ttl));
+      return null;
+    });
+  }
+
+  private static byte[] bytes(String value) {
+    return value.getBytes(StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,193 @@
+package com.spud.barrage.push.manager;
+
+import com.spud.barrage.push.constant.WebSocketType;
+import com.spud.barrage.push.properties.PushProperties;
+import com.spud.barrage.push.util.HashedTimingWheel;
+import com.spud.barrage.push.util.RedisBatchUtil;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisStringCommands.SetOption;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+
+/**
+ * 会话空闲检测
+ * 每个会话在时间轮中只有一个条目，客户端消息只更新会话记录的最后活动时间；
+ * 条目到期时按最后活动时间判断，仍活跃的会话重新调度到新的到期时间，超时的会话主动断开。
+ * 只有心跳连接和多路复用连接会收到客户端心跳，只接收下行的弹幕、CDN连接不做空闲检测。
+ * 在线状态不再按会话写Redis，而是定期用一次pipeline上报本节点在线数和在线用户的HyperLogLog。
+ *
+ * @author Spud
+ * @date 2026/10/16
+ */
+@Slf4j
+@Component
+public class SessionIdleMonitor {
+
+  /**
+   * 心跳超时关闭状态
+   */
+  private static final CloseStatus IDLE_TIMEOUT = CloseStatus.SESSION_NOT_RELIABLE
+      .withReason("heartbeat timeout");
+
+  /**
+   * 在线用户HyperLogLog的统计窗口(毫秒)
+   */
+  private static final long ONLINE_USERS_WINDOW_MILLIS = 60_000;
+
+  @Autowired
+  private PushProperties pushProperties;
+
+  @Autowired
+  private RedisTemplate<String, String> redisTemplate;
+
+  @Value("${push.server.host:localhost}:${push.server.port:8083}")
+  private String instanceId;
+
+  private HashedTimingWheel<SessionRecord> wheel;
+
+  private ScheduledExecutorService scheduler;
+
+  private long timeoutMillis;
+
+  @PostConstruct
+  public void init() {
+    PushProperties.Heartbeat heartbeat = pushProperties.getHeartbeat();
+    timeoutMillis = heartbeat.getTimeout();
+    wheel = new HashedTimingWheel<>(heartbeat.getWheelTickMillis(), timeoutMillis,
+        System.currentTimeMillis());
+
+    scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread t = new Thread(r, "session-idle-wheel");
+      t.setDaemon(true);
+      return t;
+    });
+    scheduler.scheduleAtFixedRate(this::tick, heartbeat.getWheelTickMillis(),
+        heartbeat.getWheelTickMillis(), TimeUnit.MILLISECONDS);
+    scheduler.scheduleAtFixedRate(this::reportPresence, heartbeat.getPresenceIntervalMillis(),
+        heartbeat.getPresenceIntervalMillis(), TimeUnit.MILLISECONDS);
+
+    log.info("[心跳] 空闲检测初始化完成: timeout={}ms, tick={}ms, presenceInterval={}ms",
+        timeoutMillis, heartbeat.getWheelTickMillis(), heartbeat.getPresenceIntervalMillis());
+  }
+
+  @PreDestroy
+  public void destroy() {
+    if (scheduler != null) {
+      scheduler.shutdown();
+    }
+  }
+
+  /**
+   * 开始监测会话，注册会话时调用一次，不承载心跳的会话直接忽略
+   */
+  public void watch(SessionRecord record) {
+    if (!isWatched(record)) {
+      return;
+    }
+    wheel.schedule(record, record.getLastActiveAt() + timeoutMillis);
+  }
+
+  /**
+   * 是否需要空闲检测：心跳连接和多路复用连接
+   */
+  static boolean isWatched(SessionRecord record) {
+    return WebSocketType.HEARTBEAT.equals(record.getType()) || record.isMultiplexed();
+  }
+
+  private void tick() {
+    tick(System.currentTimeMillis());
+  }
+
+  /**
+   * 推进时间轮到指定时间
+   */
+  void tick(long now) {
+    try {
+      wheel.advance(now, record -> onExpired(record, now));
+    } catch (Exception e) {
+      log.error("[心跳] 空闲检测异常", e);
+    }
+  }
+
+  /**
+   * 条目到期，已关闭的会话直接丢弃，仍活跃的会话按最后活动时间重新调度
+   */
+  private void onExpired(SessionRecord record, long now) {
+    if (!record.getSession().isOpen()) {
+      return;
+    }
+    long deadline = record.getLastActiveAt() + timeoutMillis;
+    if (deadline > now) {
+      wheel.schedule(record, deadline);
+      return;
+    }
+
+    log.debug("[心跳] 会话心跳超时，断开连接: sessionId={}, roomId={}, userId={}",
+        record.getSession().getId(), record.getRoomId(), record.getUserId());
+    record.getOutbound().requestDisconnect(IDLE_TIMEOUT);
+  }
+
+  /**
+   * 上报本节点在线数和在线用户
+   */
+  private void reportPresence() {
+    try {
+      int[] online = new int[1];
+      Set<Long> userIds = new HashSet<>();
+      wheel.forEach(record -> {
+        if (record.getSession().isOpen()) {
+          online[0]++;
+          if (record.getUserId() != SessionRecord.ANONYMOUS_USER) {
+            userIds.add(record.getUserId());
+          }
+        }
+      });
+
+      PushProperties.Heartbeat heartbeat = pushProperties.getHeartbeat();
+      String prefix = heartbeat.getRedisKeyPrefix();
+      byte[] instanceKey = bytes(prefix + "instance:" + instanceId);
+      byte[] count = bytes(String.valueOf(online[0]));
+      // 在线数的过期时间覆盖若干个上报周期，节点宕机后自动消失
+      long ttlSeconds = Math.max(1, heartbeat.getPresenceIntervalMillis() * 3 / 1000);
+      byte[] usersKey = bytes(prefix + "online:users:"
+          + System.currentTimeMillis() / ONLINE_USERS_WINDOW_MILLIS);
+      List<byte[][]> batches = RedisBatchUtil.pfAddBatches(userIds);
+
+      redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+        connection.stringCommands().set(instanceKey, count, Expiration.seconds(ttlSeconds),
+            SetOption.upsert());
+        for (byte[][] batch : batches) {
+          connection.hyperLogLogCommands().pfAdd(usersKey, batch);
+        }
+        if (!batches.isEmpty()) {
+          connection.keyCommands()
+              .expire(usersKey, ONLINE_USERS_WINDOW_MILLIS / 1000 * 5);
+        }
+        return null;
+      });
+
+      log.debug("[心跳] 上报在线状态: instance={}, online={}, users={}", instanceId, online[0],
+          userIds.size());
+    } catch (Exception e) {
+      log.warn("[心跳] 上报在线状态失败: {}", e.getMessage());
+    }
+  }
+
+  private static byte[] bytes(String value) {
+    return value.getBytes(StandardCharsets.UTF_8);
+  }
+}
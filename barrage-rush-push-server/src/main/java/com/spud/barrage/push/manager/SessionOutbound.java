@@ -0,0 +1,297 @@
+package com.spud.barrage.push.manager;
+
+import com.spud.barrage.push.codec.BroadcastFrame;
+import com.spud.barrage.push.constant.OverflowPolicy;
+import com.spud.barrage.push.constant.WireProtocol;
+import java.io.IOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+/**
+ * 会话发送队列
+ * 每个会话持有一个有界队列，由写线程池异步发送，调用方入队后立即返回。
+ * 同一时刻最多只有一个写线程在处理某个会话，保证消息顺序且不会并发写同一连接。
+ * 队列中的每个帧都持有一个引用，发送、丢弃或清空后释放。
+ *
+ * @author Spud
+ * @date 2026/10/16
+ */
+@Slf4j
+public class SessionOutbound implements Runnable {
+
+  private final WebSocketSession session;
+
+  private final WireProtocol protocol;
+
+  private final BlockingQueue<BroadcastFrame> queue;
+
+  private final OverflowPolicy overflowPolicy;
+
+  private final Executor writerExecutor;
+
+  private final int drainBatchSize;
+
+  /**
+   * 所在房间的发送并发信号量，为null时不限制
+   */
+  private final Semaphore roomPermits;
+
+  /**
+   * 是否已提交到写线程池
+   */
+  private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+  /**
+   * 待断开连接的关闭状态（DISCONNECT策略或空闲检测触发），为null表示无需断开
+   */
+  private volatile CloseStatus disconnectStatus;
+
+  /**
+   * 队列发送完后断开连接的关闭状态，为null表示无需断开
+   */
+  private volatile CloseStatus closeAfterSend;
+
+  /**
+   * 丢弃的消息数
+   */
+  private final AtomicLong droppedCount = new AtomicLong();
+
+  public SessionOutbound(WebSocketSession session, WireProtocol protocol, int capacity,
+      OverflowPolicy overflowPolicy, Executor writerExecutor, int drainBatchSize,
+      Semaphore roomPermits) {
+    this.session = session;
+    this.protocol = protocol;
+    this.queue = new LinkedBlockingQueue<>(capacity);
+    this.overflowPolicy = overflowPolicy;
+    this.writerExecutor = writerExecutor;
+    this.drainBatchSize = Math.max(1, drainBatchSize);
+    this.roomPermits = roomPermits;
+  }
+
+  /**
+   * 帧入队，不阻塞调用线程
+   * 调用方持有的一个帧引用转交给发送队列，未入队时立即释放
+   *
+   * @return 帧是否成功入队
+   */
+  public boolean offer(BroadcastFrame frame) {
+    if (disconnectStatus != null || closeAfterSend != null || !session.isOpen()) {
+      frame.release();
+      return false;
+    }
+
+    boolean accepted = queue.offer(frame);
+    if (!accepted) {
+      accepted = handleOverflow(frame);
+      if (!accepted) {
+        frame.release();
+      }
+    }
+
+    schedule();
+    return accepted;
+  }
+
+  /**
+   * 处理队列溢出
+   */
+  private boolean handleOverflow(BroadcastFrame frame) {
+    long dropped = droppedCount.incrementAndGet();
+    if (dropped == 1) {
+      log.warn("[发送队列] 会话发送队列已满: sessionId={}, policy={}", session.getId(),
+          overflowPolicy);
+    }
+
+    switch (overflowPolicy) {
+      case DROP_OLDEST:
+        // 丢弃最旧的消息后重试，重试仍失败说明并发写入过多，直接丢弃当前消息
+        release(queue.poll());
+        return queue.offer(frame);
+      case DISCONNECT:
+        log.warn("[发送队列] 客户端消费过慢，断开连接: sessionId={}", session.getId());
+        requestDisconnect(CloseStatus.SESSION_NOT_RELIABLE);
+        return false;
+      case DROP_NEWEST:
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * 提交到写线程池，已提交时不重复提交
+   */
+  private void schedule() {
+    if (scheduled.compareAndSet(false, true)) {
+      try {
+        writerExecutor.execute(this);
+      } catch (RejectedExecutionException e) {
+        scheduled.set(false);
+        log.error("[发送队列] 写线程池拒绝任务: sessionId={}", session.getId());
+      }
+    }
+  }
+
+  @Override
+  public void run() {
+    try {
+      CloseStatus status = disconnectStatus;
+      if (status != null) {
+        closeSession(status);
+        return;
+      }
+
+      if (!acquireRoomPermit()) {
+        return;
+      }
+      try {
+        drain();
+      } finally {
+        if (roomPermits != null) {
+          roomPermits.release();
+        }
+      }
+
+      CloseStatus after = closeAfterSend;
+      if (after != null && queue.isEmpty()) {
+        closeSession(after);
+        return;
+      }
+    } finally {
+      scheduled.set(false);
+    }
+
+    if ((!queue.isEmpty() || disconnectStatus != null) && session.isOpen()) {
+      schedule();
+    }
+  }
+
+  /**
+   * 每次最多发送一批，剩余的重新排队，让其他会话也能得到调度
+   */
+  private void drain() {
+    for (int i = 0; i < drainBatchSize; i++) {
+      BroadcastFrame frame = queue.poll();
+      if (frame == null) {
+        break;
+      }
+      boolean sent;
+      try {
+        sent = send(frame.messageFor(protocol));
+      } finally {
+        frame.release();
+      }
+      if (!sent) {
+        clear();
+        return;
+      }
+    }
+  }
+
+  /**
+   * 获取房间发送许可，同一房间同时发送的会话数受限，热门房间不会占满所有写线程
+   */
+  private boolean acquireRoomPermit() {
+    if (roomPermits == null) {
+      return true;
+    }
+    try {
+      roomPermits.acquire();
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  private boolean send(WebSocketMessage<?> message) {
+    if (!session.isOpen()) {
+      return false;
+    }
+    if (message == null) {
+      // 编码失败已记录日志，跳过该帧
+      return true;
+    }
+    try {
+      session.sendMessage(message);
+      return true;
+    } catch (IOException | IllegalStateException e) {
+      log.warn("[发送队列] 发送消息失败: sessionId={}, error={}", session.getId(), e.getMessage());
+      return false;
+    }
+  }
+
+  private void closeSession(CloseStatus status) {
+    clear();
+    if (!session.isOpen()) {
+      return;
+    }
+    try {
+      log.debug("[发送队列] 断开连接: sessionId={}, status={}, dropped={}", session.getId(),
+          status, droppedCount.get());
+      session.close(status);
+    } catch (IOException e) {
+      log.error("[发送队列] 断开连接失败: sessionId={}", session.getId(), e);
+    }
+  }
+
+  /**
+   * 请求断开连接，丢弃未发送的消息，由写线程执行关闭，调用线程不会被关闭帧的发送阻塞
+   */
+  public void requestDisconnect(CloseStatus status) {
+    if (disconnectStatus == null) {
+      disconnectStatus = status;
+    }
+    clear();
+    schedule();
+  }
+
+  /**
+   * 发送最后一帧后断开连接，丢弃尚未发送的消息，之后的消息不再入队
+   * 调用方持有的帧引用转交给发送队列
+   */
+  public void disconnectAfter(BroadcastFrame frame, CloseStatus status) {
+    closeAfterSend = status;
+    clear();
+    if (!queue.offer(frame)) {
+      frame.release();
+    }
+    schedule();
+  }
+
+  /**
+   * 关闭发送队列，丢弃未发送的消息
+   */
+  public void close() {
+    clear();
+  }
+
+  private void clear() {
+    BroadcastFrame frame;
+    while ((frame = queue.poll()) != null) {
+      frame.release();
+    }
+  }
+
+  private void release(BroadcastFrame frame) {
+    if (frame != null) {
+      frame.release();
+    }
+  }
+
+  public int size() {
+    return queue.size();
+  }
+
+  public long getDroppedCount() {
+    return droppedCount.get();
+  }
+}
@@ -0,0 +1,82 @@
+package com.spud.barrage.push.manager;
+
+import com.spud.barrage.push.constant.WireProtocol;
+import lombok.Getter;
+import org.springframework.web.socket.WebSocketSession;
+
+/**
+ * 会话记录
+ * 每个连接对应一条紧凑记录，房间ID和用户ID以原始long保存，替代原先多张按会话ID索引的反向映射表。
+ *
+ * @author Spud
+ * @date 2026/10/16
+ */
+@Getter
+public class SessionRecord {
+
+  /**
+   * 会话属性中保存记录的键
+   */
+  public static final String ATTRIBUTE = "sessionRecord";
+
+  /**
+   * 匿名用户ID，不进入用户索引
+   */
+  public static final long ANONYMOUS_USER = 0L;
+
+  private final WebSocketSession session;
+
+  private final SessionOutbound outbound;
+
+  private final String type;
+
+  private final long roomId;
+
+  private final long userId;
+
+  /**
+   * 握手时协商的帧编码协议
+   */
+  private final WireProtocol protocol;
+
+  /**
+   * 是否为多路复用连接，同一连接同时承载弹幕、心跳和CDN通道
+   */
+  private final boolean multiplexed;
+
+  /**
+   * 在房间成员数组中的下标，由所在分段的锁保护
+   */
+  int roomSlot = -1;
+
+  /**
+   * 最后一次收到客户端消息的时间，用于空闲检测
+   */
+  private volatile long lastActiveAt = System.currentTimeMillis();
+
+  public SessionRecord(WebSocketSession session, SessionOutbound outbound, String type,
+      long roomId, long userId, WireProtocol protocol, boolean multiplexed) {
+    this.session = session;
+    this.outbound = outbound;
+    this.type = type;
+    this.roomId = roomId;
+    this.userId = userId;
+    this.protocol = protocol;
+    this.multiplexed = multiplexed;
+  }
+
+  /**
+   * 记录客户端活动
+   */
+  public void touch() {
+    lastActiveAt = System.currentTimeMillis();
+  }
+
+  /**
+   * 从会话属性中获取记录
+   */
+  public static SessionRecord of(WebSocketSession session) {
+    Object record = session.getAttributes().get(ATTRIBUTE);
+    return record instanceof SessionRecord ? (SessionRecord) record : null;
+  }
+}
@@ -0,0 +1,294 @@
+package com.spud.barrage.push.manager;
+
+import com.spud.barrage.push.util.LongObjectMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * 会话注册表
+ * 房间和用户索引均按ID哈希分段，每个分段持有一张long键的开放寻址表和一把独立的锁，
+ * 注册、注销和遍历只锁定所在分段，不会竞争全局结构。
+ *
+ * @author Spud
+ * @date 2026/10/16
+ */
+public class SessionRegistry {
+
+  private static final SessionRecord[] EMPTY = new SessionRecord[0];
+
+  private final int stripeCount;
+
+  /**
+   * 按连接类型划分的房间索引，类型数量很少
+   */
+  private final Map<String, Stripe<RoomSessions>[]> roomIndexes = new ConcurrentHashMap<>();
+
+  /**
+   * 用户索引：用户ID -> 会话记录数组
+   */
+  private final Stripe<SessionRecord[]>[] userIndex;
+
+  private final AtomicInteger sessionCount = new AtomicInteger();
+
+  public SessionRegistry(int stripes) {
+    this.stripeCount = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+    this.userIndex = newStripes();
+  }
+
+  /**
+   * 注册会话
+   *
+   * @return 该会话是否为本节点该房间的第一个会话
+   */
+  public boolean register(SessionRecord record) {
+    boolean firstInRoom;
+    Stripe<RoomSessions> roomStripe = stripe(roomIndex(record.getType()), record.getRoomId());
+    synchronized (roomStripe) {
+      RoomSessions room = roomStripe.map.get(record.getRoomId());
+      if (room == null) {
+        room = new RoomSessions();
+        roomStripe.map.put(record.getRoomId(), room);
+      }
+      firstInRoom = room.size == 0;
+      room.add(record);
+    }
+
+    if (record.getUserId() != SessionRecord.ANONYMOUS_USER) {
+      Stripe<SessionRecord[]> userStripe = stripe(userIndex, record.getUserId());
+      synchronized (userStripe) {
+        SessionRecord[] sessions = userStripe.map.get(record.getUserId());
+        if (sessions == null) {
+          userStripe.map.put(record.getUserId(), new SessionRecord[]{record});
+        } else {
+          SessionRecord[] grown = Arrays.copyOf(sessions, sessions.length + 1);
+          grown[sessions.length] = record;
+          userStripe.map.put(record.getUserId(), grown);
+        }
+      }
+    }
+
+    sessionCount.incrementAndGet();
+    return firstInRoom;
+  }
+
+  /**
+   * 注销会话
+   *
+   * @return 该会话是否为本节点该房间的最后一个会话
+   */
+  public boolean unregister(SessionRecord record) {
+    boolean lastInRoom = false;
+    boolean removed = false;
+    Stripe<RoomSessions> roomStripe = stripe(roomIndex(record.getType()), record.getRoomId());
+    synchronized (roomStripe) {
+      RoomSessions room = roomStripe.map.get(record.getRoomId());
+      if (room != null && room.remove(record)) {
+        removed = true;
+        if (room.size == 0) {
+          roomStripe.map.remove(record.getRoomId());
+          lastInRoom = true;
+        }
+      }
+    }
+
+    if (record.getUserId() != SessionRecord.ANONYMOUS_USER) {
+      Stripe<SessionRecord[]> userStripe = stripe(userIndex, record.getUserId());
+      synchronized (userStripe) {
+        SessionRecord[] sessions = userStripe.map.get(record.getUserId());
+        if (sessions != null) {
+          SessionRecord[] remaining = without(sessions, record);
+          if (remaining.length == 0) {
+            userStripe.map.remove(record.getUserId());
+          } else if (remaining != sessions) {
+            userStripe.map.put(record.getUserId(), remaining);
+          }
+        }
+      }
+    }
+
+    if (removed) {
+      sessionCount.decrementAndGet();
+    }
+    return lastInRoom;
+  }
+
+  /**
+   * 遍历房间内的会话
+   * 在分段锁内取得成员快照后释放锁再遍历，广播期间不阻塞注册和注销
+   */
+  public void forEachInRoom(String type, long roomId, Consumer<SessionRecord> action) {
+    SessionRecord[] members = roomMembers(type, roomId);
+    for (SessionRecord record : members) {
+      action.accept(record);
+    }
+  }
+
+  /**
+   * 遍历用户的所有会话
+   */
+  public void forEachOfUser(long userId, Consumer<SessionRecord> action) {
+    SessionRecord[] sessions;
+    Stripe<SessionRecord[]> userStripe = stripe(userIndex, userId);
+    synchronized (userStripe) {
+      sessions = userStripe.map.get(userId);
+    }
+    if (sessions != null) {
+      for (SessionRecord record : sessions) {
+        action.accept(record);
+      }
+    }
+  }
+
+  /**
+   * 遍历所有会话，逐个分段取快照
+   */
+  public void forEach(Consumer<SessionRecord> action) {
+    for (Stripe<RoomSessions>[] stripes : roomIndexes.values()) {
+      for (Stripe<RoomSessions> roomStripe : stripes) {
+        List<SessionRecord[]> rooms = new ArrayList<>();
+        synchronized (roomStripe) {
+          roomStripe.map.forEachValue(room -> rooms.add(room.snapshot()));
+        }
+        for (SessionRecord[] members : rooms) {
+          for (SessionRecord record : members) {
+            action.accept(record);
+          }
+        }
+      }
+    }
+  }
+
+  public int roomSize(String type, long roomId) {
+    Stripe<RoomSessions> roomStripe = stripe(roomIndex(type), roomId);
+    synchronized (roomStripe) {
+      RoomSessions room = roomStripe.map.get(roomId);
+      return room == null ? 0 : room.size;
+    }
+  }
+
+  public int userSessionCount(long userId) {
+    Stripe<SessionRecord[]> userStripe = stripe(userIndex, userId);
+    synchronized (userStripe) {
+      SessionRecord[] sessions = userStripe.map.get(userId);
+      return sessions == null ? 0 : sessions.length;
+    }
+  }
+
+  /**
+   * 获取指定类型下有会话的房间ID快照
+   */
+  public Set<Long> roomIds(String type) {
+    Set<Long> roomIds = new HashSet<>();
+    for (Stripe<RoomSessions> roomStripe : roomIndex(type)) {
+      synchronized (roomStripe) {
+        roomStripe.map.forEachKey(roomIds::add);
+      }
+    }
+    return roomIds;
+  }
+
+  public int size() {
+    return sessionCount.get();
+  }
+
+  private SessionRecord[] roomMembers(String type, long roomId) {
+    Stripe<RoomSessions> roomStripe = stripe(roomIndex(type), roomId);
+    synchronized (roomStripe) {
+      RoomSessions room = roomStripe.map.get(roomId);
+      return room == null ? EMPTY : room.snapshot();
+    }
+  }
+
+  private Stripe<RoomSessions>[] roomIndex(String type) {
+    return roomIndexes.computeIfAbsent(type, k -> newStripes());
+  }
+
+  private <V> Stripe<V> stripe(Stripe<V>[] stripes, long id) {
+    long h = id * 0x9E3779B97F4A7C15L;
+    return stripes[(int) (h >>> 40) & (stripeCount - 1)];
+  }
+
+  @SuppressWarnings("unchecked")
+  private <V> Stripe<V>[] newStripes() {
+    Stripe<V>[] stripes = new Stripe[stripeCount];
+    for (int i = 0; i < stripeCount; i++) {
+      stripes[i] = new Stripe<>();
+    }
+    return stripes;
+  }
+
+  private static SessionRecord[] without(SessionRecord[] sessions, SessionRecord record) {
+    for (int i = 0; i < sessions.length; i++) {
+      if (sessions[i] == record) {
+        SessionRecord[] remaining = new SessionRecord[sessions.length - 1];
+        System.arraycopy(sessions, 0, remaining, 0, i);
+        System.arraycopy(sessions, i + 1, remaining, i, sessions.length - i - 1);
+        return remaining;
+      }
+    }
+    return sessions;
+  }
+
+  /**
+   * 分段：一张开放寻址表及其锁（锁对象即分段本身）
+   */
+  private static final class Stripe<V> {
+
+    private final LongObjectMap<V> map = new LongObjectMap<>();
+  }
+
+  /**
+   * 房间成员
+   * 删除时用末尾元素填补空位，记录自身下标，注册和注销均为O(1)。
+   * 广播使用缓存的成员快照，只在成员变化后的首次广播时复制一次。
+   */
+  private static final class RoomSessions {
+
+    private SessionRecord[] members = new SessionRecord[4];
+
+    private int size;
+
+    private SessionRecord[] snapshot;
+
+    void add(SessionRecord record) {
+      if (size == members.length) {
+        members = Arrays.copyOf(members, size << 1);
+      }
+      record.roomSlot = size;
+      members[size++] = record;
+      snapshot = null;
+    }
+
+    boolean remove(SessionRecord record) {
+      int slot = record.roomSlot;
+      if (slot < 0 || slot >= size || members[slot] != record) {
+        return false;
+      }
+      SessionRecord last = members[--size];
+      members[slot] = last;
+      last.roomSlot = slot;
+      members[size] = null;
+      record.roomSlot = -1;
+      snapshot = null;
+
+      if (members.length > 16 && size < (members.length >>> 2)) {
+        members = Arrays.copyOf(members, members.length >>> 1);
+      }
+      return true;
+    }
+
+    SessionRecord[] snapshot() {
+      if (snapshot == null) {
+        snapshot = Arrays.copyOf(members, size);
+      }
+      return snapshot;
+    }
+  }
+}
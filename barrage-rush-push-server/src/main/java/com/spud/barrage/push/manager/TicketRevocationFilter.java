@@ -0,0 +1,138 @@
+package com.spud.barrage.push.manager;
+
+import com.spud.barrage.push.util.LongBloomFilter;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+/**
+ * 连接票据吊销过滤
+ * 已吊销的票据ID记录在Redis有序集合中（分值为票据过期时间），本地只保留一个布隆过滤器：
+ * 未命中时票据一定未被吊销，握手不访问Redis；命中时再查询有序集合确认，排除误报。
+ * 吊销通过Redis频道实时加入过滤器，定期按有序集合重建过滤器并清理已过期的票据。
+ *
+ * @author Spud
+ * @date 2026/10/16
+ */
+@Slf4j
+@Component
+public class TicketRevocationFilter {
+
+  @Autowired
+  private RedisTemplate<String, String> redisTemplate;
+
+  @Autowired
+  private RedisMessageListenerContainer redisMessageListenerContainer;
+
+  @Value("${push.ticket.revoked-key:ticket:revoked}")
+  private String revokedKey;
+
+  @Value("${push.ticket.revoke-channel:ticket:revoked}")
+  private String revokeChannel;
+
+  @Value("${push.ticket.bloom-expected-insertions:100000}")
+  private long expectedInsertions;
+
+  @Value("${push.ticket.bloom-fpp:0.001}")
+  private double fpp;
+
+  @Value("${push.ticket.rebuild-interval-millis:300000}")
+  private long rebuildIntervalMillis;
+
+  private volatile LongBloomFilter filter;
+
+  private ScheduledExecutorService scheduler;
+
+  @PostConstruct
+  public void init() {
+    filter = new LongBloomFilter(expectedInsertions, fpp);
+
+    MessageListener listener = (message, pattern) -> {
+      long ticketId = NumberUtils.toLong(new String(message.getBody(), StandardCharsets.UTF_8));
+      filter.put(ticketId);
+      log.debug("[票据] 收到吊销通知: ticketId={}", ticketId);
+    };
+    redisMessageListenerContainer.addMessageListener(listener, new ChannelTopic(revokeChannel));
+
+    scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread t = new Thread(r, "ticket-revocation");
+      t.setDaemon(true);
+      return t;
+    });
+    scheduler.scheduleWithFixedDelay(this::rebuild, 0, rebuildIntervalMillis,
+        TimeUnit.MILLISECONDS);
+
+    log.info("[票据] 吊销过滤器初始化完成: expectedInsertions={}, fpp={}", expectedInsertions, fpp);
+  }
+
+  @PreDestroy
+  public void destroy() {
+    if (scheduler != null) {
+      scheduler.shutdownNow();
+    }
+  }
+
+  /**
+   * 票据是否已被吊销
+   */
+  public boolean isRevoked(long ticketId) {
+    if (!filter.mightContain(ticketId)) {
+      return false;
+    }
+    // 布隆过滤器命中，查询Redis排除误报
+    Double score = redisTemplate.opsForZSet().score(revokedKey, Long.toString(ticketId));
+    return score != null;
+  }
+
+  /**
+   * 吊销票据并通知所有推送节点
+   */
+  public void revoke(long ticketId, long expireAt) {
+    String member = Long.toString(ticketId);
+    redisTemplate.opsForZSet().add(revokedKey, member, expireAt);
+    filter.put(ticketId);
+    redisTemplate.convertAndSend(revokeChannel, member);
+    log.info("[票据] 票据已吊销: ticketId={}", ticketId);
+  }
+
+  /**
+   * 清理已过期的吊销记录并重建过滤器，过期票据本身会被拒绝，不再需要记录
+   */
+  private void rebuild() {
+    try {
+      long now = System.currentTimeMillis();
+      redisTemplate.opsForZSet().removeRangeByScore(revokedKey, Double.NEGATIVE_INFINITY, now);
+      Set<String> revoked = redisTemplate.opsForZSet().range(revokedKey, 0, -1);
+
+      LongBloomFilter rebuilt = new LongBloomFilter(
+          Math.max(expectedInsertions, revoked != null ? revoked.size() * 2L : 0), fpp);
+      if (revoked != null) {
+        revoked.forEach(member -> rebuilt.put(NumberUtils.toLong(member)));
+      }
+      filter = rebuilt;
+
+      // 重建期间收到的吊销通知写入了旧过滤器，切换后再补一遍
+      Set<String> latest = redisTemplate.opsForZSet().range(revokedKey, 0, -1);
+      if (latest != null) {
+        latest.forEach(member -> rebuilt.put(NumberUtils.toLong(member)));
+      }
+
+      log.debug("[票据] 吊销过滤器已重建: revoked={}", revoked != null ? revoked.size() : 0);
+    } catch (Exception e) {
+      log.warn("[票据] 重建吊销过滤器失败: {}", e.getMessage());
+    }
+  }
+}
@@ -1,14 +1,25 @@
 package com.spud.barrage.push.manager;
 
-import java.io.IOException;
-import java.util.Collections;
-import java.util.Map;
+import com.spud.barrage.push.codec.BroadcastFrame;
+import com.spud.barrage.push.constant.WebSocketType;
+import com.spud.barrage.push.constant.WireProtocol;
+import com.spud.barrage.push.properties.PushProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.websocket.Session;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Predicate;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
 import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.adapter.NativeWebSocketSession;
 
 /**
  * WebSocket会话管理器
@@ -21,126 +32,137 @@ import org.springframework.web.socket.WebSocketSession;
 @Component
 public class WebSocketSessionManager {
 
-  // 按类型、房间和会话ID组织的会话存储
-  // Map<类型, Map<房间ID, Map<会话ID, 会话>>>
-  private final Map<String, Map<Long, Map<String, WebSocketSession>>> sessionStore =
-      new ConcurrentHashMap<>();
+  /**
+   * Tomcat阻塞发送超时时间的会话属性
+   */
+  private static final String BLOCKING_SEND_TIMEOUT_PROPERTY =
+      "org.apache.tomcat.websocket.BLOCKING_SEND_TIMEOUT";
+
+  @Autowired
+  private PushProperties pushProperties;
 
-  // 用户会话映射: 用户ID -> 会话ID集合
-  private final Map<Long, Set<String>> userSessionsMap =
-      new ConcurrentHashMap<>();
+  @Autowired
+  private PushExecutors pushExecutors;
 
-  // 会话用户映射: 会话ID -> 用户ID
-  private final Map<String, Long> sessionUserMap =
-      new ConcurrentHashMap<>();
+  @Autowired
+  private SessionIdleMonitor idleMonitor;
 
-  // 会话房间映射: 会话ID -> 房间ID
-  private final Map<String, Long> sessionRoomMap =
-      new ConcurrentHashMap<>();
+  @Autowired
+  private RoomViewerCounter viewerCounter;
 
-  // 会话类型映射: 会话ID -> 类型
-  private final Map<String, String> sessionTypeMap =
-      new ConcurrentHashMap<>();
+  @Autowired
+  private RoomSubscriptionManager subscriptionManager;
 
   /**
-   * 注册会话
+   * 会话注册表：按房间分段的类型/房间/用户索引
    */
-  public void registerSession(String type, Long roomId, Long userId, WebSocketSession session) {
-    String sessionId = session.getId();
-
-    // 添加到会话存储
-    sessionStore.getOrDefault(type, new ConcurrentHashMap<>())
-        .getOrDefault(roomId, new ConcurrentHashMap<>())
-        .put(sessionId, session);
+  private SessionRegistry registry;
 
-    // 添加到用户会话映射
-    userSessionsMap.compute(userId, (k, v) -> {
-      Set<String> sessions = (v != null) ? v : ConcurrentHashMap.newKeySet();
-      sessions.add(sessionId);
-      return sessions;
-    });
+  /**
+   * 初始化会话注册表
+   */
+  @PostConstruct
+  public void init() {
+    PushProperties.Outbound outbound = pushProperties.getOutbound();
+    registry = new SessionRegistry(pushProperties.getRegistry().getStripes());
+    viewerCounter.attach(registry);
+    subscriptionManager.attach(registry);
+
+    log.info("会话发送队列初始化完成: queueCapacity={}, overflowPolicy={}",
+        outbound.getQueueCapacity(), outbound.getOverflowPolicy());
+  }
 
-    // 添加到反向映射
-    sessionUserMap.put(sessionId, userId);
-    sessionRoomMap.put(sessionId, roomId);
-    sessionTypeMap.put(sessionId, type);
+  /**
+   * 注册会话
+   *
+   * @param multiplexed 是否为多路复用连接
+   */
+  public void registerSession(String type, Long roomId, Long userId, WebSocketSession session,
+      boolean multiplexed) {
+    WireProtocol protocol = WireProtocol.fromSubprotocol(session.getAcceptedProtocol());
+    long room = roomId != null ? roomId : 0L;
+    SessionRecord record = new SessionRecord(session, createOutbound(session, protocol, room), type,
+        room, userId != null ? userId : SessionRecord.ANONYMOUS_USER, protocol, multiplexed);
+    session.getAttributes().put(SessionRecord.ATTRIBUTE, record);
+    if (registry.register(record)) {
+      subscriptionManager.onFirstSession(type, room);
+    }
+    viewerCounter.markDirty(type, room);
+    idleMonitor.watch(record);
 
     log.debug("注册会话: type={}, roomId={}, userId={}, sessionId={}", type, roomId, userId,
-        sessionId);
+        session.getId());
   }
 
   /**
    * 取消注册会话
    */
   public void unregisterSession(String type, Long roomId, Long userId, WebSocketSession session) {
-    String sessionId = session.getId();
-
-    // 从会话存储中移除
-    Map<Long, Map<String, WebSocketSession>> typeMap = sessionStore.get(type);
-    if (typeMap != null) {
-      Map<String, WebSocketSession> roomMap = typeMap.get(roomId);
-      if (roomMap != null) {
-        roomMap.remove(sessionId);
-
-        // 如果房间没有会话了，移除房间
-        if (roomMap.isEmpty()) {
-          typeMap.remove(roomId);
-
-          // 如果类型没有房间了，移除类型
-          if (typeMap.isEmpty()) {
-            sessionStore.remove(type);
-          }
-        }
-      }
+    SessionRecord record = SessionRecord.of(session);
+    if (record == null) {
+      return;
     }
 
-    // 从用户会话映射中移除
-    Set<String> userSessions = userSessionsMap.getOrDefault(userId, ConcurrentHashMap.newKeySet());
-    if (userSessions != null) {
-      userSessions.remove(sessionId);
-
-      // 如果用户没有会话了，移除用户
-      if (userSessions.isEmpty()) {
-        userSessionsMap.remove(userId);
-      }
+    if (registry.unregister(record)) {
+      subscriptionManager.onLastSession(record.getType(), record.getRoomId());
     }
-
-    // 从反向映射中移除
-    sessionUserMap.remove(sessionId);
-    sessionRoomMap.remove(sessionId);
-    sessionTypeMap.remove(sessionId);
+    viewerCounter.markDirty(record.getType(), record.getRoomId());
+    record.getOutbound().close();
 
     log.debug("取消注册会话: type={}, roomId={}, userId={}, sessionId={}", type, roomId, userId,
-        sessionId);
+        session.getId());
   }
 
   /**
    * 向指定类型的房间内所有会话广播消息
    */
   public void broadcastToRoom(String type, Long roomId, String message) {
-    Map<Long, Map<String, WebSocketSession>> typeMap = sessionStore.getOrDefault(type,
-        new ConcurrentHashMap<>());
-    if (typeMap == null) {
-      return;
-    }
+    broadcastToRoom(type, roomId, BroadcastFrame.of(new TextMessage(message)));
+  }
 
-    Map<String, WebSocketSession> roomMap = typeMap.get(roomId);
-    if (roomMap == null || roomMap.isEmpty()) {
-      return;
-    }
+  /**
+   * 向指定类型的房间内所有会话广播帧
+   * 所有会话共享同一帧，每种协议只编码、压缩一次，只入队不阻塞。
+   * 虚拟线程模式下扇出在房间所属的扇出分段上执行，调用线程（如MQ监听线程）立即返回。
+   * 调用方持有的帧引用由本方法接管，广播完成后释放。
+   */
+  public void broadcastToRoom(String type, Long roomId, BroadcastFrame frame) {
+    broadcastToRoom(type, roomId, frame, null);
+  }
 
-    TextMessage textMessage = new TextMessage(message);
+  /**
+   * 向房间内的多路复用会话广播消息
+   * 多路复用会话注册在弹幕类型下，CDN等其他通道的广播只发给其中的多路复用会话
+   */
+  public void broadcastToMultiplexed(Long roomId, String message) {
+    broadcastToRoom(WebSocketType.DANMAKU, roomId, BroadcastFrame.of(new TextMessage(message)),
+        SessionRecord::isMultiplexed);
+  }
 
-    // 广播消息
-    for (WebSocketSession session : roomMap.values()) {
-      try {
-        if (session.isOpen()) {
-          session.sendMessage(textMessage);
+  /**
+   * 向房间内满足条件的会话广播帧，filter为null时发给所有会话
+   */
+  private void broadcastToRoom(String type, Long roomId, BroadcastFrame frame,
+      Predicate<SessionRecord> filter) {
+    if (roomId == null) {
+      frame.release();
+      return;
+    }
+    try {
+      pushExecutors.fanout(roomId, () -> {
+        try {
+          registry.forEachInRoom(type, roomId, record -> {
+            if (filter == null || filter.test(record)) {
+              record.getOutbound().offer(frame.retain());
+            }
+          });
+        } finally {
+          frame.release();
         }
-      } catch (IOException e) {
-        log.error("发送消息失败: sessionId={}, roomId={}, type={}", session.getId(), roomId, type,
-            e);
-      }
+      });
+    } catch (RejectedExecutionException e) {
+      frame.release();
+      log.warn("广播扇出被拒绝: type={}, roomId={}", type, roomId);
     }
   }
 
@@ -148,80 +170,127 @@ public class WebSocketSessionManager {
    * 向指定用户的所有会话发送消息
    */
   public void sendToUser(String userId, String message) {
-    Set<String> sessionIds = userSessionsMap.getOrDefault(userId, Collections.emptySet());
+    sendToUser(userId, BroadcastFrame.of(new TextMessage(message)));
+  }
 
-    if (sessionIds.isEmpty()) {
-      return;
+  /**
+   * 向指定用户的所有会话发送帧，调用方持有的帧引用由本方法接管
+   */
+  public void sendToUser(String userId, BroadcastFrame frame) {
+    try {
+      long id = NumberUtils.toLong(userId, SessionRecord.ANONYMOUS_USER);
+      if (id != SessionRecord.ANONYMOUS_USER) {
+        registry.forEachOfUser(id, record -> record.getOutbound().offer(frame.retain()));
+      }
+    } finally {
+      frame.release();
     }
+  }
 
-    TextMessage textMessage = new TextMessage(message);
-
-    for (String sessionId : sessionIds) {
-      String type = sessionTypeMap.get(sessionId);
-      Long roomId = sessionRoomMap.get(sessionId);
-
-      if (type == null || roomId == null) {
-        continue;
-      }
+  /**
+   * 向单个会话发送消息
+   * 消息进入会话发送队列后立即返回，由写线程池异步发送
+   *
+   * @return 消息是否成功入队
+   */
+  public boolean sendToSession(WebSocketSession session, WebSocketMessage<?> message) {
+    return sendToSession(session, BroadcastFrame.of(message));
+  }
 
-      Map<String, WebSocketSession> roomMap = sessionStore
-          .getOrDefault(type, Collections.emptyMap())
-          .getOrDefault(roomId, Collections.emptyMap());
+  /**
+   * 向单个会话发送帧，调用方持有的帧引用由本方法接管
+   *
+   * @return 帧是否成功入队
+   */
+  public boolean sendToSession(WebSocketSession session, BroadcastFrame frame) {
+    SessionRecord record = SessionRecord.of(session);
+    if (record == null) {
+      frame.release();
+      log.debug("会话未注册发送队列，消息被丢弃: sessionId={}", session.getId());
+      return false;
+    }
+    return record.getOutbound().offer(frame);
+  }
 
-      WebSocketSession session = roomMap.get(sessionId);
+  /**
+   * 获取会话协商的帧编码协议
+   */
+  public WireProtocol getProtocol(WebSocketSession session) {
+    SessionRecord record = SessionRecord.of(session);
+    return record != null ? record.getProtocol()
+        : WireProtocol.fromSubprotocol(session.getAcceptedProtocol());
+  }
 
-      if (session != null && session.isOpen()) {
-        try {
-          session.sendMessage(textMessage);
-        } catch (IOException e) {
-          log.error("发送消息给用户失败: userId={}, sessionId={}", userId, sessionId, e);
-        }
+  /**
+   * 创建会话发送队列
+   */
+  private SessionOutbound createOutbound(WebSocketSession session, WireProtocol protocol,
+      long roomId) {
+    PushProperties.Outbound outbound = pushProperties.getOutbound();
+
+    // 限制单条消息的阻塞发送时间，避免慢客户端长期占用写线程
+    if (session instanceof NativeWebSocketSession nativeWebSocketSession) {
+      Session nativeSession = nativeWebSocketSession.getNativeSession(Session.class);
+      if (nativeSession != null) {
+        nativeSession.getUserProperties()
+            .put(BLOCKING_SEND_TIMEOUT_PROPERTY, outbound.getSendTimeoutMillis());
       }
     }
+
+    return new SessionOutbound(session, protocol, outbound.getQueueCapacity(),
+        outbound.getOverflowPolicy(), pushExecutors.getWriterExecutor(roomId),
+        outbound.getDrainBatchSize(), pushExecutors.getRoomPermits(roomId));
   }
 
   /**
    * 获取房间的会话数量
    */
   public int getRoomSessionCount(String type, Long roomId) {
-    return sessionStore
-        .getOrDefault(type, Collections.emptyMap())
-        .getOrDefault(roomId, Collections.emptyMap())
-        .size();
+    return roomId == null ? 0 : registry.roomSize(type, roomId);
   }
 
   /**
    * 获取用户的会话数量
    */
   public int getUserSessionCount(String userId) {
-    return userSessionsMap.getOrDefault(userId, Collections.emptySet()).size();
+    long id = NumberUtils.toLong(userId, SessionRecord.ANONYMOUS_USER);
+    return id == SessionRecord.ANONYMOUS_USER ? 0 : registry.userSessionCount(id);
+  }
+
+  /**
+   * 获取本节点的会话总数
+   */
+  public int getSessionCount() {
+    return registry.size();
+  }
+
+  /**
+   * 获取本节点所有会话的快照
+   */
+  public List<SessionRecord> getSessions() {
+    List<SessionRecord> sessions = new ArrayList<>(registry.size());
+    registry.forEach(sessions::add);
+    return sessions;
   }
 
   /**
    * 获取所有房间ID
    */
   public Set<Long> getRoomIds(String type) {
-    return sessionStore
-        .getOrDefault(type, Collections.emptyMap())
-        .keySet();
+    return registry.roomIds(type);
   }
 
   /**
    * 获取房间内的所有用户ID
    */
   public Set<Long> getRoomUsers(String type, String roomId) {
-    Map<String, WebSocketSession> roomMap = sessionStore
-        .getOrDefault(type, Collections.emptyMap())
-        .getOrDefault(roomId, Collections.emptyMap());
-
-    Set<Long> userIds = ConcurrentHashMap.newKeySet();
-    for (String sessionId : roomMap.keySet()) {
-      Long userId = sessionUserMap.get(sessionId);
-      if (userId != null) {
-        userIds.add(userId);
+    Set<Long> userIds = new HashSet<>();
+    long id = NumberUtils.toLong(roomId, 0L);
+    registry.forEachInRoom(type, id, record -> {
+      if (record.getUserId() != SessionRecord.ANONYMOUS_USER) {
+        userIds.add(record.getUserId());
       }
-    }
-
+    });
     return userIds;
   }
-}
\ No newline at end of file
+}
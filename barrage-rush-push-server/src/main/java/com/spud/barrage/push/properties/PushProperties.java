@@ -0,0 +1,575 @@
+package com.spud.barrage.push.properties;
+
+import com.spud.barrage.common.data.mq.enums.RoomType;
+import com.spud.barrage.push.constant.ExecutorMode;
+import com.spud.barrage.push.constant.OverflowPolicy;
+import com.spud.barrage.push.constant.TransportType;
+import java.util.EnumMap;
+import java.util.Map;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 推送服务相关配置属性
+ *
+ * @author Spud
+ * @date 2026/10/16
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "push")
+public class PushProperties {
+
+  /**
+   * 会话发送队列配置
+   */
+  private Outbound outbound = new Outbound();
+
+  /**
+   * 会话注册表配置
+   */
+  private Registry registry = new Registry();
+
+  /**
+   * 弹幕节拍合并配置
+   */
+  private Batch batch = new Batch();
+
+  /**
+   * 广播帧编码配置
+   */
+  private Broadcast broadcast = new Broadcast();
+
+  /**
+   * 传输层配置
+   */
+  private Transport transport = new Transport();
+
+  /**
+   * 执行模式配置
+   */
+  private Executor executor = new Executor();
+
+  /**
+   * 心跳与空闲检测配置
+   */
+  private Heartbeat heartbeat = new Heartbeat();
+
+  /**
+   * 房间历史弹幕配置
+   */
+  private History history = new History();
+
+  /**
+   * 弹幕Stream备用通道配置
+   */
+  private Stream stream = new Stream();
+
+  /**
+   * 房间观众数上报配置
+   */
+  private Viewers viewers = new Viewers();
+
+  /**
+   * 房间订阅配置
+   */
+  private Subscription subscription = new Subscription();
+
+  /**
+   * 握手准入配置
+   */
+  private Admission admission = new Admission();
+
+  /**
+   * 服务发现注册配置
+   */
+  private Discovery discovery = new Discovery();
+
+  /**
+   * 停机排空配置
+   */
+  private Drain drain = new Drain();
+
+  /**
+   * 消息确认聚合配置
+   */
+  private Ack ack = new Ack();
+
+  /**
+   * 重复弹幕合并配置
+   */
+  private Coalesce coalesce = new Coalesce();
+
+  /**
+   * 会话发送队列配置
+   */
+  @Data
+  public static class Outbound {
+
+    /**
+     * 每个会话的发送队列容量
+     */
+    private int queueCapacity = 256;
+
+    /**
+     * 队列溢出策略
+     */
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DROP_OLDEST;
+
+    /**
+     * 写线程数，小于等于0时按CPU核数的2倍计算
+     */
+    private int writerThreads = 0;
+
+    /**
+     * 单次调度最多发送的消息数，避免单个会话长期占用写线程
+     */
+    private int drainBatchSize = 64;
+
+    /**
+     * 单条消息阻塞发送超时时间(毫秒)
+     */
+    private long sendTimeoutMillis = 5000;
+  }
+
+  /**
+   * 会话注册表配置
+   */
+  @Data
+  public static class Registry {
+
+    /**
+     * 房间和用户索引的分段数，会向上取整为2的幂
+     */
+    private int stripes = 64;
+  }
+
+  /**
+   * 弹幕节拍合并配置
+   */
+  @Data
+  public static class Batch {
+
+    /**
+     * 各房间类型的节拍周期(毫秒)，0表示不合并直接广播
+     */
+    private Map<RoomType, Long> tickMillis = new EnumMap<>(Map.of(
+        RoomType.SUPER_HOT, 50L,
+        RoomType.HOT, 100L,
+        RoomType.NORMAL, 0L,
+        RoomType.COLD, 0L));
+
+    /**
+     * 单个合并帧最多包含的弹幕数，达到后提前发送
+     */
+    private int maxBatchSize = 500;
+
+    /**
+     * 各房间类型每秒最多下发的普通弹幕数，按节拍折算为每帧配额，0表示不抽样
+     */
+    private Map<RoomType, Integer> maxPerSecond = new EnumMap<>(Map.of(
+        RoomType.SUPER_HOT, 200,
+        RoomType.HOT, 0,
+        RoomType.NORMAL, 0,
+        RoomType.COLD, 0));
+  }
+
+  /**
+   * 广播帧编码配置
+   */
+  @Data
+  public static class Broadcast {
+
+    /**
+     * 压缩协议的deflate级别(0-9)
+     */
+    private int deflateLevel = 6;
+
+    /**
+     * 直接缓冲池入池的最大缓冲区大小(字节)，更大的帧每次单独分配
+     */
+    private int poolMaxBufferSize = 64 * 1024;
+
+    /**
+     * 直接缓冲池每个容量等级最多缓存的缓冲区数量
+     */
+    private int poolMaxPerClass = 256;
+
+    /**
+     * 是否允许容器协商permessage-deflate，开启后每个会话都会单独压缩一次，
+     * 默认关闭，需要压缩的客户端通过deflate子协议获取预压缩的帧
+     */
+    private boolean containerDeflate = false;
+  }
+
+  /**
+   * 传输层配置
+   */
+  @Data
+  public static class Transport {
+
+    /**
+     * 传输层类型
+     */
+    private TransportType type = TransportType.SERVLET;
+
+    /**
+     * Netty传输配置，仅在type为NETTY时生效
+     */
+    private Netty netty = new Netty();
+  }
+
+  /**
+   * Netty传输配置
+   */
+  @Data
+  public static class Netty {
+
+    /**
+     * 监听端口
+     */
+    private int port = 8084;
+
+    /**
+     * 是否优先使用epoll，不可用时回退为NIO
+     */
+    private boolean epoll = true;
+
+    /**
+     * IO线程数，小于等于0时使用Netty默认值(CPU核数的2倍)
+     */
+    private int workerThreads = 0;
+
+    /**
+     * 握手鉴权和处理器回调线程数，小于等于0时按CPU核数的2倍计算
+     */
+    private int handlerThreads = 0;
+
+    /**
+     * 连接等待队列长度
+     */
+    private int soBacklog = 4096;
+
+    /**
+     * 写缓冲低水位(字节)，低于该值后连接恢复可写
+     */
+    private int writeBufferLowWaterMark = 32 * 1024;
+
+    /**
+     * 写缓冲高水位(字节)，超过后发送方等待连接恢复可写
+     */
+    private int writeBufferHighWaterMark = 64 * 1024;
+
+    /**
+     * 单帧最大载荷(字节)
+     */
+    private int maxFramePayloadLength = 64 * 1024;
+
+    /**
+     * 握手前的读空闲超时时间(毫秒)，握手后的存活检测由SessionIdleMonitor负责
+     */
+    private long idleTimeoutMillis = 60000;
+  }
+
+  /**
+   * 执行模式配置
+   */
+  @Data
+  public static class Executor {
+
+    /**
+     * 执行模式
+     */
+    private ExecutorMode mode = ExecutorMode.PLATFORM;
+
+    /**
+     * 虚拟线程模式下广播扇出的分段数，同一房间固定在一个分段内串行执行，会向上取整为2的幂
+     */
+    private int fanoutStripes = 64;
+
+    /**
+     * 虚拟线程模式下单个房间同时进行的最大发送数
+     */
+    private int roomSendConcurrency = 256;
+
+    /**
+     * 平台线程模式下写任务是否按房间公平调度
+     */
+    private boolean fairScheduling = true;
+
+    /**
+     * 公平调度时每个房间每轮最多连续执行的写任务数
+     */
+    private int fairQuantum = 16;
+
+    /**
+     * 房间排队时延指标在房间空闲多久后移除(毫秒)
+     */
+    private long delayMetricIdleMillis = 300000;
+  }
+
+  /**
+   * 心跳与空闲检测配置
+   */
+  @Data
+  public static class Heartbeat {
+
+    /**
+     * 心跳超时时间(毫秒)，超过该时间没有收到客户端消息的会话会被断开
+     */
+    private long timeout = 30000;
+
+    /**
+     * 空闲检测时间轮的节拍(毫秒)，也是超时判断的精度
+     */
+    private long wheelTickMillis = 1000;
+
+    /**
+     * 在线状态上报周期(毫秒)
+     */
+    private long presenceIntervalMillis = 10000;
+
+    /**
+     * 在线状态的Redis键前缀
+     */
+    private String redisKeyPrefix = "heartbeat:";
+  }
+
+  /**
+   * 房间历史弹幕配置
+   */
+  @Data
+  public static class History {
+
+    /**
+     * 每个房间保留的最近弹幕数，也是进房时下发的历史条数
+     */
+    private int capacity = 50;
+
+    /**
+     * 最多缓存历史的房间数
+     */
+    private long maxRooms = 10000;
+
+    /**
+     * 房间多久没有进房请求后回收历史(毫秒)
+     */
+    private long idleEvictMillis = 600000;
+  }
+
+  /**
+   * 弹幕Stream备用通道配置
+   */
+  @Data
+  public static class Stream {
+
+    /**
+     * 是否启用Stream备用通道
+     */
+    private boolean enabled = true;
+
+    /**
+     * 房间弹幕Stream的键前缀，与消费服务写入的键保持一致
+     */
+    private String keyPrefix = "danmaku:stream:";
+
+    /**
+     * 消息体所在的字段名
+     */
+    private String payloadField = "payload";
+
+    /**
+     * XREAD的最长阻塞时间(毫秒)，也是新房间纳入读取的最大延迟
+     */
+    private long blockMillis = 1000;
+
+    /**
+     * 单次XREAD每个房间最多读取的消息数
+     */
+    private int batchSize = 500;
+  }
+
+  /**
+   * 房间观众数上报配置
+   */
+  @Data
+  public static class Viewers {
+
+    /**
+     * 上报周期(毫秒)
+     */
+    private long flushIntervalMillis = 1000;
+
+    /**
+     * 本节点贡献的过期时间(秒)，节点宕机后超过该时间不再计入房间总数
+     */
+    private int ttlSeconds = 30;
+  }
+
+  /**
+   * 房间订阅配置
+   */
+  @Data
+  public static class Subscription {
+
+    /**
+     * 房间最后一个会话离开后多久解除绑定(毫秒)
+     */
+    private long unbindDelayMillis = 30000;
+  }
+
+  /**
+   * 握手准入配置
+   */
+  @Data
+  public static class Admission {
+
+    /**
+     * 是否启用握手准入控制
+     */
+    private boolean enabled = true;
+
+    /**
+     * 每秒接受的握手数
+     */
+    private int permitsPerSecond = 500;
+
+    /**
+     * 令牌桶容量，允许的突发握手数
+     */
+    private int burst = 1000;
+
+    /**
+     * 同时校验中的握手上限，超过后直接拒绝
+     * 校验占用Servlet容器线程，应明显小于容器线程数(Tomcat默认200)，给其他请求留出线程
+     */
+    private int maxPending = 100;
+
+    /**
+     * 拒绝时Retry-After的最小值(秒)
+     */
+    private long retryAfterMinSeconds = 1;
+
+    /**
+     * 拒绝时Retry-After的最大值(秒)
+     */
+    private long retryAfterMaxSeconds = 10;
+  }
+
+  /**
+   * 服务发现注册配置，键与接入代理的barrage.discovery配置一致
+   */
+  @Data
+  public static class Discovery {
+
+    /**
+     * 活跃推送节点集合键
+     */
+    private String activeServersKey = "ws:active-servers";
+
+    /**
+     * 节点信息哈希键前缀，指标哈希为前缀+实例ID+":metrics"
+     */
+    private String serverPrefix = "ws:server:";
+
+    /**
+     * 节点信息刷新周期(毫秒)，节点信息的过期时间为该周期的3倍
+     */
+    private long heartbeatIntervalMillis = 10000;
+
+    /**
+     * 节点心跳超过该时间(毫秒)未刷新时不作为迁移目标，与代理的健康判断一致
+     */
+    private long healthyTimeoutMillis = 30000;
+  }
+
+  /**
+   * 停机排空配置
+   */
+  @Data
+  public static class Drain {
+
+    /**
+     * 停机时是否排空会话
+     */
+    private boolean enabled = true;
+
+    /**
+     * 断开所有会话的时间窗口(毫秒)，断开均匀分布在窗口内
+     */
+    private long windowMillis = 20000;
+
+    /**
+     * 每批断开的间隔(毫秒)
+     */
+    private long tickMillis = 200;
+
+    /**
+     * 迁移目标节点数，会话轮流分配到负载最低的几个节点
+     */
+    private int targetCount = 3;
+  }
+
+  /**
+   * 消息确认聚合配置
+   */
+  @Data
+  public static class Ack {
+
+    /**
+     * 本地聚合后写入Redis的周期(毫秒)
+     */
+    private long flushIntervalMillis = 1000;
+
+    /**
+     * 统计窗口(毫秒)，每个房间每个窗口一组键
+     */
+    private long windowMillis = 60000;
+
+    /**
+     * 统计数据保留时间(秒)
+     */
+    private long retentionSeconds = 7 * 24 * 3600;
+
+    /**
+     * Redis键前缀
+     */
+    private String redisKeyPrefix = "message:ack:";
+  }
+
+  /**
+   * 重复弹幕合并配置
+   */
+  @Data
+  public static class Coalesce {
+
+    /**
+     * 各房间类型的合并窗口(毫秒)，0表示不合并
+     */
+    private Map<RoomType, Long> windowMillis = new EnumMap<>(Map.of(
+        RoomType.SUPER_HOT, 1000L,
+        RoomType.HOT, 1000L,
+        RoomType.NORMAL, 0L,
+        RoomType.COLD, 0L));
+
+    /**
+     * 各房间类型在一个窗口内相同内容原样下发的条数，超过后的弹幕合并为一帧在窗口结束时下发
+     */
+    private Map<RoomType, Integer> threshold = new EnumMap<>(Map.of(
+        RoomType.SUPER_HOT, 3,
+        RoomType.HOT, 5,
+        RoomType.NORMAL, 0,
+        RoomType.COLD, 0));
+
+    /**
+     * 参与合并的弹幕内容最大长度（归一化后的字符数）
+     */
+    private int maxContentLength = 16;
+
+    /**
+     * 合并帧携带的发送用户ID数
+     */
+    private int sampleUsers = 5;
+  }
+}
@@ -1,22 +1,22 @@
 package com.spud.barrage.push.service;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.spud.barrage.push.constant.WebSocketType;
-import com.spud.barrage.push.manager.WebSocketSessionManager;
+import com.spud.barrage.push.codec.DanmakuBroadcast;
+import com.spud.barrage.push.manager.DanmakuTickBatcher;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 /**
@@ -28,6 +28,18 @@ import org.springframework.stereotype.Service;
 @Service
 public class DanmakuService {
 
+  /**
+   * 房间ID消息头，与MqConstants.Header.ROOM_ID保持一致
+   */
+  private static final String ROOM_ID_HEADER = "x-room-id";
+
+  /**
+   * 消息类型消息头，与MqConstants.Header.MESSAGE_TYPE保持一致
+   */
+  private static final String MESSAGE_TYPE_HEADER = "x-message-type";
+
+  private static final String TYPE_DANMAKU = "DANMAKU";
+
   @Autowired
   private RedisTemplate<String, String> redisTemplate;
 
@@ -38,7 +50,7 @@ public class DanmakuService {
   private ObjectMapper objectMapper;
 
   @Autowired
-  private WebSocketSessionManager sessionManager;
+  private DanmakuTickBatcher tickBatcher;
 
   @Value("${push.danmaku.redis-key-prefix:danmaku:room:}")
   private String danmakuKeyPrefix;
@@ -52,25 +64,32 @@ public class DanmakuService {
   @Value("${barrage.mq.danmaku-exchange:danmaku.exchange}")
   private String danmakuExchange;
 
-  @Value("${barrage.mq.danmaku-routing-key:danmaku.routing}")
-  private String danmakuRoutingKey;
-
-  // 存储每个房间已处理的消息索引
-  private final Map<Long, Long> roomMessageIndexMap = new ConcurrentHashMap<>();
+  @Value("${barrage.mq.danmaku-room-routing-key:danmaku.room.%d}")
+  private String roomRoutingKey;
 
   /**
    * 处理弹幕消息
    */
   public void processDanmaku(String message) {
     try {
-      JsonNode jsonNode = objectMapper.readTree(message);
-      String roomId = jsonNode.path("roomId").asText();
+      RoutingFields fields = parseRoutingFields(message.getBytes(StandardCharsets.UTF_8));
+      if (fields.roomId() == null) {
+        log.error("弹幕消息缺少roomId字段: {}", message);
+        return;
+      }
+      long roomId = fields.roomId();
 
-      // 发送到消息队列
-      rabbitTemplate.convertAndSend(danmakuExchange, danmakuRoutingKey, message);
+      // 按房间路由键发送，只有订阅了该房间的推送节点会收到；路由信息写入消息头，监听方无需解析消息体
+      rabbitTemplate.convertAndSend(danmakuExchange, String.format(roomRoutingKey, roomId),
+          message, amqpMessage -> {
+            amqpMessage.getMessageProperties().setHeader(ROOM_ID_HEADER, roomId);
+            amqpMessage.getMessageProperties().setHeader(MESSAGE_TYPE_HEADER,
+                fields.type() != null ? fields.type() : TYPE_DANMAKU);
+            return amqpMessage;
+          });
 
       log.debug("弹幕消息已发送到队列: roomId={}", roomId);
-    } catch (JsonProcessingException e) {
+    } catch (IOException e) {
       log.error("处理弹幕消息失败", e);
     }
   }
@@ -86,80 +105,91 @@ public class DanmakuService {
 
   /**
    * 监听RabbitMQ中的弹幕消息
+   * 订阅队列只绑定本节点正在服务的房间。
+   * 优先按消息头路由，消息体原样转发；没有消息头的旧消息只流式读取顶层的roomId和type字段，不构建JSON树。
    */
-  @RabbitListener(queues = "${barrage.mq.danmaku-queue:danmaku.queue}")
-  public void onDanmakuMessage(String message) {
+  @RabbitListener(queues = "#{danmakuSubscriptionQueue.name}")
+  public void onDanmakuMessage(Message message) {
+    byte[] body = message.getBody();
     try {
-      JsonNode jsonNode = objectMapper.readTree(message);
-      if (!jsonNode.has("roomId")) {
-        log.error("弹幕消息缺少roomId字段: {}", message);
-        return;
+      MessageProperties properties = message.getMessageProperties();
+      Long roomId = toLong(properties.getHeader(ROOM_ID_HEADER));
+      Object type = properties.getHeader(MESSAGE_TYPE_HEADER);
+      if (roomId == null) {
+        RoutingFields fields = parseRoutingFields(body);
+        roomId = fields.roomId();
+        type = fields.type();
       }
 
-      Long roomId = jsonNode.get("roomId").asLong();
-      String type = jsonNode.path("type").asText();
+      if (roomId == null) {
+        log.error("弹幕消息缺少roomId字段: {}", new String(body, StandardCharsets.UTF_8));
+        return;
+      }
 
       // 只处理弹幕类型的消息
-      if (!"DANMAKU".equals(type)) {
+      if (!TYPE_DANMAKU.equals(type)) {
         return;
       }
 
       log.debug("收到弹幕消息: roomId={}", roomId);
 
-      // 将消息广播给房间内的客户端
-      sessionManager.broadcastToRoom(WebSocketType.DANMAKU, roomId, message);
+      // 将消息广播给房间内的客户端，热门房间按节拍合并
+      tickBatcher.submit(
+          DanmakuBroadcast.ofJson(roomId, new String(body, StandardCharsets.UTF_8)));
 
-    } catch (JsonProcessingException e) {
+    } catch (IOException e) {
       log.error("解析弹幕消息失败", e);
     }
   }
 
   /**
-   * 定期轮询Redis获取最新弹幕
-   * 注: 这是除RabbitMQ外的备用方案，保证消息不丢失
+   * 流式读取顶层的roomId和type字段，两者都读到后立即停止，嵌套对象直接跳过
    */
-  @Scheduled(fixedRate = 1000) // 每秒检查一次
-  public void pollDanmakuFromRedis() {
-    // 获取所有活跃房间
-    Set<Long> roomIds = sessionManager.getRoomIds(WebSocketType.DANMAKU);
-
-    for (Long roomId : roomIds) {
-      String key = danmakuKeyPrefix + roomId;
-      Long listSize = redisTemplate.opsForList().size(key);
-
-      if (listSize == null || listSize == 0) {
-        continue;
+  private RoutingFields parseRoutingFields(byte[] body) throws IOException {
+    Long roomId = null;
+    String type = null;
+    try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        return new RoutingFields(null, null);
       }
-
-      // 获取当前索引，默认为0
-      long currentIndex = roomMessageIndexMap.getOrDefault(roomId, 0L);
-
-      // 如果有新消息
-      if (listSize > currentIndex) {
-        // 获取新消息
-        List<String> newMessages = redisTemplate.opsForList()
-            .range(key, currentIndex, listSize - 1);
-
-        if (newMessages != null && !newMessages.isEmpty()) {
-          // 推送新消息
-          for (String message : newMessages) {
-            try {
-              JsonNode jsonNode = objectMapper.readTree(message);
-              String type = jsonNode.path("type").asText();
-
-              // 只推送弹幕类型的消息
-              if ("DANMAKU".equals(type)) {
-                sessionManager.broadcastToRoom(WebSocketType.DANMAKU, roomId, message);
-              }
-            } catch (JsonProcessingException e) {
-              log.error("解析Redis弹幕消息失败", e);
-            }
-          }
-
-          // 更新索引
-          roomMessageIndexMap.put(roomId, listSize);
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String field = parser.currentName();
+        JsonToken value = parser.nextToken();
+        if ("roomId".equals(field) && value.isNumeric()) {
+          roomId = parser.getLongValue();
+        } else if ("roomId".equals(field) && value == JsonToken.VALUE_STRING) {
+          roomId = toLong(parser.getText());
+        } else if ("type".equals(field) && value == JsonToken.VALUE_STRING) {
+          type = parser.getText();
+        } else {
+          parser.skipChildren();
+        }
+        if (roomId != null && type != null) {
+          break;
         }
       }
     }
+    return new RoutingFields(roomId, type);
+  }
+
+  private static Long toLong(Object value) {
+    if (value instanceof Number number) {
+      return number.longValue();
+    }
+    if (value != null) {
+      try {
+        return Long.parseLong(value.toString());
+      } catch (NumberFormatException e) {
+        return null;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * 消息路由字段
+   */
+  private record RoutingFields(Long roomId, String type) {
+
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,186 @@
+package com.spud.barrage.push.service;
+
+import com.spud.barrage.push.codec.DanmakuBroadcast;
+import com.spud.barrage.push.constant.WebSocketType;
+import com.spud.barrage.push.manager.DanmakuTickBatcher;
+import com.spud.barrage.push.manager.WebSocketSessionManager;
+import com.spud.barrage.push.properties.PushProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * 弹幕Stream读取
+ * RabbitMQ之外的备用通道：对本节点正在服务的所有房间发起一次XREAD BLOCK，
+ * 每个房间记录已读到的消息ID，按ID续读，不会因列表裁剪或插入而重放或漏读消息。
+ * 节点开始服务某个房间时从该房间Stream的最新ID开始读取。
+ *
+ * @author Spud
+ * @date 2026/10/16
+ */
+@Slf4j
+@Component
+public class DanmakuStreamReader {
+
+  /**
+   * 空Stream的起始ID
+   */
+  private static final String INITIAL_ID = "0-0";
+
+  /**
+   * 读取失败后的重试间隔(毫秒)
+   */
+  private static final long RETRY_DELAY_MILLIS = 1000;
+
+  @Autowired
+  private RedisTemplate<String, String> redisTemplate;
+
+  @Autowired
+  private WebSocketSessionManager sessionManager;
+
+  @Autowired
+  private DanmakuTickBatcher tickBatcher;
+
+  @Autowired
+  private PushProperties pushProperties;
+
+  /**
+   * 各房间已读到的消息ID，只由读取线程访问
+   */
+  private final Map<Long, String> cursors = new HashMap<>();
+
+  private Thread readerThread;
+
+  private volatile boolean running;
+
+  @PostConstruct
+  public void init() {
+    PushProperties.Stream stream = pushProperties.getStream();
+    if (!stream.isEnabled()) {
+      log.info("[弹幕] Stream备用通道未启用");
+      return;
+    }
+
+    running = true;
+    readerThread = new Thread(this::readLoop, "danmaku-stream-reader");
+    readerThread.setDaemon(true);
+    readerThread.start();
+
+    log.info("[弹幕] Stream备用通道初始化完成: keyPrefix={}, blockMillis={}",
+        stream.getKeyPrefix(), stream.getBlockMillis());
+  }
+
+  @PreDestroy
+  public void destroy() {
+    running = false;
+    if (readerThread != null) {
+      readerThread.interrupt();
+    }
+  }
+
+  private void readLoop() {
+    while (running) {
+      try {
+        if (!syncCursors()) {
+          Thread.sleep(pushProperties.getStream().getBlockMillis());
+          continue;
+        }
+        readOnce();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (Exception e) {
+        if (!running) {
+          return;
+        }
+        log.warn("[弹幕] 读取弹幕Stream失败: {}", e.getMessage());
+        try {
+          Thread.sleep(RETRY_DELAY_MILLIS);
+        } catch (InterruptedException ie) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+      }
+    }
+  }
+
+  /**
+   * 按本节点当前服务的房间同步游标
+   *
+   * @return 是否有需要读取的房间
+   */
+  private boolean syncCursors() {
+    Set<Long> roomIds = sessionManager.getRoomIds(WebSocketType.DANMAKU);
+    cursors.keySet().retainAll(roomIds);
+    for (Long roomId : roomIds) {
+      if (!cursors.containsKey(roomId)) {
+        cursors.put(roomId, latestId(roomId));
+      }
+    }
+    return !cursors.isEmpty();
+  }
+
+  /**
+   * 一次XREAD读取所有房间的新消息，没有新消息时最多阻塞blockMillis，以便及时纳入新房间
+   */
+  @SuppressWarnings("unchecked")
+  private void readOnce() {
+    PushProperties.Stream stream = pushProperties.getStream();
+    List<StreamOffset<String>> offsets = new ArrayList<>(cursors.size());
+    cursors.forEach((roomId, id) -> offsets.add(
+        StreamOffset.create(stream.getKeyPrefix() + roomId, ReadOffset.from(id))));
+
+    List<MapRecord<String, Object, Object>> records = redisTemplate.opsForStream().read(
+        StreamReadOptions.empty()
+            .block(Duration.ofMillis(stream.getBlockMillis()))
+            .count(stream.getBatchSize()),
+        offsets.toArray(new StreamOffset[0]));
+    if (records == null || records.isEmpty()) {
+      return;
+    }
+
+    for (MapRecord<String, Object, Object> record : records) {
+      long roomId = NumberUtils.toLong(
+          record.getStream().substring(stream.getKeyPrefix().length()), 0L);
+      // 房间已不在本节点服务时不再推进游标
+      if (cursors.replace(roomId, record.getId().getValue()) == null) {
+        continue;
+      }
+      Object payload = record.getValue().get(stream.getPayloadField());
+      if (payload != null) {
+        tickBatcher.submit(DanmakuBroadcast.ofJson(roomId, payload.toString()));
+      }
+    }
+
+    log.debug("[弹幕] 从Stream读取弹幕: rooms={}, count={}", cursors.size(), records.size());
+  }
+
+  /**
+   * 房间Stream的最新消息ID，Stream不存在时从头读取
+   */
+  private String latestId(Long roomId) {
+    List<MapRecord<String, Object, Object>> latest = redisTemplate.opsForStream()
+        .reverseRange(pushProperties.getStream().getKeyPrefix() + roomId, Range.unbounded(),
+            Limit.limit().count(1));
+    if (latest == null || latest.isEmpty()) {
+      return INITIAL_ID;
+    }
+    return latest.get(0).getId().getValue();
+  }
+}
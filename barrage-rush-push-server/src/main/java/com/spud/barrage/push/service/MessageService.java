@@ -1,6 +1,7 @@
 package com.spud.barrage.push.service;
 
 import com.spud.barrage.common.data.dto.DanmakuMessage;
+import com.spud.barrage.push.codec.InboundFrame;
 import java.util.List;
 import java.util.Map;
 
@@ -21,7 +22,8 @@ public interface MessageService {
    * @param data   弹幕数据
    * @return 弹幕消息
    */
-  DanmakuMessage createDanmakuMessage(Long roomId, Long userId, Map<String, Object> data);
+  DanmakuMessage createDanmakuMessage(Long roomId, Long userId,
+      InboundFrame.DanmakuFrame.Payload data);
 
   /**
    * 发布弹幕消息
@@ -40,12 +42,13 @@ public interface MessageService {
   List<DanmakuMessage> getRecentMessages(Long roomId, int limit);
 
   /**
-   * 标记消息为已确认
+   * 标记消息为已确认，确认在本地按房间聚合后定期写入Redis
    *
+   * @param roomId    房间ID
    * @param messageId 消息ID
    * @param userId    用户ID
    */
-  void markMessageAcknowledged(Long messageId, Long userId);
+  void markMessageAcknowledged(Long roomId, Long messageId, Long userId);
 
   /**
    * 获取系统状态信息
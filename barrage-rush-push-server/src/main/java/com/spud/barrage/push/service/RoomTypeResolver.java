@@ -0,0 +1,90 @@
+package com.spud.barrage.push.service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.spud.barrage.common.data.mq.enums.RoomType;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * 房间类型解析
+ * 推送服务不依赖common-mq，这里按与CacheManager相同的Redis观众数键和阈值配置判定房间类型，
+ * 只读本地缓存，未命中时先按NORMAL处理并在后台异步加载，已缓存的类型过期后也在后台异步刷新，
+ * 广播路径上不会因查询Redis而阻塞。
+ *
+ * @author Spud
+ * @date 2026/10/16
+ */
+@Slf4j
+@Component
+public class RoomTypeResolver {
+
+  /**
+   * 房间观众数键，与MqConstants.RedisKey.ROOM_VIEWERS保持一致
+   */
+  private static final String ROOM_VIEWERS_KEY = "room:viewers:%d";
+
+  @Autowired
+  private RedisTemplate<String, String> redisTemplate;
+
+  @Value("${barrage.room.viewers.super-hot-threshold:10000}")
+  private int superHotThreshold;
+
+  @Value("${barrage.room.viewers.hot-threshold:1000}")
+  private int hotThreshold;
+
+  @Value("${barrage.room.viewers.cold-threshold:10}")
+  private int coldThreshold;
+
+  private final LoadingCache<Long, RoomType> roomTypeCache = Caffeine.newBuilder()
+      .refreshAfterWrite(10, TimeUnit.SECONDS)
+      .expireAfterAccess(3, TimeUnit.MINUTES)
+      .build(this::loadRoomType);
+
+  /**
+   * 获取房间类型，未知或尚未加载时返回NORMAL，不阻塞调用线程
+   */
+  public RoomType getRoomType(Long roomId) {
+    if (roomId == null) {
+      return RoomType.NORMAL;
+    }
+    RoomType type = roomTypeCache.getIfPresent(roomId);
+    if (type == null) {
+      // 异步加载，同一房间并发未命中时只会发起一次加载
+      roomTypeCache.refresh(roomId);
+      return RoomType.NORMAL;
+    }
+    return type;
+  }
+
+  private RoomType loadRoomType(Long roomId) {
+    try {
+      String viewers = redisTemplate.opsForValue().get(String.format(ROOM_VIEWERS_KEY, roomId));
+      if (viewers == null) {
+        return RoomType.NORMAL;
+      }
+      return determineRoomType(Integer.parseInt(viewers));
+    } catch (NumberFormatException e) {
+      log.error("[房间] 观众数格式错误: roomId={}", roomId);
+      return RoomType.NORMAL;
+    } catch (Exception e) {
+      log.warn("[房间] 获取房间类型失败: roomId={}, error={}", roomId, e.getMessage());
+      return RoomType.NORMAL;
+    }
+  }
+
+  private RoomType determineRoomType(int viewers) {
+    if (viewers >= superHotThreshold) {
+      return RoomType.SUPER_HOT;
+    } else if (viewers >= hotThreshold) {
+      return RoomType.HOT;
+    } else if (viewers <= coldThreshold) {
+      return RoomType.COLD;
+    }
+    return RoomType.NORMAL;
+  }
+}
@@ -29,6 +29,15 @@ public interface TokenService {
    */
   Map<String, Object> generateToken(String userId, String roomId, int expireMinutes);
 
+  /**
+   * 为迁移到其他节点的连接重新签发票据，房间、用户和过期时间不变，只绑定到目标节点
+   *
+   * @param token      当前连接使用的令牌
+   * @param instanceId 目标节点ID
+   * @return 新票据；普通令牌不绑定节点，原样返回；票据无效、过期或已吊销时返回null
+   */
+  String reissueTicket(String token, String instanceId);
+
   /**
    * 吊销令牌
    *
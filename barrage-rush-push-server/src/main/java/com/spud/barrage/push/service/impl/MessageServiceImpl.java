@@ -1,8 +1,12 @@
 package com.spud.barrage.push.service.impl;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.spud.barrage.common.data.dto.DanmakuMessage;
+import com.spud.barrage.push.codec.DanmakuBroadcast;
+import com.spud.barrage.push.codec.InboundFrame;
 import com.spud.barrage.push.constant.WebSocketType;
+import com.spud.barrage.push.manager.AckAggregator;
+import com.spud.barrage.push.manager.DanmakuTickBatcher;
+import com.spud.barrage.push.manager.SessionRecord;
 import com.spud.barrage.push.manager.WebSocketSessionManager;
 import com.spud.barrage.push.service.MessageService;
 import java.util.ArrayList;
@@ -26,7 +30,10 @@ import org.springframework.stereotype.Service;
 public class MessageServiceImpl implements MessageService {
 
   private static final String ROOM_MESSAGE_KEY = "room:message:";
-  private static final String MESSAGE_ACK_KEY = "message:ack:";
+  /**
+   * 房间弹幕序号键，与MqConstants.RedisKey.ROOM_SEQ保持一致
+   */
+  private static final String ROOM_SEQ_KEY = "room:seq:%d";
   private static final int MESSAGE_EXPIRE_DAYS = 7;
 
   @Autowired
@@ -36,18 +43,23 @@ public class MessageServiceImpl implements MessageService {
   private WebSocketSessionManager webSocketSessionManager;
 
   @Autowired
-  private ObjectMapper objectMapper;
+  private DanmakuTickBatcher tickBatcher;
+
+  @Autowired
+  private AckAggregator ackAggregator;
 
   @Override
-  public DanmakuMessage createDanmakuMessage(Long roomId, Long userId, Map<String, Object> data) {
+  public DanmakuMessage createDanmakuMessage(Long roomId, Long userId,
+      InboundFrame.DanmakuFrame.Payload data) {
     DanmakuMessage message = new DanmakuMessage();
     message.setId(generateMessageId());
     message.setRoomId(roomId);
+    message.setSeq(nextSeq(roomId));
     message.setUserId(userId);
-    message.setContent((String) data.getOrDefault("content", ""));
-    message.setColor((String) data.getOrDefault("color", "#FFFFFF"));
-    message.setSize((Integer) data.getOrDefault("size", 25));
-    message.setPosition((Integer) data.getOrDefault("position", 0));
+    message.setContent(data.content() != null ? data.content() : "");
+    message.setColor(data.color() != null ? data.color() : "#FFFFFF");
+    message.setSize(data.size() != null ? data.size() : 25);
+    message.setPosition(data.position() != null ? data.position() : 0);
     message.setTimestamp(System.currentTimeMillis());
 
     log.debug("[消息] 创建弹幕消息: roomId={}, userId={}, messageId={}",
@@ -66,16 +78,8 @@ public class MessageServiceImpl implements MessageService {
       redisTemplate.opsForList().leftPush(messageKey, message);
       redisTemplate.expire(messageKey, MESSAGE_EXPIRE_DAYS, TimeUnit.DAYS);
 
-      // 2. 转换为JSON
-      Map<String, Object> messageMap = new HashMap<>();
-      messageMap.put("type", "DANMAKU");
-      messageMap.put("data", message);
-      messageMap.put("timestamp", System.currentTimeMillis());
-
-      String messageJson = objectMapper.writeValueAsString(messageMap);
-
-      // 3. 广播给房间内的所有用户
-      webSocketSessionManager.broadcastToRoom(WebSocketType.DANMAKU, roomId, messageJson);
+      // 2. 广播给房间内的所有用户，热门房间按节拍合并，按会话协议延迟编码
+      tickBatcher.submit(DanmakuBroadcast.of(message));
 
       log.info("[消息] 发布弹幕消息: roomId={}, messageId={}",
           roomId, message.getId());
@@ -108,11 +112,13 @@ public class MessageServiceImpl implements MessageService {
   }
 
   @Override
-  public void markMessageAcknowledged(Long messageId, Long userId) {
+  public void markMessageAcknowledged(Long roomId, Long messageId, Long userId) {
+    if (roomId == null || messageId == null) {
+      return;
+    }
     try {
-      String ackKey = MESSAGE_ACK_KEY + messageId;
-      redisTemplate.opsForSet().add(ackKey, userId);
-      redisTemplate.expire(ackKey, MESSAGE_EXPIRE_DAYS, TimeUnit.DAYS);
+      ackAggregator.acknowledge(roomId, messageId,
+          userId != null ? userId : SessionRecord.ANONYMOUS_USER);
 
       log.debug("[消息] 标记消息已确认: messageId={}, userId={}", messageId, userId);
     } catch (Exception e) {
@@ -149,6 +155,18 @@ public class MessageServiceImpl implements MessageService {
     }
   }
 
+  /**
+   * 分配房间内单调递增的序号，与弹幕服务共用同一个计数器
+   */
+  private Long nextSeq(Long roomId) {
+    try {
+      return redisTemplate.opsForValue().increment(String.format(ROOM_SEQ_KEY, roomId));
+    } catch (Exception e) {
+      log.warn("[消息] 分配弹幕序号失败: roomId={}, error={}", roomId, e.getMessage());
+      return null;
+    }
+  }
+
   /**
    * 生成消息ID
    * 使用时间戳和随机数组合
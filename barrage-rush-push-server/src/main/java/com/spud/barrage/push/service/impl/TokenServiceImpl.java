@@ -1,18 +1,36 @@
 package com.spud.barrage.push.service.impl;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.spud.barrage.common.core.util.ConnectionTicket;
+import com.spud.barrage.push.manager.TicketRevocationFilter;
 import com.spud.barrage.push.service.TokenService;
+import jakarta.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.MessageListener;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.stereotype.Service;
 
 /**
  * 令牌服务实现类
+ * 校验通过的令牌缓存在本地，过期时间不超过令牌自身的expireAt，同一客户端重连时不再访问Redis；
+ * 不存在的令牌短时间负缓存，避免无效令牌反复穿透到Redis。
+ * 吊销令牌时通过Redis频道广播令牌摘要，各节点收到后清除本地缓存。
+ * 接入代理签发的连接票据（t1.前缀）用共享密钥离线校验签名，只在吊销过滤器命中时才访问Redis。
  *
  * @author Spud
  * @date 2025/3/30
@@ -32,6 +50,99 @@ public class TokenServiceImpl implements TokenService {
   @Value("${push.token.max-expire-minutes:1440}")
   private int maxExpireMinutes;
 
+  /**
+   * 吊销通知以纯文本发布
+   */
+  @Autowired
+  private RedisTemplate<String, String> stringRedisTemplate;
+
+  @Autowired
+  private RedisMessageListenerContainer redisMessageListenerContainer;
+
+  @Value("${push.token.cache-max-size:100000}")
+  private long cacheMaxSize;
+
+  /**
+   * 本地缓存的最长时间(秒)，吊销通知丢失时缓存最多保留这么久
+   */
+  @Value("${push.token.cache-max-ttl-seconds:600}")
+  private long cacheMaxTtlSeconds;
+
+  @Value("${push.token.negative-ttl-seconds:5}")
+  private long negativeTtlSeconds;
+
+  @Value("${push.token.revoke-channel:token:revoked}")
+  private String revokeChannel;
+
+  @Autowired
+  private TicketRevocationFilter ticketRevocationFilter;
+
+  /**
+   * 连接票据签名密钥，与接入代理一致
+   */
+  @Value("${barrage.token.secret:defaultSecretKeyForDevelopmentEnvironmentOnly}")
+  private String ticketSecret;
+
+  private byte[] ticketSecretBytes;
+
+  /**
+   * 令牌摘要 -> 令牌信息
+   */
+  private Cache<String, Map<String, Object>> verifiedTokens;
+
+  /**
+   * 不存在的令牌摘要
+   */
+  private Cache<String, Boolean> unknownTokens;
+
+  @PostConstruct
+  public void init() {
+    ticketSecretBytes = ConnectionTicket.secretBytes(ticketSecret);
+    long maxTtlNanos = TimeUnit.SECONDS.toNanos(cacheMaxTtlSeconds);
+    verifiedTokens = Caffeine.newBuilder()
+        .maximumSize(cacheMaxSize)
+        .expireAfter(new Expiry<String, Map<String, Object>>() {
+          @Override
+          public long expireAfterCreate(String key, Map<String, Object> tokenInfo,
+              long currentTime) {
+            Object expireAt = tokenInfo.get("expireAt");
+            if (!(expireAt instanceof Number number)) {
+              return maxTtlNanos;
+            }
+            long remaining = number.longValue() - System.currentTimeMillis();
+            return Math.max(0, Math.min(maxTtlNanos, TimeUnit.MILLISECONDS.toNanos(remaining)));
+          }
+
+          @Override
+          public long expireAfterUpdate(String key, Map<String, Object> tokenInfo,
+              long currentTime, long currentDuration) {
+            return expireAfterCreate(key, tokenInfo, currentTime);
+          }
+
+          @Override
+          public long expireAfterRead(String key, Map<String, Object> tokenInfo,
+              long currentTime, long currentDuration) {
+            return currentDuration;
+          }
+        })
+        .build();
+    unknownTokens = Caffeine.newBuilder()
+        .maximumSize(cacheMaxSize)
+        .expireAfterWrite(negativeTtlSeconds, TimeUnit.SECONDS)
+        .build();
+
+    // 其他节点吊销令牌时清除本地缓存
+    MessageListener listener = (message, pattern) -> {
+      String digest = new String(message.getBody(), StandardCharsets.UTF_8);
+      verifiedTokens.invalidate(digest);
+      log.debug("[令牌] 收到吊销通知，清除本地缓存: digest={}", digest);
+    };
+    redisMessageListenerContainer.addMessageListener(listener, new ChannelTopic(revokeChannel));
+
+    log.info("[令牌] 本地令牌缓存初始化完成: maxSize={}, maxTtlSeconds={}, negativeTtlSeconds={}",
+        cacheMaxSize, cacheMaxTtlSeconds, negativeTtlSeconds);
+  }
+
   @Override
   public Map<String, Object> verifyToken(String token) {
     if (token == null || token.isEmpty()) {
@@ -39,11 +150,27 @@ public class TokenServiceImpl implements TokenService {
       return null;
     }
 
+    if (ConnectionTicket.isTicket(token)) {
+      return verifyTicket(token);
+    }
+
+    String digest = digest(token);
+    Map<String, Object> cached = verifiedTokens.getIfPresent(digest);
+    if (cached != null) {
+      log.debug("[令牌] 本地缓存命中: userId={}", cached.get("userId"));
+      return cached;
+    }
+    if (unknownTokens.getIfPresent(digest) != null) {
+      log.debug("[令牌] 令牌不存在(负缓存): {}", token);
+      return null;
+    }
+
     String redisKey = TOKEN_KEY_PREFIX + token;
     Object tokenData = redisTemplate.opsForValue().get(redisKey);
 
     if (tokenData == null) {
       log.warn("[令牌] 令牌不存在或已过期: {}", token);
+      unknownTokens.put(digest, Boolean.TRUE);
       return null;
     }
 
@@ -56,8 +183,8 @@ public class TokenServiceImpl implements TokenService {
     Map<String, Object> tokenInfo = (Map<String, Object>) tokenData;
 
     // 检查是否过期（双重检查，Redis已有过期机制，这里是额外检查）
-    Long expireAt = (Long) tokenInfo.get("expireAt");
-    if (expireAt != null && expireAt < System.currentTimeMillis()) {
+    Object expireAt = tokenInfo.get("expireAt");
+    if (expireAt instanceof Number number && number.longValue() < System.currentTimeMillis()) {
       log.warn("[令牌] 令牌已过期: token={}, expireAt={}", token, expireAt);
       redisTemplate.delete(redisKey);
       return null;
@@ -66,7 +193,10 @@ public class TokenServiceImpl implements TokenService {
     log.debug("[令牌] 令牌验证成功: token={}, userId={}",
         token, tokenInfo.get("userId"));
 
-    return tokenInfo;
+    // 缓存的令牌信息由多个握手共享，不允许修改
+    Map<String, Object> verified = Collections.unmodifiableMap(tokenInfo);
+    verifiedTokens.put(digest, verified);
+    return verified;
   }
 
   @Override
@@ -108,9 +238,24 @@ public class TokenServiceImpl implements TokenService {
       return false;
     }
 
+    if (ConnectionTicket.isTicket(token)) {
+      ConnectionTicket ticket = ConnectionTicket.verify(token, ticketSecretBytes);
+      if (ticket == null) {
+        log.warn("[令牌] 票据签名无效，无法吊销");
+        return false;
+      }
+      ticketRevocationFilter.revoke(ticket.ticketId(), ticket.expireAt());
+      return true;
+    }
+
     String redisKey = TOKEN_KEY_PREFIX + token;
     Boolean deleted = redisTemplate.delete(redisKey);
 
+    // 清除本节点缓存并通知其他节点
+    String digest = digest(token);
+    verifiedTokens.invalidate(digest);
+    stringRedisTemplate.convertAndSend(revokeChannel, digest);
+
     if (Boolean.TRUE.equals(deleted)) {
       log.info("[令牌] 令牌已吊销: {}", token);
       return true;
@@ -120,6 +265,63 @@ public class TokenServiceImpl implements TokenService {
     }
   }
 
+  @Override
+  public String reissueTicket(String token, String instanceId) {
+    if (!ConnectionTicket.isTicket(token)) {
+      return token;
+    }
+    ConnectionTicket ticket = ConnectionTicket.verify(token, ticketSecretBytes);
+    if (ticket == null || ticket.isExpired(System.currentTimeMillis())
+        || ticketRevocationFilter.isRevoked(ticket.ticketId())) {
+      return null;
+    }
+    return ConnectionTicket.issue(ticket.roomId(), ticket.userId(), ticket.expireAt(),
+        ticket.region(), instanceId).sign(ticketSecretBytes);
+  }
+
+  /**
+   * 离线校验连接票据
+   */
+  private Map<String, Object> verifyTicket(String token) {
+    ConnectionTicket ticket = ConnectionTicket.verify(token, ticketSecretBytes);
+    if (ticket == null) {
+      log.warn("[令牌] 票据签名无效");
+      return null;
+    }
+    if (ticket.isExpired(System.currentTimeMillis())) {
+      log.warn("[令牌] 票据已过期: ticketId={}, expireAt={}", ticket.ticketId(),
+          ticket.expireAt());
+      return null;
+    }
+    if (ticketRevocationFilter.isRevoked(ticket.ticketId())) {
+      log.warn("[令牌] 票据已吊销: ticketId={}", ticket.ticketId());
+      return null;
+    }
+
+    Map<String, Object> tokenInfo = new HashMap<>(8);
+    tokenInfo.put("ticketId", ticket.ticketId());
+    tokenInfo.put("userId", ticket.userId());
+    tokenInfo.put("roomId", ticket.roomId());
+    tokenInfo.put("expireAt", ticket.expireAt());
+    tokenInfo.put("region", ticket.region());
+    tokenInfo.put("instanceId", ticket.instanceId());
+
+    log.debug("[令牌] 票据验证成功: ticketId={}, userId={}", ticket.ticketId(), ticket.userId());
+    return tokenInfo;
+  }
+
+  /**
+   * 令牌的SHA-256摘要，本地缓存和吊销通知都不保存令牌原文
+   */
+  private static String digest(String token) {
+    try {
+      MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+      return HexFormat.of().formatHex(sha256.digest(token.getBytes(StandardCharsets.UTF_8)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 not available", e);
+    }
+  }
+
   /**
    * 生成唯一令牌
    */
@@ -0,0 +1,127 @@
+package com.spud.barrage.push.transport;
+
+import io.netty.buffer.ByteBufUtil;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.CloseWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.PingWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.PongWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketServerHandshaker;
+import java.nio.ByteBuffer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PongMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+
+/**
+ * Netty WebSocket帧处理器
+ * 将Netty的帧和连接事件转换为WebSocketHandler回调，处理器代码无需区分传输层
+ *
+ * @author Spud
+ * @date 2026/10/16
+ */
+@Slf4j
+public class NettyFrameHandler extends SimpleChannelInboundHandler<WebSocketFrame> {
+
+  private final WebSocketHandler handler;
+
+  private final WebSocketServerHandshaker handshaker;
+
+  private NettyWebSocketSession session;
+
+  public NettyFrameHandler(WebSocketHandler handler, WebSocketServerHandshaker handshaker) {
+    this.handler = handler;
+    this.handshaker = handshaker;
+  }
+
+  /**
+   * 握手完成，触发连接建立回调
+   */
+  void open(NettyWebSocketSession session) {
+    this.session = session;
+    try {
+      handler.afterConnectionEstablished(session);
+    } catch (Exception e) {
+      log.error("[Netty] 连接建立回调异常: sessionId={}", session.getId(), e);
+      closeQuietly(CloseStatus.SERVER_ERROR);
+    }
+  }
+
+  @Override
+  protected void channelRead0(ChannelHandlerContext ctx, WebSocketFrame frame) {
+    if (frame instanceof TextWebSocketFrame textFrame) {
+      dispatch(new TextMessage(textFrame.text()));
+    } else if (frame instanceof BinaryWebSocketFrame) {
+      dispatch(new BinaryMessage(ByteBufUtil.getBytes(frame.content())));
+    } else if (frame instanceof PingWebSocketFrame) {
+      ctx.writeAndFlush(new PongWebSocketFrame(frame.content().retain()));
+    } else if (frame instanceof PongWebSocketFrame) {
+      dispatch(new PongMessage(ByteBuffer.wrap(ByteBufUtil.getBytes(frame.content()))));
+    } else if (frame instanceof CloseWebSocketFrame closeFrame) {
+      session.onRemoteClose(toCloseStatus(closeFrame));
+      handshaker.close(ctx.channel(), closeFrame.retain());
+    }
+  }
+
+  @Override
+  public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+    if (session != null) {
+      CloseStatus status = session.getCloseStatus();
+      try {
+        handler.afterConnectionClosed(session,
+            status != null ? status : CloseStatus.NO_CLOSE_FRAME);
+      } catch (Exception e) {
+        log.error("[Netty] 连接关闭回调异常: sessionId={}", session.getId(), e);
+      }
+    }
+    super.channelInactive(ctx);
+  }
+
+  @Override
+  public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+    if (session == null) {
+      ctx.close();
+      return;
+    }
+    try {
+      handler.handleTransportError(session, cause);
+    } catch (Exception e) {
+      log.error("[Netty] 传输错误回调异常: sessionId={}", session.getId(), e);
+    }
+    closeQuietly(CloseStatus.SERVER_ERROR);
+  }
+
+  private void dispatch(WebSocketMessage<?> message) {
+    if (session == null) {
+      return;
+    }
+    try {
+      handler.handleMessage(session, message);
+    } catch (Exception e) {
+      log.error("[Netty] 消息处理异常: sessionId={}", session.getId(), e);
+      closeQuietly(CloseStatus.SERVER_ERROR);
+    }
+  }
+
+  private void closeQuietly(CloseStatus status) {
+    try {
+      session.close(status);
+    } catch (Exception e) {
+      log.debug("[Netty] 关闭连接失败: sessionId={}", session.getId());
+    }
+  }
+
+  private static CloseStatus toCloseStatus(CloseWebSocketFrame frame) {
+    int code = frame.statusCode();
+    if (code < 1000 || code >= 5000) {
+      return CloseStatus.NO_STATUS_CODE;
+    }
+    return new CloseStatus(code, frame.reasonText());
+  }
+}
@@ -0,0 +1,255 @@
+package com.spud.barrage.push.transport;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.QueryStringDecoder;
+import io.netty.handler.codec.http.websocketx.WebSocketFrameAggregator;
+import io.netty.handler.codec.http.websocketx.WebSocketServerHandshaker;
+import io.netty.handler.codec.http.websocketx.WebSocketServerHandshakerFactory;
+import io.netty.handler.timeout.IdleStateEvent;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+import org.springframework.web.socket.SubProtocolCapable;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.handler.ExceptionWebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+
+/**
+ * Netty WebSocket握手处理器
+ * 按路径匹配处理器，复用Servlet传输的握手拦截器完成鉴权，握手成功后切换为帧处理器。
+ * 平台线程模式下运行在处理器线程组上，虚拟线程模式下拦截器在鉴权执行器上执行，
+ * 两种情况下拦截器中的Redis查询都不会阻塞IO线程。
+ *
+ * @author Spud
+ * @date 2026/10/16
+ */
+@Slf4j
+public class NettyHandshakeHandler extends SimpleChannelInboundHandler<FullHttpRequest> {
+
+  private static final PathMatcher PATH_MATCHER = new AntPathMatcher();
+
+  private final Map<String, WebSocketHandler> routes;
+
+  private final List<HandshakeInterceptor> interceptors;
+
+  private final int maxFramePayloadLength;
+
+  private final boolean allowExtensions;
+
+  private final long sendTimeoutMillis;
+
+  /**
+   * 鉴权执行器，为null时在当前处理器线程上鉴权
+   */
+  private final Executor authExecutor;
+
+  public NettyHandshakeHandler(Map<String, WebSocketHandler> routes,
+      List<HandshakeInterceptor> interceptors, int maxFramePayloadLength,
+      boolean allowExtensions, long sendTimeoutMillis, Executor authExecutor) {
+    this.routes = routes;
+    this.interceptors = interceptors;
+    this.maxFramePayloadLength = maxFramePayloadLength;
+    this.allowExtensions = allowExtensions;
+    this.sendTimeoutMillis = sendTimeoutMillis;
+    this.authExecutor = authExecutor;
+  }
+
+  @Override
+  protected void channelRead0(ChannelHandlerContext ctx, FullHttpRequest request) {
+    if (!request.decoderResult().isSuccess()) {
+      sendHttpResponse(ctx, request, HttpResponseStatus.BAD_REQUEST);
+      return;
+    }
+
+    String path = new QueryStringDecoder(request.uri()).path();
+    WebSocketHandler handler = route(path);
+    if (handler == null) {
+      sendHttpResponse(ctx, request, HttpResponseStatus.NOT_FOUND);
+      return;
+    }
+    if (!HttpHeaderValues.WEBSOCKET.contentEqualsIgnoreCase(
+        request.headers().get(HttpHeaderNames.UPGRADE))) {
+      sendHttpResponse(ctx, request, HttpResponseStatus.BAD_REQUEST);
+      return;
+    }
+
+    NettyHandshakeRequest handshakeRequest = new NettyHandshakeRequest(request, "ws",
+        (InetSocketAddress) ctx.channel().localAddress(),
+        (InetSocketAddress) ctx.channel().remoteAddress());
+    NettyHandshakeResponse handshakeResponse = new NettyHandshakeResponse();
+    Map<String, Object> attributes = new ConcurrentHashMap<>();
+
+    if (authExecutor == null) {
+      HttpResponseStatus rejected = authenticate(path, handler, handshakeRequest,
+          handshakeResponse, attributes);
+      completeHandshake(ctx, request, path, handler, handshakeRequest, handshakeResponse,
+          attributes, rejected);
+      return;
+    }
+
+    // 拦截器中的阻塞调用交给鉴权执行器，完成后回到连接所在线程继续握手
+    request.retain();
+    try {
+      authExecutor.execute(() -> {
+        HttpResponseStatus rejected = authenticate(path, handler, handshakeRequest,
+            handshakeResponse, attributes);
+        ctx.executor().execute(() -> {
+          try {
+            if (ctx.channel().isActive()) {
+              completeHandshake(ctx, request, path, handler, handshakeRequest,
+                  handshakeResponse, attributes, rejected);
+            }
+          } finally {
+            request.release();
+          }
+        });
+      });
+    } catch (RejectedExecutionException e) {
+      request.release();
+      sendHttpResponse(ctx, request, HttpResponseStatus.SERVICE_UNAVAILABLE);
+    }
+  }
+
+  /**
+   * 执行握手拦截器（鉴权、解析房间ID）
+   *
+   * @return 拒绝握手时的响应状态，通过时返回null
+   */
+  private HttpResponseStatus authenticate(String path, WebSocketHandler handler,
+      NettyHandshakeRequest handshakeRequest, NettyHandshakeResponse handshakeResponse,
+      Map<String, Object> attributes) {
+    for (HandshakeInterceptor interceptor : interceptors) {
+      try {
+        if (!interceptor.beforeHandshake(handshakeRequest, handshakeResponse, handler,
+            attributes)) {
+          return HttpResponseStatus.valueOf(
+              handshakeResponse.getStatusCode(HttpStatus.FORBIDDEN).value());
+        }
+      } catch (Exception e) {
+        log.error("[Netty] 握手拦截器异常: path={}", path, e);
+        return HttpResponseStatus.INTERNAL_SERVER_ERROR;
+      }
+    }
+    return null;
+  }
+
+  private void completeHandshake(ChannelHandlerContext ctx, FullHttpRequest request, String path,
+      WebSocketHandler handler, NettyHandshakeRequest handshakeRequest,
+      NettyHandshakeResponse handshakeResponse, Map<String, Object> attributes,
+      HttpResponseStatus rejected) {
+    if (rejected != null) {
+      // 带上拦截器设置的响应头，如准入拒绝时的Retry-After
+      sendHttpResponse(ctx, request, rejected, handshakeResponse.getHeaders());
+      return;
+    }
+
+    String subprotocols = WebSocketHandlerDecorator.unwrap(handler)
+        instanceof SubProtocolCapable capable
+        ? String.join(",", capable.getSubProtocols()) : null;
+    WebSocketServerHandshakerFactory factory = new WebSocketServerHandshakerFactory(
+        handshakeRequest.getURI().toString(), subprotocols, allowExtensions,
+        maxFramePayloadLength);
+    WebSocketServerHandshaker handshaker = factory.newHandshaker(request);
+    if (handshaker == null) {
+      WebSocketServerHandshakerFactory.sendUnsupportedVersionResponse(ctx.channel());
+      return;
+    }
+
+    // 先挂上帧处理器再握手，保证握手响应发出后到达的帧都能被处理
+    ChannelPipeline pipeline = ctx.pipeline();
+    NettyFrameHandler frameHandler = new NettyFrameHandler(
+        new ExceptionWebSocketHandlerDecorator(handler), handshaker);
+    pipeline.addLast("ws-aggregator", new WebSocketFrameAggregator(maxFramePayloadLength));
+    pipeline.addLast(ctx.executor(), "ws-frame", frameHandler);
+
+    handshaker.handshake(ctx.channel(), request).addListener(future -> {
+      if (!future.isSuccess()) {
+        log.warn("[Netty] 握手失败: path={}, error={}", path, future.cause().getMessage());
+        ctx.channel().close();
+      }
+    });
+
+    // 选定的子协议在生成握手响应时已确定
+    NettyWebSocketSession session = new NettyWebSocketSession(ctx.channel(),
+        handshakeRequest.getURI(), handshakeRequest.getHeaders(), attributes,
+        handshaker.selectedSubprotocol(), maxFramePayloadLength, sendTimeoutMillis);
+    if (pipeline.get(NettyPushServer.HANDSHAKE_IDLE_HANDLER) != null) {
+      pipeline.remove(NettyPushServer.HANDSHAKE_IDLE_HANDLER);
+    }
+    pipeline.remove(this);
+
+    for (HandshakeInterceptor interceptor : interceptors) {
+      interceptor.afterHandshake(handshakeRequest, handshakeResponse, handler, null);
+    }
+
+    // 帧处理器与当前处理器共用同一执行线程，连接建立回调一定先于任何帧处理
+    frameHandler.open(session);
+  }
+
+  /**
+   * 连接后迟迟不发起握手时关闭
+   */
+  @Override
+  public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+    if (evt instanceof IdleStateEvent) {
+      log.debug("[Netty] 握手前读空闲超时: remote={}", ctx.channel().remoteAddress());
+      ctx.close();
+      return;
+    }
+    super.userEventTriggered(ctx, evt);
+  }
+
+  @Override
+  public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+    log.warn("[Netty] 握手阶段异常: remote={}, error={}", ctx.channel().remoteAddress(),
+        cause.getMessage());
+    ctx.close();
+  }
+
+  private WebSocketHandler route(String path) {
+    WebSocketHandler handler = routes.get(path);
+    if (handler != null) {
+      return handler;
+    }
+    for (Map.Entry<String, WebSocketHandler> entry : routes.entrySet()) {
+      if (PATH_MATCHER.match(entry.getKey(), path)) {
+        return entry.getValue();
+      }
+    }
+    return null;
+  }
+
+  private void sendHttpResponse(ChannelHandlerContext ctx, FullHttpRequest request,
+      HttpResponseStatus status) {
+    sendHttpResponse(ctx, request, status, HttpHeaders.EMPTY);
+  }
+
+  private void sendHttpResponse(ChannelHandlerContext ctx, FullHttpRequest request,
+      HttpResponseStatus status, HttpHeaders headers) {
+    FullHttpResponse response = new DefaultFullHttpResponse(request.protocolVersion(), status,
+        Unpooled.EMPTY_BUFFER);
+    headers.forEach((name, values) -> response.headers().set(name, values));
+    HttpUtil.setContentLength(response, 0);
+    ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
+  }
+}
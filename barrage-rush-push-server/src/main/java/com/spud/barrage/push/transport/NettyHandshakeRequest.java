@@ -0,0 +1,90 @@
+package com.spud.barrage.push.transport;
+
+import io.netty.handler.codec.http.FullHttpRequest;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.security.Principal;
+import java.util.Map.Entry;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.ServerHttpAsyncRequestControl;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+
+/**
+ * Netty握手请求适配
+ * 让现有的HandshakeInterceptor无需修改即可用于Netty传输
+ *
+ * @author Spud
+ * @date 2026/10/16
+ */
+public class NettyHandshakeRequest implements ServerHttpRequest {
+
+  private final URI uri;
+
+  private final HttpMethod method;
+
+  private final HttpHeaders headers;
+
+  private final InetSocketAddress localAddress;
+
+  private final InetSocketAddress remoteAddress;
+
+  public NettyHandshakeRequest(FullHttpRequest request, String scheme,
+      InetSocketAddress localAddress, InetSocketAddress remoteAddress) {
+    this.headers = new HttpHeaders();
+    for (Entry<String, String> entry : request.headers()) {
+      headers.add(entry.getKey(), entry.getValue());
+    }
+    String host = headers.getFirst(HttpHeaders.HOST);
+    if (host == null) {
+      host = localAddress.getHostString() + ":" + localAddress.getPort();
+    }
+    this.uri = URI.create(scheme + "://" + host + request.uri());
+    this.method = HttpMethod.valueOf(request.method().name());
+    this.localAddress = localAddress;
+    this.remoteAddress = remoteAddress;
+  }
+
+  @Override
+  public HttpMethod getMethod() {
+    return method;
+  }
+
+  @Override
+  public URI getURI() {
+    return uri;
+  }
+
+  @Override
+  public HttpHeaders getHeaders() {
+    return headers;
+  }
+
+  @Override
+  public Principal getPrincipal() {
+    return null;
+  }
+
+  @Override
+  public InetSocketAddress getLocalAddress() {
+    return localAddress;
+  }
+
+  @Override
+  public InetSocketAddress getRemoteAddress() {
+    return remoteAddress;
+  }
+
+  @Override
+  public ServerHttpAsyncRequestControl getAsyncRequestControl(ServerHttpResponse response) {
+    throw new UnsupportedOperationException("async request control is not supported");
+  }
+
+  @Override
+  public InputStream getBody() {
+    return new ByteArrayInputStream(new byte[0]);
+  }
+}
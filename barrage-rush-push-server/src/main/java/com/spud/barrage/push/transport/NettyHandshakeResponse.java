@@ -0,0 +1,60 @@
+package com.spud.barrage.push.transport;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.ServerHttpResponse;
+
+/**
+ * Netty握手响应适配
+ * 只记录拦截器设置的状态码和响应头，由握手处理器统一写回
+ *
+ * @author Spud
+ * @date 2026/10/16
+ */
+public class NettyHandshakeResponse implements ServerHttpResponse {
+
+  private final HttpHeaders headers = new HttpHeaders();
+
+  private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+  private HttpStatusCode statusCode;
+
+  @Override
+  public void setStatusCode(HttpStatusCode status) {
+    this.statusCode = status;
+  }
+
+  /**
+   * 拦截器设置的状态码，未设置时返回默认值
+   */
+  public HttpStatusCode getStatusCode(HttpStatus defaultStatus) {
+    return statusCode != null ? statusCode : defaultStatus;
+  }
+
+  @Override
+  public HttpHeaders getHeaders() {
+    return headers;
+  }
+
+  @Override
+  public OutputStream getBody() {
+    return body;
+  }
+
+  public byte[] getBodyBytes() {
+    return body.toByteArray();
+  }
+
+  @Override
+  public void flush() {
+    // 由握手处理器统一写回
+  }
+
+  @Override
+  public void close() {
+    // 由握手处理器统一写回
+  }
+}
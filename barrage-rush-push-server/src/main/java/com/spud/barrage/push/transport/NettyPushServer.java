@@ -0,0 +1,191 @@
+package com.spud.barrage.push.transport;
+
+import com.spud.barrage.push.handler.CdnWebSocketHandler;
+import com.spud.barrage.push.handler.DanmakuWebSocketHandler;
+import com.spud.barrage.push.handler.ExecutorWebSocketHandlerDecorator;
+import com.spud.barrage.push.handler.HeartbeatWebSocketHandler;
+import com.spud.barrage.push.handler.MuxWebSocketHandler;
+import com.spud.barrage.push.interceptor.WebSocketInterceptor;
+import com.spud.barrage.push.manager.PushExecutors;
+import com.spud.barrage.push.properties.PushProperties;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.websocketx.extensions.compression.WebSocketServerCompressionHandler;
+import io.netty.handler.timeout.IdleStateHandler;
+import io.netty.util.concurrent.DefaultEventExecutorGroup;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.concurrent.EventExecutorGroup;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+
+/**
+ * Netty推送服务
+ * push.transport.type=netty时启用，替代Servlet容器的WebSocket端点，
+ * 复用相同的处理器、握手拦截器和会话管理器。
+ * 优先使用epoll，连接使用池化ByteBuf分配器，并通过写缓冲水位对慢连接施加背压。
+ *
+ * @author Spud
+ * @date 2026/10/16
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "push.transport", name = "type", havingValue = "netty")
+public class NettyPushServer {
+
+  private static final int HANDSHAKE_MAX_CONTENT_LENGTH = 8192;
+
+  /**
+   * 握手阶段的读空闲检测，握手完成后移除
+   */
+  static final String HANDSHAKE_IDLE_HANDLER = "handshake-idle";
+
+  @Autowired
+  private PushProperties pushProperties;
+
+  @Autowired
+  private DanmakuWebSocketHandler danmakuWebSocketHandler;
+
+  @Autowired
+  private HeartbeatWebSocketHandler heartbeatWebSocketHandler;
+
+  @Autowired
+  private CdnWebSocketHandler cdnWebSocketHandler;
+
+  @Autowired
+  private MuxWebSocketHandler muxWebSocketHandler;
+
+  @Autowired
+  private WebSocketInterceptor webSocketInterceptor;
+
+  @Autowired
+  private PushExecutors pushExecutors;
+
+  private EventLoopGroup bossGroup;
+
+  private EventLoopGroup workerGroup;
+
+  /**
+   * 平台线程模式下的握手鉴权和处理器回调线程组，每个连接固定在一个线程上，回调保持顺序；
+   * 虚拟线程模式下为null，鉴权和回调由虚拟线程执行
+   */
+  private EventExecutorGroup handlerGroup;
+
+  private Channel serverChannel;
+
+  @PostConstruct
+  public void start() throws InterruptedException {
+    PushProperties.Netty netty = pushProperties.getTransport().getNetty();
+    boolean useEpoll = netty.isEpoll() && Epoll.isAvailable();
+    Class<? extends ServerChannel> channelClass;
+    if (useEpoll) {
+      bossGroup = new EpollEventLoopGroup(1, new DefaultThreadFactory("netty-boss"));
+      workerGroup = new EpollEventLoopGroup(netty.getWorkerThreads(),
+          new DefaultThreadFactory("netty-worker"));
+      channelClass = EpollServerSocketChannel.class;
+    } else {
+      bossGroup = new NioEventLoopGroup(1, new DefaultThreadFactory("netty-boss"));
+      workerGroup = new NioEventLoopGroup(netty.getWorkerThreads(),
+          new DefaultThreadFactory("netty-worker"));
+      channelClass = NioServerSocketChannel.class;
+    }
+    int handlerThreads = 0;
+    if (!pushExecutors.isVirtual()) {
+      handlerThreads = netty.getHandlerThreads() > 0 ? netty.getHandlerThreads()
+          : Runtime.getRuntime().availableProcessors() * 2;
+      handlerGroup = new DefaultEventExecutorGroup(handlerThreads,
+          new DefaultThreadFactory("netty-handler"));
+    }
+
+    // 与WebSocketConfig中注册的端点保持一致
+    Map<String, WebSocketHandler> routes = new LinkedHashMap<>();
+    routes.put("/ws/danmaku/{roomId}", decorate(danmakuWebSocketHandler));
+    routes.put("/ws/heartbeat/{roomId}", decorate(heartbeatWebSocketHandler));
+    routes.put("/ws/cdn/{roomId}", decorate(cdnWebSocketHandler));
+    routes.put("/ws/mux/{roomId}", decorate(muxWebSocketHandler));
+    List<HandshakeInterceptor> interceptors = List.of(webSocketInterceptor);
+
+    boolean containerDeflate = pushProperties.getBroadcast().isContainerDeflate();
+    long sendTimeoutMillis = pushProperties.getOutbound().getSendTimeoutMillis();
+
+    ServerBootstrap bootstrap = new ServerBootstrap()
+        .group(bossGroup, workerGroup)
+        .channel(channelClass)
+        .option(ChannelOption.SO_BACKLOG, netty.getSoBacklog())
+        .option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+        .childOption(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+        .childOption(ChannelOption.TCP_NODELAY, true)
+        .childOption(ChannelOption.SO_KEEPALIVE, true)
+        .childOption(ChannelOption.WRITE_BUFFER_WATER_MARK,
+            new WriteBufferWaterMark(netty.getWriteBufferLowWaterMark(),
+                netty.getWriteBufferHighWaterMark()))
+        .childHandler(new ChannelInitializer<>() {
+          @Override
+          protected void initChannel(Channel ch) {
+            ChannelPipeline pipeline = ch.pipeline();
+            pipeline.addLast("http-codec", new HttpServerCodec());
+            pipeline.addLast("http-aggregator",
+                new HttpObjectAggregator(HANDSHAKE_MAX_CONTENT_LENGTH));
+            if (containerDeflate) {
+              pipeline.addLast("ws-compression", new WebSocketServerCompressionHandler());
+            }
+            // 只回收迟迟不握手的连接，握手后只接收推送的连接没有上行数据，存活检测交给SessionIdleMonitor
+            pipeline.addLast(HANDSHAKE_IDLE_HANDLER, new IdleStateHandler(
+                netty.getIdleTimeoutMillis(), 0, 0, TimeUnit.MILLISECONDS));
+            pipeline.addLast(handlerGroup, "handshake",
+                new NettyHandshakeHandler(routes, interceptors, netty.getMaxFramePayloadLength(),
+                    containerDeflate, sendTimeoutMillis, pushExecutors.getHandlerExecutor()));
+          }
+        });
+
+    serverChannel = bootstrap.bind(netty.getPort()).sync().channel();
+
+    log.info("Netty推送服务启动完成: port={}, transport={}, executorMode={}, handlerThreads={}, "
+            + "waterMark={}-{}", netty.getPort(), useEpoll ? "epoll" : "nio",
+        pushProperties.getExecutor().getMode(), handlerThreads,
+        netty.getWriteBufferLowWaterMark(), netty.getWriteBufferHighWaterMark());
+  }
+
+  private WebSocketHandler decorate(WebSocketHandler handler) {
+    return ExecutorWebSocketHandlerDecorator.decorate(handler, pushExecutors);
+  }
+
+  @PreDestroy
+  public void stop() {
+    if (serverChannel != null) {
+      serverChannel.close().syncUninterruptibly();
+    }
+    if (bossGroup != null) {
+      bossGroup.shutdownGracefully();
+    }
+    if (workerGroup != null) {
+      workerGroup.shutdownGracefully();
+    }
+    if (handlerGroup != null) {
+      handlerGroup.shutdownGracefully();
+    }
+  }
+}
@@ -0,0 +1,238 @@
+package com.spud.barrage.push.transport;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.CloseWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.PingWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.PongWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.security.Principal;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PingMessage;
+import org.springframework.web.socket.PongMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+/**
+ * 基于Netty Channel的WebSocket会话
+ * 对处理器和会话管理器暴露与Servlet实现相同的WebSocketSession接口。
+ * 发送在写线程池中调用，连接超过写缓冲高水位时等待本次写入完成，超时视为发送失败，
+ * 由会话发送队列按溢出策略处理积压。
+ *
+ * @author Spud
+ * @date 2026/10/16
+ */
+public class NettyWebSocketSession implements WebSocketSession {
+
+  private final Channel channel;
+
+  private final URI uri;
+
+  private final HttpHeaders handshakeHeaders;
+
+  private final Map<String, Object> attributes;
+
+  private final String acceptedProtocol;
+
+  private final long sendTimeoutMillis;
+
+  private final AtomicBoolean closing = new AtomicBoolean(false);
+
+  private volatile CloseStatus closeStatus;
+
+  private int textMessageSizeLimit;
+
+  private int binaryMessageSizeLimit;
+
+  public NettyWebSocketSession(Channel channel, URI uri, HttpHeaders handshakeHeaders,
+      Map<String, Object> attributes, String acceptedProtocol, int messageSizeLimit,
+      long sendTimeoutMillis) {
+    this.channel = channel;
+    this.uri = uri;
+    this.handshakeHeaders = HttpHeaders.readOnlyHttpHeaders(handshakeHeaders);
+    this.attributes = attributes;
+    this.acceptedProtocol = acceptedProtocol;
+    this.textMessageSizeLimit = messageSizeLimit;
+    this.binaryMessageSizeLimit = messageSizeLimit;
+    this.sendTimeoutMillis = sendTimeoutMillis;
+  }
+
+  @Override
+  public String getId() {
+    return channel.id().asLongText();
+  }
+
+  @Override
+  public URI getUri() {
+    return uri;
+  }
+
+  @Override
+  public HttpHeaders getHandshakeHeaders() {
+    return handshakeHeaders;
+  }
+
+  @Override
+  public Map<String, Object> getAttributes() {
+    return attributes;
+  }
+
+  @Override
+  public Principal getPrincipal() {
+    return null;
+  }
+
+  @Override
+  public InetSocketAddress getLocalAddress() {
+    return (InetSocketAddress) channel.localAddress();
+  }
+
+  @Override
+  public InetSocketAddress getRemoteAddress() {
+    return (InetSocketAddress) channel.remoteAddress();
+  }
+
+  @Override
+  public String getAcceptedProtocol() {
+    return acceptedProtocol;
+  }
+
+  @Override
+  public void setTextMessageSizeLimit(int messageSizeLimit) {
+    this.textMessageSizeLimit = messageSizeLimit;
+  }
+
+  @Override
+  public int getTextMessageSizeLimit() {
+    return textMessageSizeLimit;
+  }
+
+  @Override
+  public void setBinaryMessageSizeLimit(int messageSizeLimit) {
+    this.binaryMessageSizeLimit = messageSizeLimit;
+  }
+
+  @Override
+  public int getBinaryMessageSizeLimit() {
+    return binaryMessageSizeLimit;
+  }
+
+  @Override
+  public List<WebSocketExtension> getExtensions() {
+    return Collections.emptyList();
+  }
+
+  @Override
+  public void sendMessage(WebSocketMessage<?> message) throws IOException {
+    if (!isOpen()) {
+      throw new IllegalStateException("WebSocket session is closed: " + getId());
+    }
+
+    ChannelFuture future = channel.writeAndFlush(toFrame(message));
+    if (channel.isWritable()) {
+      return;
+    }
+
+    // 超过高水位，等待本次写入落到socket，保持与阻塞发送相同的背压语义
+    try {
+      if (!future.await(sendTimeoutMillis, TimeUnit.MILLISECONDS)) {
+        throw new IOException("send timeout after " + sendTimeoutMillis + "ms");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("interrupted while sending", e);
+    }
+    if (!future.isSuccess()) {
+      throw new IOException("send failed", future.cause());
+    }
+  }
+
+  @Override
+  public boolean isOpen() {
+    return channel.isActive() && !closing.get();
+  }
+
+  @Override
+  public void close() throws IOException {
+    close(CloseStatus.NORMAL);
+  }
+
+  @Override
+  public void close(CloseStatus status) throws IOException {
+    if (!closing.compareAndSet(false, true)) {
+      return;
+    }
+    closeStatus = status;
+    if (channel.isActive()) {
+      channel.writeAndFlush(new CloseWebSocketFrame(status.getCode(), status.getReason()))
+          .addListener(ChannelFutureListener.CLOSE);
+    }
+  }
+
+  /**
+   * 连接关闭的状态，由本端主动关闭时为关闭时指定的状态
+   */
+  CloseStatus getCloseStatus() {
+    return closeStatus;
+  }
+
+  /**
+   * 对端发起关闭时记录关闭状态
+   */
+  void onRemoteClose(CloseStatus status) {
+    if (closing.compareAndSet(false, true)) {
+      closeStatus = status;
+    }
+  }
+
+  /**
+   * 转换为Netty帧
+   * 二进制载荷可能来自广播帧的共享缓冲区，发送返回后即会被归还缓冲池，因此复制到Channel的池化缓冲区
+   */
+  private WebSocketFrame toFrame(WebSocketMessage<?> message) {
+    if (message instanceof TextMessage textMessage) {
+      return new TextWebSocketFrame(ByteBufUtil.writeUtf8(channel.alloc(),
+          textMessage.getPayload()));
+    }
+    if (message instanceof BinaryMessage binaryMessage) {
+      return new BinaryWebSocketFrame(copy(binaryMessage.getPayload()));
+    }
+    if (message instanceof PingMessage pingMessage) {
+      return new PingWebSocketFrame(copy(pingMessage.getPayload()));
+    }
+    if (message instanceof PongMessage pongMessage) {
+      return new PongWebSocketFrame(copy(pongMessage.getPayload()));
+    }
+    throw new IllegalArgumentException("unsupported message type: " + message.getClass());
+  }
+
+  private ByteBuf copy(ByteBuffer payload) {
+    ByteBuffer source = payload.duplicate();
+    ByteBuf buffer = channel.alloc().directBuffer(source.remaining());
+    buffer.writeBytes(source);
+    return buffer;
+  }
+
+  @Override
+  public String toString() {
+    return "NettyWebSocketSession[id=" + getId() + ", uri=" + uri + "]";
+  }
+}
@@ -0,0 +1,127 @@
+package com.spud.barrage.push.util;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 按键公平出队的阻塞队列
+ * 每个键（房间）一个子队列，有元素的子队列按到达顺序排成一轮，按差额轮询(DRR)出队：
+ * 轮到某个键时补充quantum个单位的额度，每出队一个元素消耗一个单位，额度用完或子队列为空时让给下一个键。
+ * 积压多少元素都只能占用一个键的份额，积压少的键的等待时间与积压多的键无关。
+ *
+ * @author Spud
+ * @date 2026/10/16
+ */
+public class DeficitRoundRobinQueue<T> {
+
+  private final int quantum;
+
+  private final ReentrantLock lock = new ReentrantLock();
+
+  private final Condition notEmpty = lock.newCondition();
+
+  /**
+   * 有元素的子队列，子队列为空时移除
+   */
+  private final LongObjectMap<Flow<T>> flows = new LongObjectMap<>();
+
+  /**
+   * 轮询顺序，队首为当前轮到的子队列
+   */
+  private final ArrayDeque<Flow<T>> active = new ArrayDeque<>();
+
+  private int size;
+
+  private static final class Flow<T> {
+
+    private final long key;
+
+    private final ArrayDeque<T> items = new ArrayDeque<>();
+
+    private int deficit;
+
+    private Flow(long key) {
+      this.key = key;
+    }
+  }
+
+  /**
+   * @param quantum 每轮每个键最多连续出队的元素数
+   */
+  public DeficitRoundRobinQueue(int quantum) {
+    this.quantum = Math.max(1, quantum);
+  }
+
+  public void offer(long key, T item) {
+    lock.lock();
+    try {
+      Flow<T> flow = flows.get(key);
+      if (flow == null) {
+        flow = new Flow<>(key);
+        flows.put(key, flow);
+        active.addLast(flow);
+      }
+      flow.items.addLast(item);
+      size++;
+      notEmpty.signal();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * 出队，队列为空时阻塞等待
+   */
+  public T take() throws InterruptedException {
+    lock.lockInterruptibly();
+    try {
+      while (size == 0) {
+        notEmpty.await();
+      }
+      return dequeue();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public int size() {
+    lock.lock();
+    try {
+      return size;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * 有元素的键数
+   */
+  public int activeKeys() {
+    lock.lock();
+    try {
+      return active.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private T dequeue() {
+    Flow<T> flow = active.peekFirst();
+    if (flow.deficit <= 0) {
+      flow.deficit += quantum;
+    }
+    T item = flow.items.pollFirst();
+    flow.deficit--;
+    size--;
+
+    if (flow.items.isEmpty()) {
+      // 子队列为空时丢弃剩余额度，重新有元素时排到队尾
+      active.pollFirst();
+      flows.remove(flow.key);
+    } else if (flow.deficit <= 0) {
+      active.addLast(active.pollFirst());
+    }
+    return item;
+  }
+}
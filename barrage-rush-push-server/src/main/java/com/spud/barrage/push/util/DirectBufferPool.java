@@ -0,0 +1,85 @@
+package com.spud.barrage.push.util;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 直接内存缓冲池
+ * 按2的幂划分容量等级，每个等级缓存有限数量的直接缓冲区，超出最大等级的请求不入池。
+ *
+ * @author Spud
+ * @date 2026/10/16
+ */
+public class DirectBufferPool {
+
+  private static final int MIN_SHIFT = 9;
+
+  private final int maxShift;
+
+  private final int maxPooledPerClass;
+
+  private final Queue<ByteBuffer>[] classes;
+
+  private final AtomicInteger[] pooledCounts;
+
+  /**
+   * @param maxBufferSize     入池的最大缓冲区大小
+   * @param maxPooledPerClass 每个容量等级最多缓存的缓冲区数量
+   */
+  @SuppressWarnings("unchecked")
+  public DirectBufferPool(int maxBufferSize, int maxPooledPerClass) {
+    this.maxShift = Math.max(MIN_SHIFT, 32 - Integer.numberOfLeadingZeros(maxBufferSize - 1));
+    this.maxPooledPerClass = maxPooledPerClass;
+    int classCount = maxShift - MIN_SHIFT + 1;
+    this.classes = new Queue[classCount];
+    this.pooledCounts = new AtomicInteger[classCount];
+    for (int i = 0; i < classCount; i++) {
+      classes[i] = new ConcurrentLinkedQueue<>();
+      pooledCounts[i] = new AtomicInteger();
+    }
+  }
+
+  /**
+   * 获取至少能容纳size字节的缓冲区，position为0，limit为size
+   */
+  public ByteBuffer acquire(int size) {
+    int index = classIndex(size);
+    if (index < 0) {
+      return ByteBuffer.allocateDirect(size);
+    }
+    ByteBuffer buffer = classes[index].poll();
+    if (buffer == null) {
+      buffer = ByteBuffer.allocateDirect(1 << (index + MIN_SHIFT));
+    } else {
+      pooledCounts[index].decrementAndGet();
+    }
+    buffer.clear().limit(size);
+    return buffer;
+  }
+
+  /**
+   * 归还缓冲区，归还后调用方不能再访问
+   */
+  public void release(ByteBuffer buffer) {
+    if (buffer == null || !buffer.isDirect()) {
+      return;
+    }
+    int capacity = buffer.capacity();
+    int index = classIndex(capacity);
+    if (index < 0 || capacity != 1 << (index + MIN_SHIFT)) {
+      return;
+    }
+    if (pooledCounts[index].incrementAndGet() <= maxPooledPerClass) {
+      classes[index].offer(buffer);
+    } else {
+      pooledCounts[index].decrementAndGet();
+    }
+  }
+
+  private int classIndex(int size) {
+    int shift = Math.max(MIN_SHIFT, 32 - Integer.numberOfLeadingZeros(Math.max(1, size) - 1));
+    return shift > maxShift ? -1 : shift - MIN_SHIFT;
+  }
+}
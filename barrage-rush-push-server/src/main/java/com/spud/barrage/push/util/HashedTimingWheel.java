@@ -0,0 +1,83 @@
+package com.spud.barrage.push.util;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+/**
+ * 哈希时间轮
+ * 槽位数覆盖最大延迟，不需要记录轮次；超过覆盖范围的到期时间落在最远的槽位，到期后由调用方重新调度。
+ * 调度可在任意线程进行，推进只能由单个线程调用。与推进并发调度到即将处理的槽位时，
+ * 条目最多会晚一整圈到期，适用于只要求不早于到期时间触发的场景（如空闲检测）。
+ *
+ * @author Spud
+ * @date 2026/10/16
+ */
+public class HashedTimingWheel<T> {
+
+  private final long tickMillis;
+
+  private final Queue<T>[] slots;
+
+  private final int mask;
+
+  /**
+   * 已处理到的刻度
+   */
+  private volatile long currentTick;
+
+  /**
+   * @param tickMillis     每个刻度的时长(毫秒)
+   * @param maxDelayMillis 需要覆盖的最大延迟(毫秒)
+   * @param startMillis    起始时间
+   */
+  @SuppressWarnings("unchecked")
+  public HashedTimingWheel(long tickMillis, long maxDelayMillis, long startMillis) {
+    this.tickMillis = Math.max(1, tickMillis);
+    long ticks = Math.max(2, (maxDelayMillis + this.tickMillis - 1) / this.tickMillis + 1);
+    int size = Integer.highestOneBit((int) Math.min(1 << 20, ticks - 1)) << 1;
+    this.slots = new Queue[size];
+    for (int i = 0; i < size; i++) {
+      slots[i] = new ConcurrentLinkedQueue<>();
+    }
+    this.mask = size - 1;
+    this.currentTick = startMillis / this.tickMillis;
+  }
+
+  /**
+   * 调度条目在指定时间后到期
+   */
+  public void schedule(T item, long deadlineMillis) {
+    long current = currentTick;
+    long tick = deadlineMillis / tickMillis;
+    // 已到期的放到下一个刻度，超出范围的放到最远刻度
+    tick = Math.max(current + 1, Math.min(current + mask, tick));
+    slots[(int) (tick & mask)].offer(item);
+  }
+
+  /**
+   * 推进到指定时间，依次处理经过的槽位中的条目
+   */
+  public void advance(long nowMillis, Consumer<T> expired) {
+    long target = nowMillis / tickMillis;
+    while (currentTick < target) {
+      long tick = currentTick + 1;
+      currentTick = tick;
+      // 调度范围为(currentTick, currentTick + mask]，处理过程中重新调度的条目不会落回当前槽位
+      Queue<T> slot = slots[(int) (tick & mask)];
+      T item;
+      while ((item = slot.poll()) != null) {
+        expired.accept(item);
+      }
+    }
+  }
+
+  /**
+   * 遍历所有未到期的条目
+   */
+  public void forEach(Consumer<T> action) {
+    for (Queue<T> slot : slots) {
+      slot.forEach(action);
+    }
+  }
+}
@@ -0,0 +1,69 @@
+package com.spud.barrage.push.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * long键的布隆过滤器
+ * 使用双重哈希生成k个位下标，位数组为AtomicLongArray，读写均无锁。
+ * 只会误报不会漏报，命中时需要调用方再做精确确认。
+ *
+ * @author Spud
+ * @date 2026/10/16
+ */
+public class LongBloomFilter {
+
+  private final AtomicLongArray bits;
+
+  private final long bitCount;
+
+  private final int hashCount;
+
+  /**
+   * @param expectedInsertions 预计插入数
+   * @param fpp                期望误报率
+   */
+  public LongBloomFilter(long expectedInsertions, double fpp) {
+    long n = Math.max(1, expectedInsertions);
+    long m = (long) Math.ceil(-n * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+    int words = (int) Math.max(1, (m + 63) >>> 6);
+    this.bits = new AtomicLongArray(words);
+    this.bitCount = (long) words << 6;
+    this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+  }
+
+  public void put(long key) {
+    long hash1 = mix(key);
+    long hash2 = mix(hash1) | 1L;
+    for (int i = 0; i < hashCount; i++) {
+      long index = Long.remainderUnsigned(hash1 + i * hash2, bitCount);
+      int word = (int) (index >>> 6);
+      long mask = 1L << index;
+      long current = bits.get(word);
+      while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask)) {
+        current = bits.get(word);
+      }
+    }
+  }
+
+  public boolean mightContain(long key) {
+    long hash1 = mix(key);
+    long hash2 = mix(hash1) | 1L;
+    for (int i = 0; i < hashCount; i++) {
+      long index = Long.remainderUnsigned(hash1 + i * hash2, bitCount);
+      if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * SplitMix64终结函数
+   */
+  private static long mix(long value) {
+    long z = value + 0x9E3779B97F4A7C15L;
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+}
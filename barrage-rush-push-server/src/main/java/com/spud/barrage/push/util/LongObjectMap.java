@@ -0,0 +1,193 @@
+package com.spud.barrage.push.util;
+
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * long键的开放寻址哈希表
+ * 采用线性探测，删除时回移后续元素而不使用墓碑，键不装箱。
+ * 非线程安全，由调用方负责同步。
+ *
+ * @author Spud
+ * @date 2026/10/16
+ */
+public class LongObjectMap<V> {
+
+  private static final int MIN_CAPACITY = 8;
+
+  /**
+   * 扩容阈值：元素数超过容量的一半时扩容
+   */
+  private static final int LOAD_SHIFT = 1;
+
+  private long[] keys;
+
+  private Object[] values;
+
+  private int mask;
+
+  private int size;
+
+  private final int initialCapacity;
+
+  public LongObjectMap() {
+    this(MIN_CAPACITY);
+  }
+
+  public LongObjectMap(int expectedSize) {
+    this.initialCapacity = tableSizeFor(Math.max(MIN_CAPACITY, expectedSize << LOAD_SHIFT));
+    allocate(initialCapacity);
+  }
+
+  public V get(long key) {
+    int index = indexOf(key);
+    return index < 0 ? null : valueAt(index);
+  }
+
+  public boolean containsKey(long key) {
+    return indexOf(key) >= 0;
+  }
+
+  /**
+   * 写入键值对
+   *
+   * @return 旧值，不存在时返回null
+   */
+  public V put(long key, V value) {
+    if (value == null) {
+      throw new IllegalArgumentException("value must not be null");
+    }
+    int index = hash(key) & mask;
+    while (values[index] != null) {
+      if (keys[index] == key) {
+        V old = valueAt(index);
+        values[index] = value;
+        return old;
+      }
+      index = (index + 1) & mask;
+    }
+    keys[index] = key;
+    values[index] = value;
+    if (++size > (values.length >>> LOAD_SHIFT)) {
+      rehash(values.length << 1);
+    }
+    return null;
+  }
+
+  /**
+   * 删除键
+   *
+   * @return 被删除的值，不存在时返回null
+   */
+  public V remove(long key) {
+    int index = indexOf(key);
+    if (index < 0) {
+      return null;
+    }
+    V old = valueAt(index);
+    values[index] = null;
+    size--;
+    shiftBack(index);
+
+    // 元素大量减少时收缩，避免房间潮汐后长期占用大数组
+    if (values.length > initialCapacity && size < (values.length >>> 3)) {
+      rehash(values.length >>> 1);
+    }
+    return old;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public void forEachKey(LongConsumer action) {
+    for (int i = 0; i < values.length; i++) {
+      if (values[i] != null) {
+        action.accept(keys[i]);
+      }
+    }
+  }
+
+  public void forEachValue(Consumer<? super V> action) {
+    for (int i = 0; i < values.length; i++) {
+      if (values[i] != null) {
+        action.accept(valueAt(i));
+      }
+    }
+  }
+
+  public void clear() {
+    allocate(initialCapacity);
+    size = 0;
+  }
+
+  private int indexOf(long key) {
+    int index = hash(key) & mask;
+    while (values[index] != null) {
+      if (keys[index] == key) {
+        return index;
+      }
+      index = (index + 1) & mask;
+    }
+    return -1;
+  }
+
+  /**
+   * 删除后回移同一探测链上的元素，保证查找不会因空槽提前终止
+   */
+  private void shiftBack(int gap) {
+    int index = (gap + 1) & mask;
+    while (values[index] != null) {
+      int home = hash(keys[index]) & mask;
+      // 元素到其初始槽位的距离不小于到空槽的距离时，可以回移到空槽
+      if (((index - home) & mask) >= ((index - gap) & mask)) {
+        keys[gap] = keys[index];
+        values[gap] = values[index];
+        values[index] = null;
+        gap = index;
+      }
+      index = (index + 1) & mask;
+    }
+  }
+
+  private void rehash(int newCapacity) {
+    long[] oldKeys = keys;
+    Object[] oldValues = values;
+    allocate(newCapacity);
+    for (int i = 0; i < oldValues.length; i++) {
+      if (oldValues[i] != null) {
+        int index = hash(oldKeys[i]) & mask;
+        while (values[index] != null) {
+          index = (index + 1) & mask;
+        }
+        keys[index] = oldKeys[i];
+        values[index] = oldValues[i];
+      }
+    }
+  }
+
+  private void allocate(int capacity) {
+    keys = new long[capacity];
+    values = new Object[capacity];
+    mask = capacity - 1;
+  }
+
+  @SuppressWarnings("unchecked")
+  private V valueAt(int index) {
+    return (V) values[index];
+  }
+
+  private static int hash(long key) {
+    long h = key * 0x9E3779B97F4A7C15L;
+    return (int) (h ^ (h >>> 32));
+  }
+
+  private static int tableSizeFor(int capacity) {
+    int n = Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1;
+    return Math.max(MIN_CAPACITY, n);
+  }
+}
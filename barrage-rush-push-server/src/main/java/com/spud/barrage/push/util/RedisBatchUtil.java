@@ -0,0 +1,43 @@
+package com.spud.barrage.push.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Redis批量写入工具类
+ *
+ * @author Spud
+ * @date 2026/10/16
+ */
+public class RedisBatchUtil {
+
+  /**
+   * 单次PFADD的最大元素数
+   */
+  public static final int PFADD_BATCH_SIZE = 1000;
+
+  private RedisBatchUtil() {
+    // 防止实例化
+  }
+
+  /**
+   * 按PFADD单次上限把用户ID拆成多批
+   */
+  public static List<byte[][]> pfAddBatches(Collection<Long> userIds) {
+    List<byte[][]> batches = new ArrayList<>();
+    List<byte[]> batch = new ArrayList<>(Math.min(PFADD_BATCH_SIZE, userIds.size()));
+    for (Long userId : userIds) {
+      batch.add(String.valueOf(userId).getBytes(StandardCharsets.UTF_8));
+      if (batch.size() == PFADD_BATCH_SIZE) {
+        batches.add(batch.toArray(new byte[0][]));
+        batch.clear();
+      }
+    }
+    if (!batch.isEmpty()) {
+      batches.add(batch.toArray(new byte[0][]));
+    }
+    return batches;
+  }
+}
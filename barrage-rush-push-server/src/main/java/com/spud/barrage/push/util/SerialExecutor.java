@@ -0,0 +1,66 @@
+package com.spud.barrage.push.util;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 串行执行器
+ * 提交的任务按顺序在底层执行器上逐个执行，同一时刻最多占用一个线程。
+ * 底层执行器拒绝时（停机关闭后）在调用线程执行排队的任务，任务持有的帧引用都能正常释放
+ *
+ * @author Spud
+ * @date 2026/10/16
+ */
+@Slf4j
+public class SerialExecutor implements Executor {
+
+  private final Executor delegate;
+
+  private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+  private final AtomicBoolean running = new AtomicBoolean(false);
+
+  public SerialExecutor(Executor delegate) {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public void execute(Runnable task) {
+    tasks.offer(task);
+    schedule();
+  }
+
+  private void schedule() {
+    if (running.compareAndSet(false, true)) {
+      try {
+        delegate.execute(this::drain);
+      } catch (RejectedExecutionException e) {
+        log.debug("底层执行器已拒绝任务，在调用线程执行: pending={}", tasks.size());
+        drain();
+      }
+    }
+  }
+
+  private void drain() {
+    try {
+      Runnable task;
+      while ((task = tasks.poll()) != null) {
+        try {
+          task.run();
+        } catch (Throwable e) {
+          log.error("串行任务执行异常", e);
+        }
+      }
+    } finally {
+      running.set(false);
+    }
+    // 释放标记后可能有新任务入队
+    if (!tasks.isEmpty()) {
+      schedule();
+    }
+  }
+}
@@ -0,0 +1,74 @@
+package com.spud.barrage.push.codec;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.spud.barrage.common.data.dto.DanmakuMessage;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+/**
+ * BinaryFrameCodec单元测试
+ *
+ * @author Spud
+ * @date 2026/10/16
+ */
+class BinaryFrameCodecTest {
+
+  @Test
+  void danmakuRoundTripWithPaletteColor() {
+    DanmakuMessage message = new DanmakuMessage(1234567890123L, 42L, 9876543210L, "666",
+        "#FFFFFF", 25, 1, 1_760_000_000_000L);
+    message.setSeq(1001L);
+
+    byte[] frame = BinaryFrameCodec.encodeDanmaku(message);
+    DanmakuMessage decoded = BinaryFrameCodec.decodeDanmaku(ByteBuffer.wrap(frame));
+
+    assertEquals(message.getId(), decoded.getId());
+    assertEquals(message.getSeq(), decoded.getSeq());
+    assertEquals(message.getRoomId(), decoded.getRoomId());
+    assertEquals(message.getUserId(), decoded.getUserId());
+    assertEquals(message.getContent(), decoded.getContent());
+    assertEquals(message.getColor(), decoded.getColor());
+    assertEquals(message.getSize(), decoded.getSize());
+    assertEquals(message.getPosition(), decoded.getPosition());
+    assertEquals(message.getTimestamp(), decoded.getTimestamp());
+  }
+
+  @Test
+  void danmakuRoundTripWithRgbColorAndUnicode() {
+    DanmakuMessage message = new DanmakuMessage(1L, 2L, 3L, "前方高能😀", "#12abEF", 18, 2, 4L);
+
+    DanmakuMessage decoded = BinaryFrameCodec.decodeDanmaku(
+        ByteBuffer.wrap(BinaryFrameCodec.encodeDanmaku(message)));
+
+    assertEquals("前方高能😀", decoded.getContent());
+    assertEquals("#12ABEF", decoded.getColor());
+  }
+
+  @Test
+  void nullColorIsPreserved() {
+    DanmakuMessage message = new DanmakuMessage(1L, 2L, 3L, "hi", null, 25, 0, 4L);
+
+    DanmakuMessage decoded = BinaryFrameCodec.decodeDanmaku(
+        ByteBuffer.wrap(BinaryFrameCodec.encodeDanmaku(message)));
+
+    assertNull(decoded.getColor());
+  }
+
+  @Test
+  void binaryFrameIsSmallerThanJson() {
+    // 典型弹幕的二进制帧应明显小于JSON帧
+    DanmakuMessage message = new DanmakuMessage(1234567890123L, 42L, 9876543210L, "666",
+        "#FFFFFF", 25, 0, 1_760_000_000_000L);
+    String json = "{\"type\":\"DANMAKU\",\"data\":{\"id\":1234567890123,\"roomId\":42,"
+        + "\"userId\":9876543210,\"content\":\"666\",\"position\":0,\"color\":\"#FFFFFF\","
+        + "\"size\":25,\"timestamp\":1760000000000}}";
+
+    byte[] frame = BinaryFrameCodec.encodeDanmaku(message);
+    assertTrue(frame.length * 4 < json.getBytes(StandardCharsets.UTF_8).length,
+        "binary frame should be at least 4x smaller, was " + frame.length + " bytes");
+  }
+}
@@ -0,0 +1,112 @@
+package com.spud.barrage.push.codec;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.spud.barrage.push.constant.WireProtocol;
+import com.spud.barrage.push.util.DirectBufferPool;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Inflater;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+
+/**
+ * BroadcastFrame单元测试
+ *
+ * @author Spud
+ * @date 2026/10/16
+ */
+class BroadcastFrameTest {
+
+  private static final String JSON = "{\"type\":\"DANMAKU\",\"data\":{\"content\":\"666666\"}}";
+
+  @Test
+  void encodesEachProtocolOnce() {
+    AtomicInteger jsonCalls = new AtomicInteger();
+    BroadcastFrame frame = BroadcastFrame.of(payload(jsonCalls, null),
+        new DirectBufferPool(4096, 4), 6);
+
+    WebSocketMessage<?> first = frame.messageFor(WireProtocol.JSON);
+    WebSocketMessage<?> second = frame.messageFor(WireProtocol.JSON);
+    frame.messageFor(WireProtocol.JSON_DEFLATE);
+    frame.messageFor(WireProtocol.JSON_DEFLATE);
+
+    assertSame(first, second);
+    assertEquals(1, jsonCalls.get());
+    frame.release();
+  }
+
+  @Test
+  void deflatedPayloadInflatesToJson() throws Exception {
+    BroadcastFrame frame = BroadcastFrame.of(payload(new AtomicInteger(), null),
+        new DirectBufferPool(4096, 4), 6);
+
+    BinaryMessage message = assertInstanceOf(BinaryMessage.class,
+        frame.messageFor(WireProtocol.JSON_DEFLATE));
+    ByteBuffer payload = message.getPayload();
+    byte[] compressed = new byte[payload.remaining()];
+    payload.get(compressed);
+
+    Inflater inflater = new Inflater(true);
+    inflater.setInput(compressed);
+    byte[] output = new byte[1024];
+    int length = inflater.inflate(output);
+    assertEquals(JSON, new String(output, 0, length, StandardCharsets.UTF_8));
+
+    // 每个接收者拿到独立的读位置
+    BinaryMessage other = (BinaryMessage) frame.messageFor(WireProtocol.JSON_DEFLATE);
+    assertEquals(compressed.length, other.getPayload().remaining());
+    frame.release();
+  }
+
+  @Test
+  void binaryFallsBackToJsonAndReleasedFrameStopsEncoding() {
+    BroadcastFrame frame = BroadcastFrame.of(payload(new AtomicInteger(), null), null, 6);
+
+    assertInstanceOf(TextMessage.class, frame.messageFor(WireProtocol.BINARY));
+
+    frame.retain();
+    frame.release();
+    frame.release();
+    assertNull(frame.messageFor(WireProtocol.JSON));
+  }
+
+  @Test
+  void sharedFallbackBufferIsReleasedOnce() {
+    DirectBufferPool pool = new DirectBufferPool(4096, 4);
+    BroadcastFrame frame = BroadcastFrame.of(payload(new AtomicInteger(), null), pool, 6);
+
+    // 没有二进制形式时BINARY_DEFLATE复用JSON_DEFLATE的缓冲区
+    ByteBuffer deflated = ((BinaryMessage) frame.messageFor(WireProtocol.JSON_DEFLATE))
+        .getPayload();
+    ByteBuffer fallback = ((BinaryMessage) frame.messageFor(WireProtocol.BINARY_DEFLATE))
+        .getPayload();
+    assertEquals(deflated, fallback);
+    frame.release();
+
+    // 重复归还会让缓冲池把同一块缓冲区交给两个使用者
+    assertNotSame(pool.acquire(deflated.capacity()), pool.acquire(deflated.capacity()));
+  }
+
+  private BroadcastFrame.Payload payload(AtomicInteger jsonCalls, byte[] binary) {
+    return new BroadcastFrame.Payload() {
+      @Override
+      public String json() {
+        jsonCalls.incrementAndGet();
+        return JSON;
+      }
+
+      @Override
+      public byte[] binary() {
+        return binary;
+      }
+    };
+  }
+}
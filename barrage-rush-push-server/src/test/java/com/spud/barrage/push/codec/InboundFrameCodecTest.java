@@ -0,0 +1,66 @@
+package com.spud.barrage.push.codec;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import org.junit.jupiter.api.Test;
+
+/**
+ * InboundFrameCodec单元测试
+ *
+ * @author Spud
+ * @date 2026/10/16
+ */
+class InboundFrameCodecTest {
+
+  @Test
+  void pingFramesAreRecognizedByPrefix() throws Exception {
+    assertTrue(InboundFrameCodec.isPing("PING"));
+    assertTrue(InboundFrameCodec.isPing("{\"type\":\"PING\"}"));
+    assertTrue(InboundFrameCodec.isPing("{\"type\":\"PING\",\"timestamp\":1}"));
+    assertFalse(InboundFrameCodec.isPing("{\"type\":\"PINGX\"}"));
+
+    // 非紧凑格式的PING走JSON解码
+    assertInstanceOf(InboundFrame.PingFrame.class,
+        InboundFrameCodec.decode("{ \"type\" : \"PING\" }"));
+    assertSame(InboundFrame.PingFrame.INSTANCE, InboundFrameCodec.decode("PING"));
+  }
+
+  @Test
+  void danmakuFrameBindsPayloadAndIgnoresUnknownFields() throws Exception {
+    InboundFrame frame = InboundFrameCodec.decode("{\"type\":\"DANMAKU\",\"extra\":1,"
+        + "\"data\":{\"content\":\"666\",\"size\":18,\"position\":1,\"font\":\"x\"}}");
+
+    InboundFrame.DanmakuFrame danmaku = assertInstanceOf(InboundFrame.DanmakuFrame.class, frame);
+    assertEquals("666", danmaku.data().content());
+    assertNull(danmaku.data().color());
+    assertEquals(18, danmaku.data().size());
+    assertEquals(1, danmaku.data().position());
+  }
+
+  @Test
+  void ackFrameDecodesFromTextAndBinary() throws Exception {
+    InboundFrame.AckFrame text = assertInstanceOf(InboundFrame.AckFrame.class,
+        InboundFrameCodec.decode("{\"type\":\"ACK\",\"messageId\":300}"));
+    assertEquals(300L, text.messageId());
+
+    InboundFrame.AckFrame binary = assertInstanceOf(InboundFrame.AckFrame.class,
+        InboundFrameCodec.decode(ByteBuffer.wrap(
+            new byte[]{BinaryFrameCodec.OP_CLIENT_ACK, (byte) 0xAC, 0x02})));
+    assertEquals(300L, binary.messageId());
+  }
+
+  @Test
+  void unknownOrMissingTypeDecodesToUnknownFrame() throws Exception {
+    InboundFrame.UnknownFrame unknown = assertInstanceOf(InboundFrame.UnknownFrame.class,
+        InboundFrameCodec.decode("{\"type\":\"LIKE\",\"count\":3}"));
+    assertEquals("LIKE", unknown.type());
+
+    assertInstanceOf(InboundFrame.UnknownFrame.class, InboundFrameCodec.decode("{\"a\":1}"));
+  }
+}
@@ -0,0 +1,90 @@
+package com.spud.barrage.push.interceptor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.spud.barrage.push.manager.HandshakeAdmission;
+import com.spud.barrage.push.service.TokenService;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.WebSocketHandler;
+
+/**
+ * WebSocketInterceptor单元测试
+ *
+ * @author Spud
+ * @date 2026/10/16
+ */
+class WebSocketInterceptorTest {
+
+  private static final String INSTANCE_ID = "10.0.0.1:8083";
+
+  private WebSocketInterceptor interceptor;
+
+  private TokenService tokenService;
+
+  @BeforeEach
+  void setUp() {
+    tokenService = mock(TokenService.class);
+    HandshakeAdmission admission = mock(HandshakeAdmission.class);
+    when(admission.acquire()).thenReturn(true);
+
+    interceptor = new WebSocketInterceptor();
+    ReflectionTestUtils.setField(interceptor, "tokenService", tokenService);
+    ReflectionTestUtils.setField(interceptor, "admission", admission);
+    ReflectionTestUtils.setField(interceptor, "instanceId", INSTANCE_ID);
+  }
+
+  @Test
+  void acceptsTicketBoundToRoomAndInstance() {
+    when(tokenService.verifyToken("t")).thenReturn(ticketInfo("100", INSTANCE_ID));
+
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    assertTrue(handshake("/ws/danmaku/100", response));
+    assertEquals(200, response.getStatus());
+  }
+
+  @Test
+  void rejectsTicketForAnotherRoom() {
+    when(tokenService.verifyToken("t")).thenReturn(ticketInfo("100", INSTANCE_ID));
+
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    assertFalse(handshake("/ws/danmaku/200", response));
+    assertEquals(401, response.getStatus());
+  }
+
+  @Test
+  void rejectsTicketForAnotherInstance() {
+    when(tokenService.verifyToken("t")).thenReturn(ticketInfo("100", "10.0.0.2:8083"));
+
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    assertFalse(handshake("/ws/danmaku/100", response));
+    assertEquals(401, response.getStatus());
+  }
+
+  private boolean handshake(String path, MockHttpServletResponse servletResponse) {
+    MockHttpServletRequest servletRequest = new MockHttpServletRequest("GET", path);
+    servletRequest.setQueryString("token=t");
+    return interceptor.beforeHandshake(new ServletServerHttpRequest(servletRequest),
+        new ServletServerHttpResponse(servletResponse), mock(WebSocketHandler.class),
+        new HashMap<>());
+  }
+
+  private static Map<String, Object> ticketInfo(String roomId, String instanceId) {
+    Map<String, Object> tokenInfo = new HashMap<>();
+    tokenInfo.put("userId", "7");
+    tokenInfo.put("roomId", roomId);
+    tokenInfo.put("instanceId", instanceId);
+    return tokenInfo;
+  }
+}
@@ -0,0 +1,109 @@
+package com.spud.barrage.push.manager;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.spud.barrage.common.data.dto.DanmakuMessage;
+import com.spud.barrage.common.data.mq.enums.RoomType;
+import com.spud.barrage.push.codec.DanmakuBroadcast;
+import com.spud.barrage.push.properties.PushProperties;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * DanmakuCoalescer单元测试
+ *
+ * @author Spud
+ * @date 2026/10/16
+ */
+class DanmakuCoalescerTest {
+
+  private static final long ROOM_ID = 100L;
+
+  private final ObjectMapper objectMapper = new ObjectMapper()
+      .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+  private final List<DanmakuBroadcast> flushed = new ArrayList<>();
+
+  private DanmakuCoalescer coalescer;
+
+  @BeforeEach
+  void setUp() {
+    PushProperties properties = new PushProperties();
+    properties.getCoalesce().setSampleUsers(2);
+    coalescer = new DanmakuCoalescer();
+    ReflectionTestUtils.setField(coalescer, "pushProperties", properties);
+    ReflectionTestUtils.setField(coalescer, "objectMapper", objectMapper);
+    coalescer.init();
+    coalescer.setFlushTarget(flushed::add);
+  }
+
+  @AfterEach
+  void tearDown() {
+    coalescer.destroy();
+  }
+
+  @Test
+  void normalizesWhitespaceCaseAndLongRuns() {
+    assertEquals("666", DanmakuCoalescer.normalize("666"));
+    assertEquals("666", DanmakuCoalescer.normalize("6 6 6 6 6 6"));
+    assertEquals("66", DanmakuCoalescer.normalize("66"));
+    assertEquals("haha", DanmakuCoalescer.normalize("HaHa"));
+    assertEquals("😀😀😀", DanmakuCoalescer.normalize("😀😀😀😀😀"));
+    assertEquals("𐐨a", DanmakuCoalescer.normalize("𐐀A"));
+  }
+
+  @Test
+  void passesThroughUpToThresholdThenCoalesces() throws Exception {
+    // HOT房间默认前5条原样下发
+    for (int i = 1; i <= 5; i++) {
+      assertFalse(coalescer.absorb(danmaku(i, i, "666"), RoomType.HOT));
+    }
+    assertTrue(coalescer.absorb(danmaku(6, 6, "6666"), RoomType.HOT));
+    assertTrue(coalescer.absorb(danmaku(7, 6, "666"), RoomType.HOT));
+    assertFalse(coalescer.absorb(danmaku(8, 8, "前方高能"), RoomType.HOT));
+    assertFalse(coalescer.absorb(danmaku(9, 9, "666"), RoomType.NORMAL));
+
+    coalescer.flush(ROOM_ID);
+
+    assertEquals(1, flushed.size());
+    DanmakuBroadcast coalesced = flushed.get(0);
+    assertTrue(coalesced.isCoalesced());
+    assertEquals(2, coalesced.getCount());
+    DanmakuMessage representative = coalesced.toMessage(objectMapper);
+    assertEquals("6666", representative.getContent());
+    assertNull(representative.getId());
+    assertNull(representative.getSeq());
+  }
+
+  @Test
+  void capsSampleUsers() {
+    for (int i = 1; i <= 5; i++) {
+      coalescer.absorb(danmaku(i, i, "哈哈哈"), RoomType.HOT);
+    }
+    for (int i = 6; i <= 10; i++) {
+      assertTrue(coalescer.absorb(danmaku(i, i, "哈哈哈"), RoomType.HOT));
+    }
+
+    coalescer.flush(ROOM_ID);
+
+    assertEquals(5, flushed.get(0).getCount());
+    assertArrayEquals(new long[]{6L, 7L}, flushed.get(0).getSampleUserIds());
+  }
+
+  private static DanmakuBroadcast danmaku(long seq, long userId, String content) {
+    return DanmakuBroadcast.ofJson(ROOM_ID, String.format(
+        "{\"type\":\"DANMAKU\",\"data\":{\"id\":%d,\"seq\":%d,\"roomId\":%d,\"userId\":%d,"
+            + "\"content\":\"%s\",\"position\":0,\"extra\":{\"userId\":0}}}",
+        seq, seq, ROOM_ID, userId, content));
+  }
+}
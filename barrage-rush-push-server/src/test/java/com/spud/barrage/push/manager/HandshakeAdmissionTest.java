@@ -0,0 +1,54 @@
+package com.spud.barrage.push.manager;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.spud.barrage.push.properties.PushProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * HandshakeAdmission单元测试
+ *
+ * @author Spud
+ * @date 2026/10/16
+ */
+class HandshakeAdmissionTest {
+
+  @Test
+  void rejectsImmediatelyWhenBucketIsEmpty() {
+    HandshakeAdmission admission = admission(1, 2, 10);
+
+    assertTrue(admission.acquire());
+    assertTrue(admission.acquire());
+
+    long start = System.nanoTime();
+    assertFalse(admission.acquire());
+    assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(100));
+  }
+
+  @Test
+  void rejectsWhenPendingLimitIsReached() {
+    HandshakeAdmission admission = admission(1000, 1000, 1);
+
+    assertTrue(admission.acquire());
+    assertFalse(admission.acquire());
+
+    admission.release();
+    assertTrue(admission.acquire());
+  }
+
+  private HandshakeAdmission admission(int permitsPerSecond, int burst, int maxPending) {
+    PushProperties properties = new PushProperties();
+    properties.getAdmission().setPermitsPerSecond(permitsPerSecond);
+    properties.getAdmission().setBurst(burst);
+    properties.getAdmission().setMaxPending(maxPending);
+    HandshakeAdmission admission = new HandshakeAdmission();
+    ReflectionTestUtils.setField(admission, "pushProperties", properties);
+    ReflectionTestUtils.setField(admission, "meterRegistry", new SimpleMeterRegistry());
+    admission.init();
+    return admission;
+  }
+}
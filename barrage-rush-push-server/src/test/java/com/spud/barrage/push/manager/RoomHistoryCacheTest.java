@@ -0,0 +1,54 @@
+package com.spud.barrage.push.manager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.spud.barrage.common.data.dto.DanmakuMessage;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * RoomHistoryCache单元测试
+ *
+ * @author Spud
+ * @date 2026/10/16
+ */
+class RoomHistoryCacheTest {
+
+  @Test
+  void returnsContiguousGap() {
+    List<DanmakuMessage> gap = RoomHistoryCache.gapAfter(newestFirst(10, 9, 8, 7, 6), 7);
+
+    assertEquals(List.of(10L, 9L, 8L), gap.stream().map(DanmakuMessage::getSeq).toList());
+  }
+
+  @Test
+  void rejectsGapWithHoles() {
+    // 9和7不在来源中，例如由MQ广播、未写入Redis最近弹幕列表
+    assertNull(RoomHistoryCache.gapAfter(newestFirst(10, 8, 6, 5), 5));
+  }
+
+  @Test
+  void rejectsGapNotReachingResumePoint() {
+    assertNull(RoomHistoryCache.gapAfter(newestFirst(10, 9, 4), 5));
+    assertNull(RoomHistoryCache.gapAfter(newestFirst(10, 9), 5));
+  }
+
+  @Test
+  void returnsEmptyGapWhenUpToDate() {
+    assertTrue(RoomHistoryCache.gapAfter(newestFirst(5, 4), 5).isEmpty());
+  }
+
+  private static List<DanmakuMessage> newestFirst(long... seqs) {
+    List<DanmakuMessage> messages = new ArrayList<>(seqs.length);
+    for (long seq : seqs) {
+      DanmakuMessage message = new DanmakuMessage();
+      message.setId(seq);
+      message.setSeq(seq);
+      messages.add(message);
+    }
+    return messages;
+  }
+}
@@ -0,0 +1,74 @@
+package com.spud.barrage.push.manager;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.spud.barrage.push.constant.WebSocketType;
+import com.spud.barrage.push.constant.WireProtocol;
+import com.spud.barrage.push.properties.PushProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.WebSocketSession;
+
+/**
+ * SessionIdleMonitor单元测试
+ *
+ * @author Spud
+ * @date 2026/10/16
+ */
+class SessionIdleMonitorTest {
+
+  private static final long TIMEOUT = 30_000;
+
+  private SessionIdleMonitor monitor;
+
+  @BeforeEach
+  void setUp() {
+    PushProperties properties = new PushProperties();
+    properties.getHeartbeat().setTimeout(TIMEOUT);
+    monitor = new SessionIdleMonitor();
+    ReflectionTestUtils.setField(monitor, "pushProperties", properties);
+    monitor.init();
+  }
+
+  @AfterEach
+  void tearDown() {
+    monitor.destroy();
+  }
+
+  @Test
+  void receiveOnlyCdnSessionSurvivesTimeout() {
+    SessionOutbound outbound = mock(SessionOutbound.class);
+    monitor.watch(record(WebSocketType.CDN, false, outbound));
+
+    monitor.tick(System.currentTimeMillis() + TIMEOUT * 2);
+
+    verify(outbound, never()).requestDisconnect(any());
+  }
+
+  @Test
+  void silentHeartbeatAndMultiplexedSessionsAreClosed() {
+    SessionOutbound heartbeat = mock(SessionOutbound.class);
+    SessionOutbound mux = mock(SessionOutbound.class);
+    monitor.watch(record(WebSocketType.HEARTBEAT, false, heartbeat));
+    monitor.watch(record(WebSocketType.DANMAKU, true, mux));
+
+    monitor.tick(System.currentTimeMillis() + TIMEOUT * 2);
+
+    verify(heartbeat).requestDisconnect(any());
+    verify(mux).requestDisconnect(any());
+  }
+
+  private static SessionRecord record(String type, boolean multiplexed,
+      SessionOutbound outbound) {
+    WebSocketSession session = mock(WebSocketSession.class);
+    when(session.isOpen()).thenReturn(true);
+    when(session.getId()).thenReturn(type);
+    return new SessionRecord(session, outbound, type, 1L, 2L, WireProtocol.JSON, multiplexed);
+  }
+}
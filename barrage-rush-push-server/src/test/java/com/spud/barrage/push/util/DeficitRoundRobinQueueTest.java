@@ -0,0 +1,50 @@
+package com.spud.barrage.push.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * DeficitRoundRobinQueue单元测试
+ *
+ * @author Spud
+ * @date 2026/10/16
+ */
+class DeficitRoundRobinQueueTest {
+
+  @Test
+  void backloggedKeyDoesNotDelayOtherKeys() throws InterruptedException {
+    DeficitRoundRobinQueue<String> queue = new DeficitRoundRobinQueue<>(2);
+    for (int i = 0; i < 10; i++) {
+      queue.offer(1, "hot" + i);
+    }
+    queue.offer(2, "small0");
+    queue.offer(2, "small1");
+
+    List<String> order = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      order.add(queue.take());
+    }
+    assertEquals(List.of("hot0", "hot1", "small0", "small1"), order);
+    assertEquals(1, queue.activeKeys());
+    assertEquals(8, queue.size());
+  }
+
+  @Test
+  void keyRejoinsAtTailAfterDraining() throws InterruptedException {
+    DeficitRoundRobinQueue<String> queue = new DeficitRoundRobinQueue<>(4);
+    queue.offer(1, "a0");
+    queue.offer(2, "b0");
+    queue.offer(2, "b1");
+
+    assertEquals("a0", queue.take());
+    queue.offer(1, "a1");
+    assertEquals("b0", queue.take());
+    assertEquals("b1", queue.take());
+    assertEquals("a1", queue.take());
+    assertEquals(0, queue.size());
+    assertEquals(0, queue.activeKeys());
+  }
+}
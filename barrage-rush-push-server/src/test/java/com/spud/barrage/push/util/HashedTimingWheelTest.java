@@ -0,0 +1,59 @@
+package com.spud.barrage.push.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * HashedTimingWheel单元测试
+ *
+ * @author Spud
+ * @date 2026/10/16
+ */
+class HashedTimingWheelTest {
+
+  @Test
+  void itemExpiresNotBeforeDeadline() {
+    HashedTimingWheel<String> wheel = new HashedTimingWheel<>(100, 1000, 0);
+    List<String> expired = new ArrayList<>();
+    wheel.schedule("a", 500);
+
+    wheel.advance(400, expired::add);
+    assertTrue(expired.isEmpty());
+
+    wheel.advance(500, expired::add);
+    assertEquals(List.of("a"), expired);
+  }
+
+  @Test
+  void pastDeadlineExpiresOnNextTick() {
+    HashedTimingWheel<String> wheel = new HashedTimingWheel<>(100, 1000, 1000);
+    List<String> expired = new ArrayList<>();
+    wheel.schedule("a", 0);
+
+    wheel.advance(1100, expired::add);
+    assertEquals(List.of("a"), expired);
+  }
+
+  @Test
+  void rescheduleDuringAdvanceIsDeferred() {
+    HashedTimingWheel<String> wheel = new HashedTimingWheel<>(100, 1000, 0);
+    List<String> expired = new ArrayList<>();
+    wheel.schedule("a", 100);
+
+    // 到期时重新调度到更远的时间，应在新的到期时间才再次触发
+    wheel.advance(100, item -> {
+      expired.add(item);
+      wheel.schedule(item, 800);
+    });
+    assertEquals(1, expired.size());
+
+    wheel.advance(700, expired::add);
+    assertEquals(1, expired.size());
+    wheel.advance(800, expired::add);
+    assertEquals(2, expired.size());
+  }
+}
@@ -0,0 +1,81 @@
+package com.spud.barrage.push.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+/**
+ * LongObjectMap单元测试
+ *
+ * @author Spud
+ * @date 2026/10/16
+ */
+class LongObjectMapTest {
+
+  @Test
+  void putGetAndReplace() {
+    LongObjectMap<String> map = new LongObjectMap<>();
+    assertNull(map.put(1L, "a"));
+    assertNull(map.put(0L, "zero"));
+    assertNull(map.put(-7L, "negative"));
+    assertEquals("a", map.put(1L, "b"), "Replacing a key should return the old value");
+
+    assertEquals("b", map.get(1L));
+    assertEquals("zero", map.get(0L));
+    assertEquals("negative", map.get(-7L));
+    assertNull(map.get(2L));
+    assertEquals(3, map.size());
+  }
+
+  @Test
+  void removeKeepsProbeChainsIntact() {
+    // 相邻的键在小表中必然产生冲突，删除中间元素后其余元素仍应可查
+    LongObjectMap<Long> map = new LongObjectMap<>();
+    for (long i = 0; i < 64; i++) {
+      map.put(i * 1024, i);
+    }
+    for (long i = 0; i < 64; i += 2) {
+      assertEquals(i, map.remove(i * 1024));
+    }
+    for (long i = 0; i < 64; i++) {
+      if (i % 2 == 0) {
+        assertNull(map.get(i * 1024));
+      } else {
+        assertEquals(i, map.get(i * 1024));
+      }
+    }
+    assertEquals(32, map.size());
+  }
+
+  @Test
+  void behavesLikeHashMapUnderRandomOperations() {
+    // 随机写入和删除，与HashMap结果对比，覆盖扩容和收缩
+    Random random = new Random(42);
+    LongObjectMap<Integer> map = new LongObjectMap<>();
+    Map<Long, Integer> expected = new HashMap<>();
+    for (int i = 0; i < 200_000; i++) {
+      long key = random.nextInt(5_000);
+      if (random.nextInt(3) == 0) {
+        assertEquals(expected.remove(key), map.remove(key));
+      } else {
+        assertEquals(expected.put(key, i), map.put(key, i));
+      }
+    }
+    assertEquals(expected.size(), map.size());
+
+    Set<Long> keys = new HashSet<>();
+    map.forEachKey(keys::add);
+    assertEquals(expected.keySet(), keys);
+    expected.forEach((key, value) -> assertEquals(value, map.get(key)));
+
+    expected.keySet().forEach(map::remove);
+    assertTrue(map.isEmpty());
+  }
+}
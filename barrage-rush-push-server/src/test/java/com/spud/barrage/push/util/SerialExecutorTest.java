@@ -0,0 +1,45 @@
+package com.spud.barrage.push.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import org.junit.jupiter.api.Test;
+
+/**
+ * SerialExecutor单元测试
+ *
+ * @author Spud
+ * @date 2026/10/16
+ */
+class SerialExecutorTest {
+
+  @Test
+  void runsTasksInOrder() {
+    List<Runnable> scheduled = new ArrayList<>();
+    SerialExecutor executor = new SerialExecutor(scheduled::add);
+    List<Integer> order = new ArrayList<>();
+
+    executor.execute(() -> order.add(1));
+    executor.execute(() -> order.add(2));
+    // 第一个任务执行前只占用一个底层线程
+    assertEquals(1, scheduled.size());
+
+    scheduled.get(0).run();
+    assertEquals(List.of(1, 2), order);
+  }
+
+  @Test
+  void rejectedTasksRunOnCallerInsteadOfBeingDropped() {
+    SerialExecutor executor = new SerialExecutor(task -> {
+      throw new RejectedExecutionException("shutdown");
+    });
+    List<Integer> order = new ArrayList<>();
+
+    executor.execute(() -> order.add(1));
+    executor.execute(() -> order.add(2));
+
+    assertEquals(List.of(1, 2), order);
+  }
+}
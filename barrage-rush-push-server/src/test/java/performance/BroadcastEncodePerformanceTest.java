@@ -0,0 +1,154 @@
+package performance;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.spud.barrage.common.data.dto.DanmakuMessage;
+import com.spud.barrage.push.codec.BinaryFrameCodec;
+import com.spud.barrage.push.codec.BroadcastFrame;
+import com.spud.barrage.push.constant.WireProtocol;
+import com.spud.barrage.push.util.DirectBufferPool;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+
+/**
+ * 单次房间广播的编码开销
+ * perSession模拟改造前的行为：每个会话包装同一JSON，并由容器的permessage-deflate单独压缩一次；
+ * encodeOnce为广播帧：每种协议只序列化、压缩一次，接收会话共享池化缓冲区。
+ *
+ * @author Spud
+ * @date 2026/10/16
+ */
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class BroadcastEncodePerformanceTest {
+
+  // 接收会话数
+  @Param({"10000"})
+  private int recipients;
+
+  // 是否压缩
+  @Param({"false", "true"})
+  private boolean compressed;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  private final DirectBufferPool bufferPool = new DirectBufferPool(64 * 1024, 256);
+
+  private final Deflater deflater = new Deflater(6, true);
+
+  private final byte[] deflateOutput = new byte[8192];
+
+  private DanmakuMessage message;
+
+  private WireProtocol protocol;
+
+  @Setup(Level.Trial)
+  public void init() {
+    message = new DanmakuMessage();
+    message.setId(1234567890123L);
+    message.setRoomId(10001L);
+    message.setUserId(20002L);
+    message.setContent("前方高能！！！主播这波操作太秀了，666666");
+    message.setColor("#FFFFFF");
+    message.setSize(25);
+    message.setPosition(1);
+    message.setTimestamp(System.currentTimeMillis());
+
+    protocol = compressed ? WireProtocol.JSON_DEFLATE : WireProtocol.JSON;
+  }
+
+  /******************** 改造前：每个会话单独处理 ********************/
+
+  @Benchmark
+  public void perSession(Blackhole bh) throws Exception {
+    String json = toJson();
+    for (int i = 0; i < recipients; i++) {
+      TextMessage textMessage = new TextMessage(json);
+      if (compressed) {
+        // 容器按会话压缩
+        deflater.reset();
+        deflater.setInput(json.getBytes(StandardCharsets.UTF_8));
+        deflater.finish();
+        bh.consume(deflater.deflate(deflateOutput));
+      }
+      bh.consume(textMessage);
+    }
+  }
+
+  /******************** 改造后：编码一次，按引用共享 ********************/
+
+  @Benchmark
+  public void encodeOnce(Blackhole bh) {
+    BroadcastFrame frame = BroadcastFrame.of(new BroadcastFrame.Payload() {
+      @Override
+      public String json() throws Exception {
+        return toJson();
+      }
+
+      @Override
+      public byte[] binary() {
+        return BinaryFrameCodec.encodeDanmaku(message);
+      }
+    }, bufferPool, 6);
+
+    for (int i = 0; i < recipients; i++) {
+      frame.retain();
+      bh.consume(frame.messageFor(protocol));
+      frame.release();
+    }
+    frame.release();
+  }
+
+  @Benchmark
+  public void encodeOnceBinary(Blackhole bh) {
+    BroadcastFrame frame = BroadcastFrame.of(new BroadcastFrame.Payload() {
+      @Override
+      public String json() throws Exception {
+        return toJson();
+      }
+
+      @Override
+      public byte[] binary() {
+        return BinaryFrameCodec.encodeDanmaku(message);
+      }
+    }, bufferPool, 6);
+
+    WireProtocol binaryProtocol = compressed ? WireProtocol.BINARY_DEFLATE : WireProtocol.BINARY;
+    for (int i = 0; i < recipients; i++) {
+      frame.retain();
+      BinaryMessage binaryMessage = (BinaryMessage) frame.messageFor(binaryProtocol);
+      bh.consume(binaryMessage);
+      frame.release();
+    }
+    frame.release();
+  }
+
+  private String toJson() throws Exception {
+    Map<String, Object> frame = new LinkedHashMap<>(4);
+    frame.put("type", "DANMAKU");
+    frame.put("data", message);
+    frame.put("timestamp", message.getTimestamp());
+    return objectMapper.writeValueAsString(frame);
+  }
+}